@@ -60,6 +60,36 @@ public class AuthenticationControllerIntegrationTest {
 
     @Test
     @Order(2)
+    void registerAgain() {
+        // request
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+        LinkedMultiValueMap<String, String> body= new LinkedMultiValueMap<>();
+        body.add("firstName", firstName);
+        body.add("lastName", lastName);
+        body.add("email", email);
+        body.add("password", password);
+
+        HttpEntity<LinkedMultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
+
+        // response
+        ResponseEntity<HashMap> response = testRestTemplate.exchange(
+                "http://localhost:" + port + "/register",
+                HttpMethod.POST,
+                request,
+                HashMap.class
+        );
+
+        // tests
+        assertNotNull(response);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode(), "Registered the same email twice.");
+        assertEquals("Field email can't be the email of an already registered client.", response.getBody().get("error"));
+    }
+
+    @Test
+    @Order(3)
     void login() {
         // request
         HttpHeaders headers = new HttpHeaders();
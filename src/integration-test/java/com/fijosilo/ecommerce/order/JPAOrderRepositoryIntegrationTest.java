@@ -0,0 +1,251 @@
+package com.fijosilo.ecommerce.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.category.Category;
+import com.fijosilo.ecommerce.product.Product;
+import com.fijosilo.ecommerce.product.ProductBrand;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("IntegrationTest")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class JPAOrderRepositoryIntegrationTest {
+    private static final int ORDERS = 12;
+
+    @Autowired
+    @Qualifier("JPAOrderRepository")
+    private OrderDAO orderDAO;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Client client;
+    private Product[] products;
+
+    @BeforeAll
+    void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProductBrand productBrand = new ProductBrand();
+            productBrand.setBrand("fetch plan brand");
+            entityManager.persist(productBrand);
+
+            Category parent = new Category();
+            parent.setName("fetch plan parent");
+            parent.setEnabled(true);
+            entityManager.persist(parent);
+
+            // every order has two products, each with its own images and categories
+            products = new Product[ORDERS + 1];
+            for (int i = 0; i < products.length; i++) {
+                Category category = new Category();
+                category.setName("fetch plan category " + i);
+                category.setParent(parent);
+                category.setEnabled(true);
+                entityManager.persist(category);
+
+                Product product = new Product();
+                product.setCode(UUID.randomUUID().toString());
+                product.setProductBrand(productBrand);
+                product.setName("Fetch Plan Product " + i);
+                product.setPrice(10 + i);
+                product.setImagesURL(List.of("/image/a.png", "/image/b.png"));
+                product.addProductCategory(category);
+                product.setEnabled(true);
+                entityManager.persist(product);
+                products[i] = product;
+            }
+
+            client = new Client();
+            client.setEmail("fetchplan@email.com");
+            client.setRole("CLIENT");
+            client.setEnabled(true);
+            entityManager.persist(client);
+
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = new Order();
+                order.setCode(UUID.randomUUID().toString());
+                order.setClient(client);
+                order.setDate((long) i);
+                order.setPaymentMethod(PaymentMethod.PAYPAL.toString());
+                order.addProduct(products[i]);
+                order.addProduct(products[i + 1]);
+                for (OrderProduct orderProduct : order.getProducts()) {
+                    entityManager.persist(orderProduct);
+                }
+                entityManager.persist(order);
+            }
+        });
+    }
+
+    // reads a page of orders and serializes it like the controllers do, returning the number of statements used
+    private long readOrdersStatementCount(Function<Integer, List<?>> readOrders, int maxOrdersPerPage) {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        return transactionTemplate.execute(status -> {
+            statistics.clear();
+            List<?> orders = readOrders.apply(maxOrdersPerPage);
+            assertEquals(maxOrdersPerPage, orders.size());
+            try {
+                objectMapper.writeValueAsString(orders);
+            } catch (JsonProcessingException e) {
+                fail(e);
+            }
+            return statistics.getPrepareStatementCount();
+        });
+    }
+
+    // creates an order with a line per product, returning the number of flushes and statements used
+    private long[] createOrderCounts(int lines) {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        return transactionTemplate.execute(status -> {
+            Order order = new Order();
+            order.setCode(UUID.randomUUID().toString());
+            order.setClient(client);
+            order.setDate(System.currentTimeMillis());
+            order.setPaymentMethod(PaymentMethod.PAYPAL.toString());
+            for (int i = 0; i < lines; i++) {
+                order.addProduct(products[i]);
+            }
+            statistics.clear();
+            assertTrue(orderDAO.createOrder(order));
+            long[] counts = {statistics.getFlushCount(), statistics.getPrepareStatementCount()};
+            // the orders made here aren't kept, so the other tests read the same orders
+            status.setRollbackOnly();
+            return counts;
+        });
+    }
+
+    @Test
+    void createOrderMethod_linesAreWrittenAsBatchesTest() {
+        long[] smallOrderCounts = this.createOrderCounts(2);
+        long[] largeOrderCounts = this.createOrderCounts(products.length);
+
+        // tests
+        // the lines and the order are written by a single flush
+        assertEquals(1, smallOrderCounts[0]);
+        assertEquals(1, largeOrderCounts[0]);
+        // the lines are a batch, so more lines don't prepare more statements
+        assertEquals(smallOrderCounts[1], largeOrderCounts[1]);
+    }
+
+    @Test
+    void updateOrderMethod_orderCancelledSinceItWasReadIsNotSavedTest() {
+        String code = UUID.randomUUID().toString();
+        transactionTemplate.executeWithoutResult(status -> {
+            // the order has its own client, so the pages of orders of the other tests don't change
+            Client otherClient = new Client();
+            otherClient.setEmail("updateorder@email.com");
+            otherClient.setRole("CLIENT");
+            otherClient.setEnabled(true);
+            entityManager.persist(otherClient);
+
+            Order order = new Order();
+            order.setCode(code);
+            order.setClient(otherClient);
+            order.setDate(System.currentTimeMillis());
+            order.setPaymentMethod(PaymentMethod.PAYPAL.toString());
+            order.setStatus("Waiting for payment");
+            order.addProduct(products[0]);
+            assertTrue(orderDAO.createOrder(order));
+        });
+
+        // the admin reads the order, and it expires before the admin saves it as paid
+        Order adminOrder = transactionTemplate.execute(status -> orderDAO.readOrderByCode(code));
+        Order expiredOrder = transactionTemplate.execute(status -> orderDAO.readOrderByCode(code));
+        Boolean isCancelled = transactionTemplate.execute(status -> orderDAO.cancelOrder(expiredOrder, "Payment expired"));
+        assertTrue(isCancelled);
+        adminOrder.setPaid(true);
+        adminOrder.setStatus("Processing");
+        Boolean isUpdated = transactionTemplate.execute(status -> orderDAO.updateOrder(adminOrder));
+
+        // tests
+        assertFalse(isUpdated);
+        Order savedOrder = transactionTemplate.execute(status -> orderDAO.readOrderByCode(code));
+        assertFalse(savedOrder.isPaid());
+        assertTrue(savedOrder.isFulfilled());
+        assertEquals("Payment expired", savedOrder.getStatus());
+        // the order read after it expired is saved
+        Boolean isSaved = transactionTemplate.execute(status -> {
+            Order order = orderDAO.readOrderByCode(code);
+            order.setStatus("Expired");
+            return orderDAO.updateOrder(order);
+        });
+        assertTrue(isSaved);
+    }
+
+    @Test
+    void readOrdersByClientMethod_statementCountDoesNotGrowWithThePageTest() {
+        Function<Integer, List<?>> readOrders = maxOrdersPerPage ->
+                orderDAO.readOrdersByClient(client, maxOrdersPerPage, 1);
+        long smallPageCount = this.readOrdersStatementCount(readOrders, 2);
+        long largePageCount = this.readOrdersStatementCount(readOrders, ORDERS);
+
+        // tests
+        assertEquals(smallPageCount, largePageCount);
+        // the order summaries, with their prices, come from a single query
+        assertEquals(1, largePageCount);
+    }
+
+    @Test
+    void readOrdersByClientMethod_summariesHaveTheOrderPriceTest() {
+        List<OrderSummary> orders = transactionTemplate.execute(status ->
+                orderDAO.readOrdersByClient(client, ORDERS, 1));
+
+        // tests
+        assertEquals(ORDERS, orders.size());
+        for (int i = 0; i < ORDERS; i++) {
+            // the order i has the products priced 10 + i and 11 + i, without discount
+            assertEquals((long) i, orders.get(i).getDate());
+            assertEquals(21.0 + 2 * i, orders.get(i).getPrice(), 0.001);
+        }
+    }
+
+    @Test
+    void readOrdersByFiltersMethod_statementCountDoesNotGrowWithThePageTest() {
+        Function<Integer, List<?>> readOrders = maxOrdersPerPage ->
+                orderDAO.readOrdersByFilters(client, null, null, null, null, null, null, null, OrderSort.DATE,
+                        maxOrdersPerPage, 1);
+        long smallPageCount = this.readOrdersStatementCount(readOrders, 2);
+        long largePageCount = this.readOrdersStatementCount(readOrders, ORDERS);
+
+        // tests
+        assertEquals(smallPageCount, largePageCount);
+        // orders, products, product images and product categories
+        assertEquals(4, largePageCount);
+    }
+
+    @Test
+    void readOrdersByFiltersMethod_filtersAndSortsByTotalTest() {
+        List<Order> orders = transactionTemplate.execute(status ->
+                orderDAO.readOrdersByFilters(client, null, null, null, null, null, 25.0, 31.0, OrderSort.TOTAL,
+                        ORDERS, 1));
+
+        // tests
+        // the orders 2 to 5 total 25, 27, 29 and 31
+        assertEquals(4, orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(25.0 + 2 * i, orders.get(i).getTotal(), 0.001);
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.category.Category;
+import com.fijosilo.ecommerce.category.CategoryService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("IntegrationTest")
+@SpringBootTest
+@ActiveProfiles("test")
+public class IndexedProductRepositoryIntegrationTest {
+    @Autowired
+    @Qualifier("IndexedProductRepository")
+    private ProductDAO productDAO;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void createProductMethod_indexesTheProductWhenTheTransactionCommitsTest() {
+        Product product = this.createProduct("Indexed Committed Lamp");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(productDAO.createProduct(product));
+            // the transaction isn't committed yet, so the product isn't listed
+            assertTrue(productDAO.readProductsByFilters("Indexed Committed Lamp", null, null, null, null, 10, 1).isEmpty());
+        });
+
+        assertEquals(List.of(new ProductSummary(product)),
+                productDAO.readProductsByFilters("Indexed Committed Lamp", null, null, null, null, 10, 1));
+    }
+
+    @Test
+    void createProductMethod_rolledBackProductsAreNotIndexedTest() {
+        Product product = this.createProduct("Indexed Rolled Back Lamp");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(productDAO.createProduct(product));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(productDAO.readProductsByFilters("Indexed Rolled Back Lamp", null, null, null, null, 10, 1).isEmpty());
+        assertTrue(productDAO.readProductsBySearch("rolled back", 10, 1).isEmpty());
+    }
+
+    @Test
+    void updateCategoryMethod_renamedCategoryIsIndexedWithItsNewNameTest() {
+        Category category = new Category();
+        category.setName("INDEXED LIGHTING");
+        category.setEnabled(true);
+        assertTrue(categoryService.createCategory(category));
+        Product product = this.createProduct("Indexed Renamed Lamp");
+        product.addProductCategory(category);
+        assertTrue(productDAO.createProduct(product));
+
+        category = categoryService.readCategoryByName("INDEXED LIGHTING");
+        category.setName("INDEXED LAMPS");
+        assertTrue(categoryService.updateCategory(category));
+
+        CategoryFilter newNameFilter = new CategoryFilter(List.of(Set.of("INDEXED LAMPS")), CategoryMatch.ANY);
+        assertEquals(List.of(new ProductSummary(product)),
+                productDAO.readProductsByFilters(null, null, null, null, newNameFilter, 10, 1));
+        CategoryFilter oldNameFilter = new CategoryFilter(List.of(Set.of("INDEXED LIGHTING")), CategoryMatch.ANY);
+        assertTrue(productDAO.readProductsByFilters(null, null, null, null, oldNameFilter, 10, 1).isEmpty());
+        assertEquals(Map.of("INDEXED LAMPS", 1),
+                productDAO.readProductFacets("Indexed Renamed Lamp", null, null, null, null, new double[]{0}).getCategories());
+        assertTrue(productDAO.readProductsBySearch("lighting", 10, 1).isEmpty());
+    }
+
+    private Product createProduct(String name) {
+        Product product = new Product();
+        product.setCode(UUID.randomUUID().toString());
+        product.setName(name);
+        product.setPrice(19.99);
+        product.setAdditionDate(System.currentTimeMillis());
+        product.setEnabled(true);
+        return product;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.category.Category;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("IntegrationTest")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class JPAProductRepositoryIntegrationTest {
+    @Autowired
+    @Qualifier("JPAProductRepository")
+    private ProductDAO productDAO;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Product productChair, productGardenTable, productLamp;
+
+    @BeforeAll
+    void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Category furniture = this.createCategory("category filter furniture");
+            Category garden = this.createCategory("category filter garden");
+            Category outdoor = this.createCategory("category filter outdoor");
+
+            productChair = this.createProduct("Category Filter Chair", furniture);
+            productGardenTable = this.createProduct("Category Filter Garden Table", furniture, garden, outdoor);
+            productLamp = this.createProduct("Category Filter Lamp", outdoor);
+        });
+    }
+
+    @Test
+    void readProductsByFiltersMethod_anyCategoryReturnsEveryProductOnceTest() {
+        CategoryFilter categoryFilter = new CategoryFilter(List.of(
+                Set.of("category filter furniture"), Set.of("category filter garden"), Set.of("category filter outdoor")),
+                CategoryMatch.ANY);
+
+        List<ProductSummary> firstPage = productDAO.readProductsByFilters(null, null, null, null, categoryFilter, 2, 1);
+        List<ProductSummary> secondPage = productDAO.readProductsByFilters(null, null, null, null, categoryFilter, 2, 2);
+
+        // the garden table is in every category but it is only returned once, so it doesn't push the lamp off the pages
+        assertEquals(List.of(new ProductSummary(productChair), new ProductSummary(productGardenTable)), firstPage);
+        assertEquals(List.of(new ProductSummary(productLamp)), secondPage);
+    }
+
+    @Test
+    void readProductsByFiltersMethod_allCategoriesReturnsTheProductsInEveryCategoryTest() {
+        CategoryFilter categoryFilter = new CategoryFilter(List.of(
+                Set.of("category filter furniture"), Set.of("category filter outdoor")), CategoryMatch.ALL);
+
+        List<ProductSummary> products = productDAO.readProductsByFilters(null, null, null, null, categoryFilter, 10, 1);
+
+        assertEquals(List.of(new ProductSummary(productGardenTable)), products);
+    }
+
+    @Test
+    void readProductsByFiltersMethod_allCategoriesWithSubcategoriesTest() {
+        // furniture with its garden subcategory, and outdoor
+        CategoryFilter categoryFilter = new CategoryFilter(List.of(
+                Set.of("category filter furniture", "category filter garden"), Set.of("category filter outdoor")),
+                CategoryMatch.ALL);
+
+        List<ProductSummary> products = productDAO.readProductsByFiltersAfter(null, null, null, null, categoryFilter, 10, null);
+
+        assertEquals(List.of(new ProductSummary(productGardenTable)), products);
+    }
+
+    private Category createCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        category.setEnabled(true);
+        entityManager.persist(category);
+        return category;
+    }
+
+    private Product createProduct(String name, Category... categories) {
+        Product product = new Product();
+        product.setCode(UUID.randomUUID().toString());
+        product.setName(name);
+        product.setPrice(49.99);
+        for (Category category : categories) {
+            product.addProductCategory(category);
+        }
+        product.setEnabled(true);
+        entityManager.persist(product);
+        return product;
+    }
+
+}
@@ -0,0 +1,313 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.address.Address;
+import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.cache.BoundedCache;
+import com.fijosilo.ecommerce.order.Order;
+import com.fijosilo.ecommerce.order.OrderController;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("IntegrationTest")
+@SpringBootTest
+@ActiveProfiles("test")
+public class StockReservationIntegrationTest {
+    private static final int CHECKOUTS = 1000;
+    private static final int THREADS = 50;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private OrderController orderController;
+    @Autowired
+    @Qualifier("JPAStockLedgerRepository")
+    private StockLedgerDAO stockLedgerDAO;
+    @Autowired
+    @Qualifier("JPAProductRepository")
+    private ProductDAO productDAO;
+    @Autowired
+    private BoundedCache<String, Product> productCache;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void reserveStockMethod_concurrentCheckoutsNeverOversellTest() throws Exception {
+        Product product = this.createProduct(100);
+
+        Checkouts checkouts = this.checkout(() -> productService.reserveStock(Map.of(product, 1)));
+
+        // every unit is sold and every other checkout is refused
+        assertEquals(0, checkouts.failed);
+        assertEquals(100, checkouts.reserved);
+        assertEquals(CHECKOUTS - 100, checkouts.refused);
+        assertEquals(0, this.readStock(product));
+    }
+
+    @Test
+    void reserveStockMethod_concurrentCheckoutsReserveEveryProductOrNoneTest() throws Exception {
+        Product phone = this.createProduct(100);
+        Product tv = this.createProduct(150);
+
+        // the tv runs out first, so the phones of the checkouts without a tv must stay in stock
+        Checkouts checkouts = this.checkout(() -> productService.reserveStock(Map.of(phone, 1, tv, 2)));
+
+        assertEquals(0, checkouts.failed);
+        assertEquals(75, checkouts.reserved);
+        assertEquals(CHECKOUTS - 75, checkouts.refused);
+        assertEquals(25, this.readStock(phone));
+        assertEquals(0, this.readStock(tv));
+    }
+
+    @Test
+    void createOrderMethod_concurrentOrdersNeverOversellTest() throws Exception {
+        Product product = this.createProduct(100);
+        Authentication authentication = this.createClient();
+
+        // each order is reserved, then created, and the ones without stock are refused
+        Checkouts checkouts = this.checkout(() -> {
+            HashMap<String, String> params = new HashMap<>();
+            params.put("product_codes[0]", product.getCode());
+            params.put("payment_method", "PAYPAL");
+            ResponseEntity<HashMap<String, Object>> response = orderController.createOrder(authentication, params);
+            if (response.getStatusCode() == HttpStatus.CREATED) {
+                return true;
+            }
+            if (response.getStatusCode() == HttpStatus.UNPROCESSABLE_ENTITY) {
+                return false;
+            }
+            throw new IllegalStateException(String.valueOf(response.getBody()));
+        });
+
+        assertEquals(0, checkouts.failed);
+        assertEquals(100, checkouts.reserved);
+        assertEquals(CHECKOUTS - 100, checkouts.refused);
+        assertEquals(0, this.readStock(product));
+        Long ordered = transactionTemplate.execute(status -> entityManager.createQuery(
+                "SELECT SUM(op.quantity) FROM Order o JOIN o.products op WHERE op.product.id = :id", Long.class)
+                .setParameter("id", product.getId())
+                .getSingleResult());
+        assertEquals(100L, ordered);
+    }
+
+    @Test
+    void releaseStockMethod_givesTheReservedStockBackTest() {
+        Product product = this.createProduct(5);
+
+        assertTrue(productService.reserveStock(Map.of(product, 5)));
+        assertFalse(productService.reserveStock(Map.of(product, 1)));
+        assertTrue(productService.releaseStock(Map.of(product, 5)));
+
+        assertEquals(5, this.readStock(product));
+    }
+
+    @Test
+    void stockLedger_recoversTheReservationsThatWereNotWrittenTest() {
+        Product product = this.createProduct(10);
+        StockLedger stockLedger = this.createStockLedger(product);
+        stockLedger.start();
+
+        // the app stops after the reservation, before the stock ledger writes it
+        assertTrue(stockLedger.reserveStock(Map.of(product, 3)));
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = new Order();
+            order.setCode(UUID.randomUUID().toString());
+            order.addProduct(product, 3);
+            order.setDate(System.currentTimeMillis());
+            order.setStatus("Waiting for payment");
+            order.getProducts().forEach(entityManager::persist);
+            entityManager.persist(order);
+        });
+        assertEquals(10, this.readStock(product));
+
+        StockLedger restartedStockLedger = this.createStockLedger(product);
+        restartedStockLedger.start();
+        restartedStockLedger.shutdown();
+
+        assertEquals(7, this.readStock(product));
+    }
+
+    @Test
+    void stockLedger_recoversTheReservationsAddedToOlderOrdersTest() {
+        Product product = this.createProduct(10);
+        StockLedger stockLedger = this.createStockLedger(product);
+        stockLedger.start();
+
+        // an admin adds units to an order made before the last write, and the app stops before they're written
+        assertTrue(stockLedger.reserveStock(Map.of(product, 4)));
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = new Order();
+            order.setCode(UUID.randomUUID().toString());
+            order.addProduct(product, 4);
+            order.setDate(1L);
+            order.setStatus("Waiting for payment");
+            order.getProducts().forEach(entityManager::persist);
+            entityManager.persist(order);
+        });
+
+        StockLedger restartedStockLedger = this.createStockLedger(product);
+        restartedStockLedger.start();
+        restartedStockLedger.shutdown();
+
+        assertEquals(6, this.readStock(product));
+    }
+
+    @Test
+    void updateProductMethod_keepsTheUnitsReservedSinceTheProductWasReadTest() {
+        Product product = this.createProduct(10);
+
+        // the admin reads the product, a checkout reserves some of it and then the admin adds 5 units
+        Product adminProduct = productService.readProductByCodeForUpdate(product.getCode());
+        assertTrue(productService.reserveStock(Map.of(product, 3)));
+        adminProduct.setName("Restocked Flash Sale Product");
+        assertTrue(productService.updateProduct(adminProduct, 15 - adminProduct.getStock()));
+
+        assertEquals(12, this.readStock(product));
+    }
+
+    @Test
+    void stockLedger_addsTheAdminStockChangeToTheReservedStockTest() {
+        Product product = this.createProduct(10);
+        StockLedger stockLedger = this.createStockLedger(product);
+        stockLedger.start();
+
+        assertTrue(stockLedger.reserveStock(Map.of(product, 3)));
+        stockLedger.changeStock(product, 5);
+        stockLedger.changeStock(product, -20);
+        assertFalse(stockLedger.reserveStock(Map.of(product, 1)));
+        stockLedger.changeStock(product, 2);
+        stockLedger.shutdown();
+
+        assertEquals(2, this.readStock(product));
+    }
+
+    @Test
+    void stockLedger_dropsTheCachedProductWhenItsStockIsWrittenTest() {
+        Product product = this.createProduct(10);
+        StockLedger stockLedger = this.createStockLedger(product);
+        stockLedger.start();
+        productCache.put(product.getCode(), product);
+
+        assertTrue(stockLedger.reserveStock(Map.of(product, 3)));
+        stockLedger.writeChanges();
+        stockLedger.shutdown();
+
+        assertNull(productCache.get(product.getCode()));
+        assertEquals(7, productService.readProductByCode(product.getCode()).getStock());
+    }
+
+    /**
+     * Runs the checkouts of the same products at the same time.
+     *
+     * @param checkout a checkout, true if it got its products and false if it was refused for lack of stock
+     * @return how many checkouts got their products, were refused for lack of stock or failed
+     */
+    private Checkouts checkout(Callable<Boolean> checkout) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Checkouts checkouts = new Checkouts();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < CHECKOUTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return checkout.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get()) {
+                        checkouts.reserved++;
+                    } else {
+                        checkouts.refused++;
+                    }
+                } catch (ExecutionException e) {
+                    checkouts.failed++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return checkouts;
+    }
+
+    private static class Checkouts {
+        private int reserved;
+        private int refused;
+        private int failed;
+    }
+
+    // the stock ledger of the tests writes its changes when it's told to
+    private StockLedger createStockLedger(Product product) {
+        return new StockLedger(stockLedgerDAO, productDAO, productCache, new String[]{product.getCode()}, 4, 3600000);
+    }
+
+    private Product createProduct(int stock) {
+        return transactionTemplate.execute(status -> {
+            Product product = new Product();
+            product.setCode(UUID.randomUUID().toString());
+            product.setName("Flash Sale Product");
+            product.setPrice(9.99);
+            product.setStock(stock);
+            product.setAdditionDate(System.currentTimeMillis());
+            product.setEnabled(true);
+            entityManager.persist(product);
+            return product;
+        });
+    }
+
+    private Authentication createClient() {
+        Client client = transactionTemplate.execute(status -> {
+            Address address = new Address();
+            address.setFirstName("Flash");
+            address.setLastName("Buyer");
+            address.setStreet("Rua do Texto");
+            address.setNumber(1);
+            address.setPostalCode("1234-567");
+            address.setLocality("Livroterra");
+            address.setCountry("Portugal");
+            address.setTaxNumber("123456789");
+            address.setPhoneNumber("987654321");
+            entityManager.persist(address);
+            Client buyer = new Client();
+            buyer.setFirstName("Flash");
+            buyer.setLastName("Buyer");
+            buyer.setEmail(UUID.randomUUID() + "@email.com");
+            buyer.setPassword("*****");
+            buyer.setRole("CLIENT");
+            buyer.setEnabled(true);
+            buyer.setChargeAddress(address);
+            buyer.setDeliverAddress(address);
+            entityManager.persist(buyer);
+            return buyer;
+        });
+        return new UsernamePasswordAuthenticationToken(client.getEmail(), null);
+    }
+
+    private int readStock(Product product) {
+        return transactionTemplate.execute(status -> entityManager.find(Product.class, product.getId()).getStock());
+    }
+
+}
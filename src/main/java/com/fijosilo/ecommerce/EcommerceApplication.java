@@ -46,7 +46,7 @@ class InitApplication {
 	@PostConstruct
 	void postConstruct(){
 		// create an admin client the first time the app runs
-		Client admin = clientService.readClientByEmail("admin@email.com");
+		Client admin = clientService.readClientByEmail(adminEmail);
 		if (admin == null) {
 			//String password = UUID.randomUUID().toString();
 
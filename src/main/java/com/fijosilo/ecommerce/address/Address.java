@@ -1,6 +1,8 @@
 package com.fijosilo.ecommerce.address;
 
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -11,8 +13,9 @@ import javax.persistence.Table;
 @Table(name="address")
 public class Address {
     @Id
-    @GenericGenerator(name = "increment", strategy = "increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "address_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     private String firstName;
     private String lastName;
@@ -47,7 +47,7 @@ public class AddressController {
         if (authentication == null) {
             return new ResponseEntity<>(payload, HttpStatus.UNAUTHORIZED);
         }
-        Client client = clientService.readClientByEmail(authentication.getName());
+        Client client = clientService.readClientByEmailForUpdate(authentication.getName());
 
         // validate address purpose
         if (!params.containsKey("address_purpose")) {
@@ -266,7 +266,7 @@ public class AddressController {
         if (authentication == null) {
             return new ResponseEntity<>(payload, HttpStatus.UNAUTHORIZED);
         }
-        Client client = clientService.readClientByEmail(authentication.getName());
+        Client client = clientService.readClientByEmailForUpdate(authentication.getName());
 
         // validate address purpose
         if (!params.containsKey("address_purpose")) {
@@ -463,6 +463,8 @@ public class AddressController {
         if (taxNumber != null) address.setTaxNumber(taxNumber);
         if (phoneNumber != null) address.setPhoneNumber(phoneNumber);
         addressService.updateAddress(address);
+        // the cached client holds a copy of its addresses
+        clientService.invalidateClient(client);
 
         // return response
         return new ResponseEntity<>(payload, HttpStatus.OK);
@@ -477,7 +479,7 @@ public class AddressController {
         if (authentication == null) {
             return new ResponseEntity<>(payload, HttpStatus.UNAUTHORIZED);
         }
-        Client client = clientService.readClientByEmail(authentication.getName());
+        Client client = clientService.readClientByEmailForUpdate(authentication.getName());
 
         // validate address purpose
         if (!params.containsKey("address_purpose")) {
@@ -517,6 +519,8 @@ public class AddressController {
             default:
                 break;
         }
+        // the client can be a cached copy, so it has to be saved before the address it referenced is deleted
+        clientService.updateClient(client);
         addressService.deleteAddress(address);
 
         // return response
@@ -1,5 +1,6 @@
 package com.fijosilo.ecommerce.address;
 
+import com.fijosilo.ecommerce.persistence.JPAEntityRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -11,10 +12,7 @@ import java.util.List;
 
 @Repository("JPAAddressRepository")
 @Transactional
-public class JPAAddressRepository implements AddressDAO {
-    @PersistenceContext
-    private EntityManager entityManager;
-
+public class JPAAddressRepository extends JPAEntityRepository implements AddressDAO {
     private static final Logger log = LoggerFactory.getLogger(JPAAddressRepository.class);
 
     @Override
@@ -31,14 +29,8 @@ public class JPAAddressRepository implements AddressDAO {
 
     @Override
     public boolean createAddress(Address address) {
-        // if the product is already in the database don't do anything
-        Address dbAddress = this.readAddressById(address.getId());
-        if (dbAddress != null) {
-            return true;
-        }
-        // else save the product to the database
         try {
-            entityManager.persist(address);
+            this.save(address);
             return true;
         } catch (IllegalArgumentException | PersistenceException e) {
             log.warn(e.getMessage());
@@ -58,7 +50,8 @@ public class JPAAddressRepository implements AddressDAO {
     public boolean deleteAddress(Address address) {
         if (address == null) return false;
         try {
-            entityManager.remove(address);
+            // detached addresses (like the ones of cached clients) have to be merged before they can be removed
+            entityManager.remove(entityManager.contains(address) ? address : entityManager.merge(address));
             return true;
         } catch (IllegalArgumentException | TransactionRequiredException e) {
             log.warn(e.getMessage());
@@ -110,6 +110,11 @@ public class AuthenticationController {
 
         // save the user to the database
         if (!clientService.createClient(client)) {
+            // the unique email constraint rejects an email that is already registered, so it isn't checked before
+            if (clientService.readClientByEmail(email) != null) {
+                payload.put("error", "Field email can't be the email of an already registered client.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
             payload.put("error", "Database couldn't register the user.");
             return new ResponseEntity<>(payload, HttpStatus.INTERNAL_SERVER_ERROR);
         }
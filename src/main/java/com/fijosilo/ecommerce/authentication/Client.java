@@ -2,7 +2,9 @@ package com.fijosilo.ecommerce.authentication;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fijosilo.ecommerce.address.Address;
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -10,8 +12,9 @@ import javax.persistence.*;
 @Table(name="client", uniqueConstraints=@UniqueConstraint(columnNames={"email"}))
 public class Client {
     @Id
-    @GenericGenerator(name = "increment", strategy = "increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "client_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     private String firstName;
     private String lastName;
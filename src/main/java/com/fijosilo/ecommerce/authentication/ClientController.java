@@ -40,7 +40,7 @@ public class ClientController {
         if (authentication == null) {
             return new ResponseEntity<>(payload, HttpStatus.UNAUTHORIZED);
         }
-        Client client = clientService.readClientByEmail(authentication.getName());
+        Client client = clientService.readClientByEmailForUpdate(authentication.getName());
 
         // optional validate firstName
         String firstName = null;
@@ -1,14 +1,18 @@
 package com.fijosilo.ecommerce.authentication;
 
+import com.fijosilo.ecommerce.cache.BoundedCache;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ClientService {
     private final ClientDAO clientDAO;
+    private final BoundedCache<String, Client> clientCache;
 
-    public ClientService(@Qualifier("JPAClientRepository") ClientDAO clientDAO) {
+    public ClientService(@Qualifier("JPAClientRepository") ClientDAO clientDAO,
+                         BoundedCache<String, Client> clientCache) {
         this.clientDAO = clientDAO;
+        this.clientCache = clientCache;
     }
 
     public boolean createClient(Client client) {
@@ -16,14 +20,36 @@ public class ClientService {
     }
 
     public Client readClientByEmail(String email) {
+        // every authenticated request reads its client, so they are cached by email
+        return clientCache.get(email, clientDAO::readClientByEmail);
+    }
+
+    /**
+     * Reads the client to change it, bypassing the cache, so the cached client isn't changed before the change is saved.
+     */
+    public Client readClientByEmailForUpdate(String email) {
         return clientDAO.readClientByEmail(email);
     }
 
     public boolean updateClient(Client client) {
-        return clientDAO.updateClient(client);
+        boolean isUpdated = clientDAO.updateClient(client);
+        clientCache.invalidate(client.getEmail());
+        return isUpdated;
     }
 
     public boolean deleteClient(Client client) {
-        return clientDAO.deleteClient(client);
+        boolean isDeleted = clientDAO.deleteClient(client);
+        clientCache.invalidate(client.getEmail());
+        return isDeleted;
+    }
+
+    /**
+     * Removes the client from the cache, so it's read again from the database.
+     * Used when something the client holds, like its addresses, is changed without updating the client.
+     *
+     * @param client the client that changed
+     */
+    public void invalidateClient(Client client) {
+        clientCache.invalidate(client.getEmail());
     }
 }
@@ -1,5 +1,6 @@
 package com.fijosilo.ecommerce.authentication;
 
+import com.fijosilo.ecommerce.persistence.JPAEntityRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -13,22 +14,13 @@ import java.util.List;
 
 @Repository("JPAClientRepository")
 @Transactional
-public class JPAClientRepository implements ClientDAO {
-    @PersistenceContext
-    private EntityManager entityManager;
-
+public class JPAClientRepository extends JPAEntityRepository implements ClientDAO {
     private static final Logger log = LoggerFactory.getLogger(JPAClientRepository.class);
 
     @Override
     public boolean createClient(Client client) {
-        // if the user is already in the database don't do anything
-        Client dbClient = this.readClientByEmail(client.getEmail());
-        if (dbClient != null) {
-            return true;
-        }
-        // else save the user to the database
         try {
-            entityManager.persist(client);
+            this.save(client);
             return true;
         } catch (IllegalArgumentException | PersistenceException e) {
             log.warn(e.getMessage());
@@ -0,0 +1,155 @@
+package com.fijosilo.ecommerce.cache;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-memory cache with a maximum number of entries and a time to live.
+ * When the cache is full the least recently used entry is evicted, and entries older than the time to live
+ * are evicted when they are read. It keeps hit, miss and eviction counters so the cache can be sized.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class BoundedCache<K, V> {
+    private final int maxSize;
+    private final long timeToLiveMillis;
+
+    // entries in access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<K, Entry<V>> entries;
+    // incremented by every invalidation, so a value loaded before an invalidation isn't cached after it
+    private long generation = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxSize, long timeToLiveMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache max size must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Reads the value of the key from the cache or loads it and caches it when it's missing.
+     * Null values aren't cached, so a missing value is loaded again by the next read.
+     * The loader is called without holding the lock, so concurrent misses of the same key may load it more than once.
+     *
+     * @param key the key to read
+     * @param loader function that loads the value of the key
+     * @return the value of the key or null if the loader didn't find it
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (entries) {
+            V value = this.get(key);
+            if (value != null) {
+                return value;
+            }
+            loadGeneration = generation;
+        }
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (entries) {
+                if (loadGeneration == generation) {
+                    this.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @param key the key to read
+     * @return the cached value of the key or null if it isn't cached or it expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.currentTimeMillis() + timeToLiveMillis));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the size, limits and counters of the cache
+     */
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("size", this.size());
+        statistics.put("max_size", maxSize);
+        statistics.put("time_to_live", timeToLiveMillis);
+        statistics.put("hits", hitCount);
+        statistics.put("misses", missCount);
+        statistics.put("evictions", evictions.sum());
+        statistics.put("hit_ratio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return statistics;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expirationTime;
+
+        private Entry(V value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expirationTime;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.fijosilo.ecommerce.cache;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Controller
+public class CacheController {
+    private final Map<String, BoundedCache<?, ?>> caches;
+
+    public CacheController(Map<String, BoundedCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    @GetMapping(value = "/admin/caches", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HashMap<String, Object>> adminReadCaches() {
+        HashMap<String, Object> payload = new HashMap<>();
+
+        // statistics of every cache by name
+        TreeMap<String, Object> statistics = new TreeMap<>();
+        caches.forEach((name, cache) -> statistics.put(name, cache.getStatistics()));
+
+        payload.put("caches", statistics);
+        return new ResponseEntity<>(payload, HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.fijosilo.ecommerce.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET handler whose response only depends on the request parameters and on the catalog,
+ * so the {@link ResponseCacheFilter} can keep its serialized response for the anonymous clients
+ * until the {@link CatalogVersion} changes.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheableResponse {
+}
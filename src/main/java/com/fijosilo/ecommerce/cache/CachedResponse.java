@@ -0,0 +1,29 @@
+package com.fijosilo.ecommerce.cache;
+
+/**
+ * A serialized response body with its content type and entity tag.
+ */
+public class CachedResponse {
+    private final byte[] body;
+    private final String contentType;
+    private final String eTag;
+
+    public CachedResponse(byte[] body, String contentType) {
+        this.body = body;
+        this.contentType = contentType;
+        this.eTag = ETags.of(body);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.fijosilo.ecommerce.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the public catalog, the products, categories and pages shown to every client.
+ * Every write to the catalog bumps it after it's saved, and the cached responses are keyed by it,
+ * so a response cached before a write is never read after it.
+ */
+@Component
+public class CatalogVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    public long get() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.fijosilo.ecommerce.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+
+import java.util.StringJoiner;
+
+/**
+ * Creates the entity tags of the responses and checks them against the If-None-Match header of the requests.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @param body the response body
+     * @return a strong entity tag made from the hash of the body
+     */
+    public static String of(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    /**
+     * Creates the entity tag of a response from the versions of the entities it's made of, so the tag of a response
+     * is known before the response is read or serialized.
+     * The tag is weak, the same versions make an equivalent response but not always the same bytes.
+     *
+     * @param name the name of the response, so the responses made of the same versions have different tags
+     * @param versions the ids and the versions of the entities, null for missing versions
+     * @return a weak entity tag made from the versions
+     */
+    public static String ofVersions(String name, Object... versions) {
+        StringJoiner eTag = new StringJoiner("-", "W/\"", "\"");
+        eTag.add(name);
+        for (Object version : versions) {
+            eTag.add(String.valueOf(version));
+        }
+        return eTag.toString();
+    }
+
+    /**
+     * @param eTag the entity tag of the response
+     * @return the headers that send the entity tag and ask the clients to revalidate the response before using it
+     */
+    public static HttpHeaders headers(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        // replaces the no-store of the security headers, so the clients keep the response and can revalidate it
+        headers.setCacheControl("no-cache");
+        return headers;
+    }
+
+    /**
+     * Checks if the client already has the response with the entity tag.
+     * Weak tags match their strong tag, because a response with the same tag has the same content.
+     *
+     * @param ifNoneMatch the If-None-Match header of the request, can be null
+     * @param eTag the entity tag of the response
+     * @return true if the response doesn't need to be sent again
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String strongETag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(strongETag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
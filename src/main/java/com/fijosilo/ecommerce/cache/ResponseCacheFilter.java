@@ -0,0 +1,132 @@
+package com.fijosilo.ecommerce.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serves the responses of the {@link CacheableResponse} handlers to the anonymous clients from a cache of their
+ * serialized bodies, keyed by the catalog version, the path and the sorted request parameters,
+ * so a cached response skips the handler, its queries and the JSON serialization.
+ * Every response it serves has an entity tag and asks the clients to revalidate it,
+ * and a client that sends the tag of the response it has gets a 304 without a body.
+ * It runs after the security filters, so the client is known.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private final BoundedCache<String, CachedResponse> responseCache;
+    private final CatalogVersion catalogVersion;
+    private final HandlerMapping handlerMapping;
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    public ResponseCacheFilter(BoundedCache<String, CachedResponse> responseCache, CatalogVersion catalogVersion,
+                               @Qualifier("requestMappingHandlerMapping") HandlerMapping handlerMapping) {
+        this.responseCache = responseCache;
+        this.catalogVersion = catalogVersion;
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!this.isAnonymous() || !this.isCacheable(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // the version is read before the handler, so a response made during a catalog write is keyed by the old version
+        String key = this.key(request);
+        CachedResponse cachedResponse = responseCache.get(key);
+        if (cachedResponse != null) {
+            this.writeResponse(request, response, cachedResponse);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, responseWrapper);
+        // only the successful responses are cached, the errors are sent as they are
+        if (responseWrapper.getStatus() != HttpServletResponse.SC_OK) {
+            responseWrapper.copyBodyToResponse();
+            return;
+        }
+        cachedResponse = new CachedResponse(responseWrapper.getContentAsByteArray(), responseWrapper.getContentType());
+        responseCache.put(key, cachedResponse);
+        responseWrapper.resetBuffer();
+        this.writeResponse(request, responseWrapper, cachedResponse);
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void writeResponse(HttpServletRequest request, HttpServletResponse response, CachedResponse cachedResponse)
+            throws IOException {
+        response.setHeader(HttpHeaders.ETAG, cachedResponse.getETag());
+        // the clients and the proxies may keep the response but must check that it didn't change before using it
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (ETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cachedResponse.getETag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cachedResponse.getContentType());
+        response.setContentLength(cachedResponse.getBody().length);
+        response.getOutputStream().write(cachedResponse.getBody());
+    }
+
+    private boolean isAnonymous() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated();
+    }
+
+    private boolean isCacheable(HttpServletRequest request) {
+        try {
+            HandlerExecutionChain handler = handlerMapping.getHandler(request);
+            return handler != null && handler.getHandler() instanceof HandlerMethod
+                    && ((HandlerMethod) handler.getHandler()).hasMethodAnnotation(CacheableResponse.class);
+        } catch (Exception e) {
+            // the dispatcher finds the same error and answers it, so the request just isn't cached
+            log.debug(String.format("Couldn't find the handler of %s: %s", request.getRequestURI(), e.getMessage()));
+            return false;
+        }
+    }
+
+    // the same parameters in any order make the same key
+    private String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder();
+        key.append(catalogVersion.get()).append(' ').append(request.getRequestURI()).append('?');
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8)).append('=')
+                        .append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&');
+            }
+        }
+        return key.toString();
+    }
+
+}
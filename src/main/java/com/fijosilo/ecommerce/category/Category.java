@@ -1,8 +1,10 @@
 package com.fijosilo.ecommerce.category;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
 import com.fijosilo.ecommerce.product.Product;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.HashSet;
@@ -12,8 +14,9 @@ import java.util.Set;
 @Table(name = "category", uniqueConstraints = @UniqueConstraint(columnNames = {"name"}))
 public class Category {
     @Id
-    @GenericGenerator(name="increment", strategy="increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "category_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     private String name;
     @JsonIgnore
@@ -22,6 +25,8 @@ public class Category {
     @ManyToOne
     private Category parent;
     private Boolean isEnabled;
+    // version of the category, changed by every write
+    private Long lastModified;
 
     public Category() {}
 
@@ -65,4 +70,20 @@ public class Category {
         isEnabled = enabled;
     }
 
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    // called by JPA before every insert and update, a write in the same millisecond still moves it forward
+    @PrePersist
+    @PreUpdate
+    public void updateLastModified() {
+        long now = System.currentTimeMillis();
+        lastModified = lastModified == null ? now : Math.max(now, lastModified + 1);
+    }
+
 }
@@ -1,5 +1,7 @@
 package com.fijosilo.ecommerce.category;
 
+import com.fijosilo.ecommerce.cache.ETags;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,7 +21,8 @@ public class CategoryController {
     }
 
     @GetMapping(value = "/category", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HashMap<String, Object>> readCategory(@RequestParam HashMap<String, String> params) {
+    public ResponseEntity<HashMap<String, Object>> readCategory(@RequestParam HashMap<String, String> params,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         HashMap<String, Object> payload = new HashMap<>();
 
         // validate name
@@ -38,22 +41,43 @@ public class CategoryController {
             payload.put("error", "Field category_name must be a valid category name.");
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
+        // the category is sent with its parents, so their versions are part of its tag
+        Long lastModified = null;
+        for (Category c = category; c != null; c = c.getParent()) {
+            lastModified = this.latest(lastModified, c.getLastModified());
+        }
+        String eTag = ETags.ofVersions("category", category.getId(), lastModified);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return new ResponseEntity<>(ETags.headers(eTag), HttpStatus.NOT_MODIFIED);
+        }
 
         // all validations test passed
 
         payload.put("category", category);
-        return new ResponseEntity<>(payload, HttpStatus.OK);
+        return new ResponseEntity<>(payload, ETags.headers(eTag), HttpStatus.OK);
     }
 
     @GetMapping(value = "/categories", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HashMap<String, Object>> readCategories() {
+    public ResponseEntity<HashMap<String, Object>> readCategories(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         HashMap<String, Object> payload = new HashMap<>();
 
         // read categories
         Set<Category> categories = categoryService.readCategories();
 
+        // a category that leaves the list changes the number of categories and a changed one the newest change
+        Long lastModified = null;
+        if (categories != null) {
+            for (Category category : categories) {
+                lastModified = this.latest(lastModified, category.getLastModified());
+            }
+        }
+        String eTag = ETags.ofVersions("categories", categories == null ? 0 : categories.size(), lastModified);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return new ResponseEntity<>(ETags.headers(eTag), HttpStatus.NOT_MODIFIED);
+        }
+
         payload.put("categories", categories);
-        return new ResponseEntity<>(payload, HttpStatus.OK);
+        return new ResponseEntity<>(payload, ETags.headers(eTag), HttpStatus.OK);
     }
 
     @PostMapping(value = "/category", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -163,6 +187,11 @@ public class CategoryController {
                     payload.put("error", "Field category_parent_name must be a valid category name.");
                     return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
                 }
+                // a category can't be moved below itself, that would make a loop out of the category tree
+                if (categoryService.isSubcategory(parent.getName(), category.getName())) {
+                    payload.put("error", "Field category_parent_name can't be the category or one of its subcategories.");
+                    return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+                }
             }
         }
 
@@ -219,4 +248,11 @@ public class CategoryController {
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
+    private Long latest(Long lastModified, Long otherLastModified) {
+        if (lastModified == null || (otherLastModified != null && otherLastModified > lastModified)) {
+            return otherLastModified;
+        }
+        return lastModified;
+    }
+
 }
@@ -1,11 +1,10 @@
 package com.fijosilo.ecommerce.category;
 
+import com.fijosilo.ecommerce.persistence.JPAEntityRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
@@ -16,22 +15,13 @@ import java.util.Set;
 
 @Repository("JPACategoryRepository")
 @Transactional
-public class CategoryRepository implements CategoryDAO {
-    @PersistenceContext
-    private EntityManager entityManager;
-
+public class CategoryRepository extends JPAEntityRepository implements CategoryDAO {
     private final Logger log = LoggerFactory.getLogger(CategoryRepository.class);
 
     @Override
     public boolean createCategory(Category category) {
-        // if the category is already in the database don't do anything
-        Category dbCategory = this.readCategoryByName(category.getName());
-        if (dbCategory != null) {
-            return true;
-        }
-        // else save the category to the database
         try {
-            entityManager.persist(category);
+            this.save(category);
             return true;
         } catch (IllegalArgumentException | PersistenceException e) {
             log.warn(e.getMessage());
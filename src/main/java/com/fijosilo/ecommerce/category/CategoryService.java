@@ -1,20 +1,34 @@
 package com.fijosilo.ecommerce.category;
 
+import com.fijosilo.ecommerce.cache.CatalogVersion;
+import com.fijosilo.ecommerce.product.ProductService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Service
 public class CategoryService {
     private final CategoryDAO categoryDAO;
+    private final CatalogVersion catalogVersion;
+    private final ProductService productService;
+    // rebuilt after every category write, readers always see a whole tree
+    private volatile CategoryTree categoryTree;
 
-    public CategoryService(@Qualifier("JPACategoryRepository") CategoryDAO categoryDAO) {
+    public CategoryService(@Qualifier("JPACategoryRepository") CategoryDAO categoryDAO, CatalogVersion catalogVersion,
+                           ProductService productService) {
         this.categoryDAO = categoryDAO;
+        this.catalogVersion = catalogVersion;
+        this.productService = productService;
     }
 
     public boolean createCategory(Category category) {
-        return categoryDAO.createCategory(category);
+        boolean isCreated = categoryDAO.createCategory(category);
+        this.rebuildCategoryTree();
+        catalogVersion.bump();
+        return isCreated;
     }
 
     public Category readCategoryByName(String name) {
@@ -22,15 +36,55 @@ public class CategoryService {
     }
 
     public Set<Category> readCategories() {
-        return categoryDAO.readCategories();
+        List<Category> categories = this.readCategoryTree().getCategories();
+        return categories.isEmpty() ? null : new HashSet<>(categories);
+    }
+
+    /**
+     * Reads the name of the category and the names of all of its subcategories, at any depth, from the category tree.
+     *
+     * @param name the category name
+     * @return the names of the category and of its subcategories
+     */
+    public Set<String> readCategoryNamesWithSubcategories(String name) {
+        return this.readCategoryTree().readNamesWithSubcategories(List.of(name));
+    }
+
+    /**
+     * Checks if a category is a subcategory of another, at any depth, or the same category.
+     */
+    public boolean isSubcategory(String name, String ancestorName) {
+        return this.readCategoryTree().isSubcategory(name, ancestorName);
     }
 
     public boolean updateCategory(Category category) {
-        return categoryDAO.updateCategory(category);
+        boolean isUpdated = categoryDAO.updateCategory(category);
+        this.rebuildCategoryTree();
+        // the products are indexed by the names of their categories, so a renamed category is indexed again
+        if (isUpdated) {
+            productService.reindexProductsByCategory(category);
+        }
+        catalogVersion.bump();
+        return isUpdated;
     }
 
     public boolean deleteCategory(Category category) {
-        return categoryDAO.deleteCategory(category);
+        boolean isDeleted = categoryDAO.deleteCategory(category);
+        this.rebuildCategoryTree();
+        catalogVersion.bump();
+        return isDeleted;
+    }
+
+    private CategoryTree readCategoryTree() {
+        CategoryTree tree = categoryTree;
+        return tree == null ? this.rebuildCategoryTree() : tree;
+    }
+
+    // rebuilds run one at a time, so an older tree never replaces a newer one
+    private synchronized CategoryTree rebuildCategoryTree() {
+        Set<Category> categories = categoryDAO.readCategories();
+        categoryTree = new CategoryTree(categories == null ? Set.of() : categories);
+        return categoryTree;
     }
 
 }
@@ -0,0 +1,136 @@
+package com.fijosilo.ecommerce.category;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of the category tree.
+ * The categories are laid out in depth first order, so the subcategories of a category, at any depth,
+ * are the categories right after it up to the end of its subtree, and a category is below another one
+ * when its position falls inside the subtree of the other one.
+ * The snapshot keeps copies of the categories, so changes to the category entities never show up in it half made.
+ */
+public class CategoryTree {
+    // categories in depth first order
+    private final Category[] categories;
+    // position after the last category of the subtree of each category
+    private final int[] subtreeEnds;
+    // category name to position
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    public CategoryTree(Collection<Category> categories) {
+        Map<Long, Category> copies = new HashMap<>();
+        for (Category category : categories) {
+            Category copy = new Category();
+            copy.setId(category.getId());
+            copy.setName(category.getName());
+            copy.setEnabled(category.getEnabled());
+            copy.setLastModified(category.getLastModified());
+            copies.put(category.getId(), copy);
+        }
+        Map<Long, List<Category>> children = new HashMap<>();
+        List<Category> roots = new ArrayList<>();
+        for (Category category : categories) {
+            Category copy = copies.get(category.getId());
+            Category parent = category.getParent() == null ? null : copies.get(category.getParent().getId());
+            copy.setParent(parent);
+            if (parent == null) {
+                roots.add(copy);
+            } else {
+                children.computeIfAbsent(parent.getId(), k -> new ArrayList<>()).add(copy);
+            }
+        }
+
+        this.categories = new Category[copies.size()];
+        this.subtreeEnds = new int[copies.size()];
+        int position = 0;
+        for (Category root : roots) {
+            position = this.layOut(root, position, children);
+        }
+        // categories whose parents loop back to them are never reached from a root, so they become roots themselves
+        for (Category copy : copies.values()) {
+            if (!positions.containsKey(copy.getName())) {
+                copy.setParent(null);
+                position = this.layOut(copy, position, children);
+            }
+        }
+    }
+
+    /**
+     * Reads every category, with its parent.
+     */
+    public List<Category> getCategories() {
+        return Collections.unmodifiableList(Arrays.asList(categories));
+    }
+
+    public Category readCategoryByName(String name) {
+        Integer position = positions.get(name);
+        return position == null ? null : categories[position];
+    }
+
+    /**
+     * Reads the names of the categories and all of their subcategories, at any depth.
+     * Names that aren't categories are kept as they are.
+     *
+     * @param names the category names
+     * @return the names of the categories and of their subcategories
+     */
+    public Set<String> readNamesWithSubcategories(Collection<String> names) {
+        Set<String> expanded = new LinkedHashSet<>();
+        for (String name : names) {
+            Integer position = positions.get(name);
+            if (position == null) {
+                expanded.add(name);
+                continue;
+            }
+            for (int i = position; i < subtreeEnds[position]; i++) {
+                expanded.add(categories[i].getName());
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Checks if a category is a subcategory of another, at any depth, or the same category.
+     */
+    public boolean isSubcategory(String name, String ancestorName) {
+        Integer position = positions.get(name);
+        Integer ancestorPosition = positions.get(ancestorName);
+        if (position == null || ancestorPosition == null) {
+            return false;
+        }
+        return position >= ancestorPosition && position < subtreeEnds[ancestorPosition];
+    }
+
+    public int size() {
+        return categories.length;
+    }
+
+    // lays out a category and its subtree from the input position, without recursion so deep trees can't overflow the stack
+    private int layOut(Category root, int position, Map<Long, List<Category>> children) {
+        Deque<Category> path = new ArrayDeque<>();
+        Deque<Iterator<Category>> pending = new ArrayDeque<>();
+        positions.put(root.getName(), position);
+        categories[position++] = root;
+        path.push(root);
+        pending.push(children.getOrDefault(root.getId(), List.of()).iterator());
+        while (!path.isEmpty()) {
+            Iterator<Category> iterator = pending.peek();
+            if (iterator.hasNext()) {
+                Category child = iterator.next();
+                if (positions.containsKey(child.getName())) {
+                    continue;
+                }
+                positions.put(child.getName(), position);
+                categories[position++] = child;
+                path.push(child);
+                pending.push(children.getOrDefault(child.getId(), List.of()).iterator());
+            } else {
+                Category done = path.pop();
+                pending.pop();
+                subtreeEnds[positions.get(done.getName())] = position;
+            }
+        }
+        return position;
+    }
+
+}
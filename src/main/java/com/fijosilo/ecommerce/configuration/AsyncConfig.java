@@ -0,0 +1,19 @@
+package com.fijosilo.ecommerce.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+    // streamed responses (like the order export) can take much longer than the servlet container default timeout
+    @Value("${com.fijosilo.ecommerce.async_request_timeout:3600000}")
+    private long asyncRequestTimeout;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeout);
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.fijosilo.ecommerce.configuration;
+
+import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.cache.BoundedCache;
+import com.fijosilo.ecommerce.cache.CachedResponse;
+import com.fijosilo.ecommerce.product.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public BoundedCache<String, Product> productCache(
+            @Value("${com.fijosilo.ecommerce.product_cache.max_size:1000}") int maxSize,
+            @Value("${com.fijosilo.ecommerce.product_cache.time_to_live:300000}") long timeToLive) {
+        return new BoundedCache<>(maxSize, timeToLive);
+    }
+
+    @Bean
+    public BoundedCache<String, Client> clientCache(
+            @Value("${com.fijosilo.ecommerce.client_cache.max_size:10000}") int maxSize,
+            @Value("${com.fijosilo.ecommerce.client_cache.time_to_live:300000}") long timeToLive) {
+        return new BoundedCache<>(maxSize, timeToLive);
+    }
+
+    @Bean
+    public BoundedCache<String, CachedResponse> responseCache(
+            @Value("${com.fijosilo.ecommerce.response_cache.max_size:1000}") int maxSize,
+            @Value("${com.fijosilo.ecommerce.response_cache.time_to_live:300000}") long timeToLive) {
+        return new BoundedCache<>(maxSize, timeToLive);
+    }
+
+}
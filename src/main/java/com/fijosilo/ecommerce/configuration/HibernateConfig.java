@@ -0,0 +1,27 @@
+package com.fijosilo.ecommerce.configuration;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.loader.BatchFetchStyle;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+@Configuration
+public class HibernateConfig implements HibernatePropertiesCustomizer {
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        // batches of lazy associations are read with a single query of the exact size,
+        // instead of being split into the fixed sizes hibernate uses by default
+        hibernateProperties.putIfAbsent(AvailableSettings.BATCH_FETCH_STYLE, BatchFetchStyle.DYNAMIC.name());
+        // inserts of the same entity are grouped and sent to the database as JDBC batches,
+        // so the lines of an order are written together instead of one round-trip per line
+        hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, JDBC_BATCH_SIZE);
+        hibernateProperties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+        // updates are grouped the same way, so changing several rows of the same entity is also a single batch
+        hibernateProperties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+    }
+
+}
@@ -45,10 +45,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http
                 .csrf().disable()
                 .authorizeRequests()
-                    .antMatchers("/admin").hasRole("ADMIN")
+                    .antMatchers("/admin", "/admin/**").hasRole("ADMIN")
                     .antMatchers(HttpMethod.GET, "/logout").permitAll()
                     .antMatchers(HttpMethod.POST, "/register", "/login").permitAll()
-                    .antMatchers("/product", "/products", "/products/novelties", "/products/promotions").permitAll()
+                    .antMatchers("/product", "/products", "/products/novelties", "/products/promotions", "/products/search", "/products/suggestions").permitAll()
                     .antMatchers(HttpMethod.GET, "/image/**").permitAll()
                     .antMatchers(HttpMethod.GET, "/**").permitAll()
                     .anyRequest().authenticated()
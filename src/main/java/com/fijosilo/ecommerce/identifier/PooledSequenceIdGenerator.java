@@ -0,0 +1,36 @@
+package com.fijosilo.ecommerce.identifier;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Id generator that reserves blocks of ids from a database sequence.
+ * Every call to the sequence reserves the next block of ids for this instance (pooled-lo), so the ids of a block
+ * are handed out without any round-trip and several instances of the app can insert into the same database.
+ * When the database has no sequences the block is reserved from a table instead.
+ *
+ * The size of the blocks is set by the hibernate property com.fijosilo.ecommerce.id_block_size (50 by default),
+ * it must match the increment of the sequences in the database.
+ */
+public class PooledSequenceIdGenerator extends SequenceStyleGenerator {
+    public static final String STRATEGY = "com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator";
+    public static final String BLOCK_SIZE_SETTING = "com.fijosilo.ecommerce.id_block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_BLOCK_SIZE);
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+
+}
@@ -3,6 +3,9 @@ package com.fijosilo.ecommerce.image;
 import com.fijosilo.ecommerce.authentication.JPAClientRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,37 +13,74 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 @RequestMapping(value = "/image")
 public class ImageController {
     private String resourceFolder;
+    private ImageProcessor imageProcessor;
 
     private static final Logger log = LoggerFactory.getLogger(JPAClientRepository.class);
 
-    public ImageController(String resourceFolder) {
+    public ImageController(String resourceFolder, ImageProcessor imageProcessor) {
         this.resourceFolder = resourceFolder;
+        this.imageProcessor = imageProcessor;
     }
 
     @GetMapping(value = "/{fileParameter}")
-    public ResponseEntity<byte[]> readImage(@PathVariable("fileParameter") String fileName) {
+    public ResponseEntity<Resource> readImage(@PathVariable("fileParameter") String fileName,
+                                              @RequestParam HashMap<String, String> params) {
+        // optional validate width, without it the full size is served, which is capped at 1920x1080 like uploads were
+        ImageSize imageSize = ImageSize.FULL;
+        if (params.containsKey("w")) {
+            try {
+                imageSize = ImageSize.forWidth(Integer.parseInt(params.get("w")));
+            } catch (NumberFormatException e) {
+                return ResponseEntity.unprocessableEntity().build();
+            }
+        }
+
         try {
-            File file = new File(resourceFolder + "/image/" + fileName);
-            InputStream inputStream = new FileInputStream(file);
-            byte[] data = inputStream.readAllBytes();
+            Path folder = Paths.get(resourceFolder, "image").toAbsolutePath().normalize();
+            Path file = folder.resolve(fileName).normalize();
+            // don't serve anything outside the image folder
+            if (!file.startsWith(folder) || !Files.isRegularFile(file)) {
+                return ResponseEntity.notFound().build();
+            }
+            // images get a new unique name every time they are uploaded, so they never change
+            CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
+            // images are served in the requested size once it's generated, until then the original is served
+            // but it can't be cached, otherwise clients would keep the original after the size is ready
+            Path sizeFile = file.resolveSibling(imageSize.fileName(file.getFileName().toString()));
+            if (Files.isRegularFile(sizeFile)) {
+                file = sizeFile;
+            } else {
+                cacheControl = CacheControl.noCache();
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            long size = attributes.size();
             MediaType contentType = MediaType.valueOf("image/" + fileName.replaceFirst(".*[.]", ""));
 
+            // the file is only read when the response body is written, so conditional requests that get a
+            // 304 Not Modified never open it, and range requests only read the requested ranges
             return ResponseEntity.ok()
-                    .contentLength(data.length)
+                    .contentLength(size)
                     .contentType(contentType)
-                    .body(data);
-        } catch (NullPointerException | SecurityException | IOException e) {
+                    .eTag(String.format("%x-%x", lastModified, size))
+                    .lastModified(lastModified)
+                    .cacheControl(cacheControl)
+                    .body(new FileSystemResource(file));
+        } catch (InvalidPathException | SecurityException | IOException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -65,8 +105,8 @@ public class ImageController {
             File f = new File(absPath);
             file.transferTo(f);
 
-            // resize the image if needed
-            resizeImageIfExceeds(f, extension, 1920, 1080);
+            // generate the image sizes in the background
+            imageProcessor.generateSizes(f.toPath(), extension);
 
             payload.put("relPath", relPath);
             return new ResponseEntity<>(payload, HttpStatus.CREATED);
@@ -79,49 +119,4 @@ public class ImageController {
 
     }
 
-    /**
-     * Resizes an image, keeping the aspect ratio, if any of its dimensions surpass the input dimensions.
-     *
-     * @param file a File object of the image to be resized
-     * @param extension the image file extension
-     * @param width the input width if the image width is bigger than this it gets resized
-     * @param height the input height if the image height is bigger than this it gets resized
-     * @throws IllegalArgumentException if the input file is invalid
-     * @throws IOException if it could not read or write to the input file
-     */
-    private void resizeImageIfExceeds(File file, String extension, int width, int height) throws IllegalArgumentException, IOException {
-        // load source buffered image from the file
-        BufferedImage source = ImageIO.read(file);
-        // check if it needs to be resized
-        int sourceWidth = source.getWidth();
-        int sourceHeight = source.getHeight();
-        if (sourceWidth > 1920 || sourceHeight > 1080) {
-            // calculate the new size but keep aspect ratio
-            int targetWidth = sourceWidth;
-            int targetHeight = sourceHeight;
-            int excessWidth = sourceWidth - 1920;
-            int excessHeight = sourceHeight - 1080;
-            if (excessWidth > excessHeight) {
-                targetWidth = 1920;
-                targetHeight = sourceHeight * 1920 / sourceWidth;
-            } else {
-                targetHeight = 1080;
-                targetWidth = sourceWidth * 1080 / sourceHeight;
-            }
-            // make sure the new size never gets smaller than one pixel
-            targetWidth = Math.max(targetWidth, 1);
-            targetHeight = Math.max(targetHeight, 1);
-
-            // resize the image
-            BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
-            // draw the source image into the target image
-            Graphics2D g = target.createGraphics();
-            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
-            g.dispose();
-            // save the resized image back to the file
-            ImageIO.write(target, extension, file);
-        }
-    }
-
 }
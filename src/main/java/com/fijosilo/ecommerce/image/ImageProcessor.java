@@ -0,0 +1,136 @@
+package com.fijosilo.ecommerce.image;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the sizes of the uploaded images in the background, so uploads don't wait for the resizing.
+ * The work runs on a fixed number of threads with a bounded queue, when the queue is full the uploading
+ * thread generates the sizes itself, which slows uploads down instead of piling up work.
+ */
+@Component
+public class ImageProcessor {
+    private final ThreadPoolExecutor executor;
+
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessor.class);
+
+    public ImageProcessor(@Value("${com.fijosilo.ecommerce.image_processor.threads:2}") int threads,
+                          @Value("${com.fijosilo.ecommerce.image_processor.queue_size:100}") int queueSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-processor-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Queues the generation of every size of an image.
+     *
+     * @param file the original image
+     * @param extension the image file extension
+     * @return a future that completes when all the sizes were generated
+     */
+    public Future<?> generateSizes(Path file, String extension) {
+        return executor.submit(() -> {
+            try {
+                this.resizeImage(file, extension);
+            } catch (IllegalArgumentException | IOException e) {
+                log.warn(String.format("Couldn't generate the sizes of the image %s: %s", file, e.getMessage()));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Writes every size of an image, from the largest to the smallest, each one scaled from the previous one.
+     * Images are never scaled up, sizes bigger than the image get it unscaled.
+     *
+     * @param file the original image
+     * @param extension the image file extension
+     * @throws IllegalArgumentException if the input file isn't an image in a supported format
+     * @throws IOException if it could not read or write the images
+     */
+    private void resizeImage(Path file, String extension) throws IllegalArgumentException, IOException {
+        // load source buffered image from the file
+        BufferedImage source = ImageIO.read(file.toFile());
+        if (source == null) {
+            throw new IllegalArgumentException("Unsupported image format.");
+        }
+        ImageSize[] sizes = ImageSize.values();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            ImageSize size = sizes[i];
+            source = this.scaleToFit(source, size.getWidth(), size.getHeight());
+            // write to a temporary file first, so a size is never served half written
+            Path target = file.resolveSibling(size.fileName(file.getFileName().toString()));
+            Path temporary = file.resolveSibling(target.getFileName() + ".tmp");
+            try {
+                if (!ImageIO.write(source, extension, temporary.toFile())) {
+                    throw new IllegalArgumentException("Unsupported image format.");
+                }
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /**
+     * Scales an image down, keeping the aspect ratio, if any of its dimensions surpass the input dimensions.
+     *
+     * @param source the image to scale
+     * @param width the maximum width
+     * @param height the maximum height
+     * @return the scaled image or the source image if it already fits
+     */
+    private BufferedImage scaleToFit(BufferedImage source, int width, int height) {
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        if (sourceWidth <= width && sourceHeight <= height) {
+            return source;
+        }
+        // calculate the new size but keep aspect ratio
+        int targetWidth;
+        int targetHeight;
+        if ((long) sourceWidth * height > (long) sourceHeight * width) {
+            targetWidth = width;
+            targetHeight = sourceHeight * width / sourceWidth;
+        } else {
+            targetHeight = height;
+            targetWidth = sourceWidth * height / sourceHeight;
+        }
+        // make sure the new size never gets smaller than one pixel
+        targetWidth = Math.max(targetWidth, 1);
+        targetHeight = Math.max(targetHeight, 1);
+
+        // draw the source image into the target image
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D g = target.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        g.dispose();
+        return target;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.fijosilo.ecommerce.image;
+
+/**
+ * Sizes generated for every uploaded image, from the smallest to the largest.
+ * Each size is stored next to the original as {@code <name>_<width>.<extension>}.
+ */
+public enum ImageSize {
+    THUMBNAIL(160, 160),
+    LISTING(480, 480),
+    DETAIL(960, 960),
+    FULL(1920, 1080);
+
+    private final int width;
+    private final int height;
+
+    ImageSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param width the requested width
+     * @return the smallest size at least as wide as the requested width, or the largest size if none is
+     */
+    public static ImageSize forWidth(int width) {
+        for (ImageSize size : ImageSize.values()) {
+            if (size.width >= width) {
+                return size;
+            }
+        }
+        return FULL;
+    }
+
+    /**
+     * @param fileName the file name of the original image
+     * @return the file name of this size of the image
+     */
+    public String fileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return String.format("%s_%d", fileName, width);
+        }
+        return String.format("%s_%d%s", fileName.substring(0, dot), width, fileName.substring(dot));
+    }
+
+}
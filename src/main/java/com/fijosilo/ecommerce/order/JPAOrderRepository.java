@@ -1,7 +1,14 @@
 package com.fijosilo.ecommerce.order;
 
 import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
+import com.fijosilo.ecommerce.persistence.JPAEntityRepository;
 import com.fijosilo.ecommerce.product.Product;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -13,29 +20,26 @@ import javax.persistence.metamodel.Metamodel;
 import javax.transaction.Transactional;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository("JPAOrderRepository")
 @Transactional
-public class JPAOrderRepository implements OrderDAO{
-    @PersistenceContext
-    private EntityManager entityManager;
-
+public class JPAOrderRepository extends JPAEntityRepository implements OrderDAO {
     private static final Logger log = LoggerFactory.getLogger(JPAOrderRepository.class);
 
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     @Override
     public boolean createOrder(Order order) {
-        // if the product is already in the database don't do anything
-        Order dbOrder = this.readOrderByCode(order.getCode());
-        if (dbOrder != null) {
-            return true;
-        }
-        // else save the product to the database
         try {
             // need to save every OrderProduct from Order
             for (OrderProduct op : order.getProducts()) {
-                entityManager.persist(op);
+                this.stage(op);
             }
-            entityManager.persist(order);
+            this.stage(order);
+            // the inserts are sent here as JDBC batches, the lines together and then the order,
+            // and a rejected insert is reported by this method instead of when the transaction commits
+            this.flush();
             return true;
         } catch (IllegalArgumentException | PersistenceException e) {
             log.warn(e.getMessage());
@@ -43,7 +47,7 @@ public class JPAOrderRepository implements OrderDAO{
             for (OrderProduct op : order.getProducts()) {
                 try {
                     entityManager.remove(op);
-                } catch (IllegalArgumentException | TransactionRequiredException exception) {}
+                } catch (IllegalArgumentException | PersistenceException exception) {}
             }
             return false;
         }
@@ -62,39 +66,183 @@ public class JPAOrderRepository implements OrderDAO{
     }
 
     @Override
-    public List<Order> readOrdersByClient(Client client, Integer maxOrdersPerPage, Integer pageNumber) {
+    public List<OrderSummary> readOrdersByClient(Client client, Integer maxOrdersPerPage, Integer pageNumber) {
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+        CriteriaQuery<OrderSummary> criteriaQuery = criteriaBuilder.createQuery(OrderSummary.class);
 
         Metamodel metamodel = entityManager.getMetamodel();
         EntityType Order_ = metamodel.entity(Order.class);
         Root<Order> order = criteriaQuery.from(Order_);
-        EntityType Client_ = metamodel.entity(Client.class);
-        Join<Order, Client> clientJoin = order.join(Order_.getSingularAttribute("client"));
 
-        TypedQuery<Order> typedQuery = entityManager.createQuery(
-                criteriaQuery.select(order).where(criteriaBuilder.equal(clientJoin.get("id"), client.getId())));
+        TypedQuery<OrderSummary> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(criteriaBuilder.construct(OrderSummary.class,
+                                order.get("id"),
+                                order.get("code"),
+                                order.get("date"),
+                                order.get("subtotal"),
+                                order.get("discountTotal"),
+                                order.get("total"),
+                                order.get("paymentMethod"),
+                                order.get("isPaid"),
+                                order.get("status"),
+                                order.get("isFulfilled")))
+                        .where(criteriaBuilder.equal(order.get("client").get("id"), client.getId()))
+                        .orderBy(criteriaBuilder.asc(order.get("date")), criteriaBuilder.asc(order.get("id")))
+        );
         if (pageNumber != null) {
             typedQuery.setFirstResult((pageNumber - 1) * maxOrdersPerPage);
         }
         if (maxOrdersPerPage != null) {
             typedQuery.setMaxResults(maxOrdersPerPage);
         }
-        List<Order> orderList = typedQuery.getResultList();
+        List<OrderSummary> orderList = typedQuery.getResultList();
         return orderList;
     }
 
+    @Override
+    public Long readOrdersLastModifiedByClient(Client client) {
+        return entityManager.createQuery("SELECT MAX(o.lastModified) FROM Order o WHERE o.client.id = :clientId", Long.class)
+                .setParameter("clientId", client.getId())
+                .getSingleResult();
+    }
+
     @Override
     public List<Order> readOrdersByFilters(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
-                                           Boolean isPaid, Boolean isFulfilled, Integer maxOrdersPerPage, Integer pageNumber) {
+                                           Boolean isPaid, Boolean isFulfilled, Double minTotal, Double maxTotal,
+                                           OrderSort sort, Integer maxOrdersPerPage, Integer pageNumber) {
+        // initialize the query
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+        Metamodel metamodel = entityManager.getMetamodel();
+        EntityType Order_ = metamodel.entity(Order.class);
+        Root<Order> orderRoot = criteriaQuery.from(Order_);
+        // the client is read together with the orders instead of with one query per order
+        orderRoot.fetch("client", JoinType.LEFT);
+
+        // generate the query conditions
+        List<Predicate> predicates = this.filterPredicates(criteriaBuilder, Order_, orderRoot,
+                client, minDate, maxDate, paymentMethod, isPaid, isFulfilled, minTotal, maxTotal);
+
+        // execute query and get the result
+        TypedQuery<Order> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(orderRoot)
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.asc(orderRoot.get(sort.toString())), criteriaBuilder.asc(orderRoot.get("id")))
+        );
+        typedQuery.setFirstResult((pageNumber - 1) * maxOrdersPerPage);
+        typedQuery.setMaxResults(maxOrdersPerPage);
+        List<Order> orders = typedQuery.getResultList();
+        this.fetchOrderProducts(orders);
+        return orders;
+    }
+
+    @Override
+    public List<Order> readOrdersByFiltersAfter(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
+                                                Boolean isPaid, Boolean isFulfilled, Double minTotal, Double maxTotal,
+                                                OrderSort sort, Integer maxOrdersPerPage, KeysetCursor after) {
         // initialize the query
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
         Metamodel metamodel = entityManager.getMetamodel();
         EntityType Order_ = metamodel.entity(Order.class);
         Root<Order> orderRoot = criteriaQuery.from(Order_);
+        // the client is read together with the orders instead of with one query per order
+        orderRoot.fetch("client", JoinType.LEFT);
 
         // generate the query conditions
+        List<Predicate> predicates = this.filterPredicates(criteriaBuilder, Order_, orderRoot,
+                client, minDate, maxDate, paymentMethod, isPaid, isFulfilled, minTotal, maxTotal);
+        // seek past the last order of the previous page
+        if (after != null) {
+            Number key = sort == OrderSort.TOTAL ? after.getDoubleKey() : after.getLongKey();
+            predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.gt(orderRoot.get(sort.toString()), key),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(orderRoot.get(sort.toString()), key),
+                            criteriaBuilder.gt(orderRoot.get("id"), after.getId())
+                    )
+            ));
+        }
+
+        // execute query and get the result
+        TypedQuery<Order> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(orderRoot)
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.asc(orderRoot.get(sort.toString())), criteriaBuilder.asc(orderRoot.get("id")))
+        );
+        typedQuery.setMaxResults(maxOrdersPerPage);
+        List<Order> orders = typedQuery.getResultList();
+        this.fetchOrderProducts(orders);
+        return orders;
+    }
+
+    @Override
+    public void exportOrdersByFilters(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
+                                      Boolean isPaid, Boolean isFulfilled, Consumer<Order> consumer) {
+        // initialize the query
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+        Metamodel metamodel = entityManager.getMetamodel();
+        EntityType Order_ = metamodel.entity(Order.class);
+        Root<Order> orderRoot = criteriaQuery.from(Order_);
+        // the client is read together with the order instead of with one query per client
+        orderRoot.fetch("client", JoinType.LEFT);
+
+        // generate the query conditions
+        List<Predicate> predicates = this.filterPredicates(criteriaBuilder, Order_, orderRoot,
+                client, minDate, maxDate, paymentMethod, isPaid, isFulfilled, null, null);
+
+        // scroll forward through the result, so only a window of rows is ever held by the driver
+        Session session = entityManager.unwrap(Session.class);
+        Query<Order> query = session.createQuery(
+                criteriaQuery
+                        .select(orderRoot)
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.asc(orderRoot.get("date")), criteriaBuilder.asc(orderRoot.get("id")))
+        );
+        query.setFetchSize(EXPORT_FETCH_SIZE);
+        query.setReadOnly(true);
+        query.setCacheMode(CacheMode.IGNORE);
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((Order) results.get(0));
+                // detach the exported orders, so the persistence context doesn't grow with the export
+                if (++count % EXPORT_FETCH_SIZE == 0) {
+                    session.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the products of a page of orders, with their product and brand, in a single query.
+     * The products can't be fetched by the page query itself, because fetching a collection would make the database
+     * return a row per product and the page would have to be cut in memory.
+     * The images and categories of the products are then read in batches when they are first used.
+     *
+     * @param orders the page of orders
+     */
+    private void fetchOrderProducts(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+        Root<Order> orderRoot = criteriaQuery.from(Order.class);
+        orderRoot.fetch("products", JoinType.LEFT)
+                .fetch("product", JoinType.LEFT)
+                .fetch("productBrand", JoinType.LEFT);
+        // the orders are already in the persistence context, so this only fills their product lists
+        entityManager.createQuery(criteriaQuery.select(orderRoot).where(orderRoot.in(orders))).getResultList();
+    }
+
+    private List<Predicate> filterPredicates(CriteriaBuilder criteriaBuilder, EntityType Order_, Root<Order> orderRoot,
+                                             Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
+                                             Boolean isPaid, Boolean isFulfilled, Double minTotal, Double maxTotal) {
         List<Predicate> predicates = new LinkedList<>();
         if (client != null) {
             Join<Order, Client> clientJoin = orderRoot.join(Order_.getSingularAttribute("client"));
@@ -112,18 +260,31 @@ public class JPAOrderRepository implements OrderDAO{
         if (isFulfilled != null) {
             predicates.add(criteriaBuilder.equal(orderRoot.get("isFulfilled"), isFulfilled));
         }
-
-        // execute query and get the result
-        TypedQuery<Order> typedQuery = entityManager.createQuery(
-                criteriaQuery.select(orderRoot).where(predicates.toArray(new Predicate[]{})));
-        typedQuery.setFirstResult((pageNumber - 1) * maxOrdersPerPage);
-        typedQuery.setMaxResults(maxOrdersPerPage);
-        List<Order> orders = typedQuery.getResultList();
-        return orders;
+        if (minTotal != null && maxTotal != null) {
+            predicates.add(criteriaBuilder.between(orderRoot.get("total"), minTotal, maxTotal));
+        }
+        return predicates;
     }
 
     @Override
     public boolean updateOrder(Order order) {
+        try {
+            // the order is only saved if it wasn't changed since it was read, like cancelled or expired,
+            // and the row stays locked until the transaction ends, so it can't be changed before it's saved,
+            // the changes to a managed order aren't flushed first, that would change the version it was read with
+            int updated = entityManager.createQuery("UPDATE Order o SET o.lastModified = o.lastModified "
+                            + "WHERE o.id = :id AND COALESCE(o.lastModified, 0) = :lastModified")
+                    .setParameter("id", order.getId())
+                    .setParameter("lastModified", order.getLastModified() == null ? 0L : order.getLastModified())
+                    .setFlushMode(FlushModeType.COMMIT)
+                    .executeUpdate();
+            if (updated == 0) {
+                return false;
+            }
+        } catch (IllegalArgumentException | PersistenceException e) {
+            log.warn(e.getMessage());
+            return false;
+        }
         // with JPA if the entity was loaded from the database
         // modifying it modifies it in the database, so we don't need to do anything
         // all we can do is make sure the entity is saved to the database
@@ -140,4 +301,53 @@ public class JPAOrderRepository implements OrderDAO{
         return this.createOrder(order);
     }
 
+    @Override
+    public boolean cancelOrder(Order order, String status) {
+        try {
+            // the bulk update skips the entity callbacks, so it sets the last modified date itself,
+            // always after the one it had, because it's the version that guards the order updates
+            long now = System.currentTimeMillis();
+            long lastModified = order.getLastModified() == null ? now : Math.max(now, order.getLastModified() + 1);
+            int updated = entityManager.createNativeQuery("UPDATE client_order SET status = :status, is_fulfilled = true, "
+                            + "last_modified = GREATEST(:now, COALESCE(last_modified, 0) + 1) "
+                            + "WHERE id = :id AND is_paid = false AND is_fulfilled = false")
+                    .setParameter("status", status)
+                    .setParameter("now", now)
+                    .setParameter("id", order.getId())
+                    .executeUpdate();
+            if (updated == 0) {
+                return false;
+            }
+            order.setStatus(status);
+            order.setFulfilled(true);
+            order.setLastModified(lastModified);
+            return true;
+        } catch (IllegalArgumentException | PersistenceException e) {
+            log.warn(e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<Order> readUnpaidOrdersBefore(Long maxDate, Integer maxOrders) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+        Root<Order> orderRoot = criteriaQuery.from(Order.class);
+        TypedQuery<Order> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(orderRoot)
+                        .where(
+                                criteriaBuilder.lessThan(orderRoot.get("date"), maxDate),
+                                criteriaBuilder.isFalse(orderRoot.get("isPaid")),
+                                criteriaBuilder.isFalse(orderRoot.get("isFulfilled"))
+                        )
+                        .orderBy(criteriaBuilder.asc(orderRoot.get("date")), criteriaBuilder.asc(orderRoot.get("id")))
+        );
+        typedQuery.setMaxResults(maxOrders);
+        List<Order> orders = typedQuery.getResultList();
+        // the orders are used outside of the transaction, so their products are read with them
+        this.fetchOrderProducts(orders);
+        return orders;
+    }
+
 }
@@ -1,25 +1,36 @@
 package com.fijosilo.ecommerce.order;
 
 import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
 import com.fijosilo.ecommerce.product.Product;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "client_order")
+@Table(name = "client_order", indexes = @Index(name = "client_order_total", columnList = "total"))
 public class Order {
     @Id
-    @GenericGenerator(name="increment", strategy="increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "client_order_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     private String code;
     @ManyToOne
     private Client client;
+    // one line per product, with the quantity ordered
     @ElementCollection
-    private List<OrderProduct> products = new LinkedList<>();
+    private List<OrderProduct> products = new ArrayList<>();
+    // the totals of the products are kept with the order, so the order lists don't need to load its products
+    private double subtotal;
+    private double discountTotal;
+    private double total;
     private Long date;
     private String chargeAddress;
     private String paymentMethod;
@@ -27,6 +38,8 @@ public class Order {
     private String deliverAddress;
     private String status;
     private boolean isFulfilled;
+    // version of the order, changed by every write including the status changes
+    private Long lastModified;
 
     public Order() {}
 
@@ -59,22 +72,94 @@ public class Order {
     }
 
     public void addProduct(Product product) {
-        OrderProduct orderProduct = new OrderProduct();
-        orderProduct.setProduct(product);
-        orderProduct.setPrice(product.getPrice());
-        orderProduct.setDiscount(product.getDiscount());
-        this.products.add(orderProduct);
+        this.addProduct(product, 1);
+    }
+
+    /**
+     * Adds units of the product to the order, on the line of the product if the order already has it.
+     *
+     * @param product the product to add
+     * @param quantity the number of units to add, bigger than zero
+     */
+    public void addProduct(Product product, int quantity) {
+        OrderProduct orderProduct = this.readLine(product);
+        if (orderProduct == null) {
+            orderProduct = new OrderProduct();
+            orderProduct.setProduct(product);
+            orderProduct.setPrice(product.getPrice());
+            orderProduct.setDiscount(product.getDiscount());
+            this.products.add(orderProduct);
+        }
+        orderProduct.setQuantity(orderProduct.getQuantity() + quantity);
+        this.addToTotals(orderProduct, quantity);
     }
 
     public void remProduct(Product product) {
-        for (OrderProduct op : products) {
-            if (op.getProduct() == product) {
-                products.remove(op);
+        this.remProduct(product, 1);
+    }
+
+    /**
+     * Removes units of the product from the order, and its line when no units are left.
+     *
+     * @param product the product to remove
+     * @param quantity the number of units to remove, bigger than zero
+     */
+    public void remProduct(Product product, int quantity) {
+        Iterator<OrderProduct> iterator = products.iterator();
+        while (iterator.hasNext()) {
+            OrderProduct op = iterator.next();
+            if (this.isLineOf(op, product)) {
+                int removed = Math.min(quantity, op.getQuantity());
+                op.setQuantity(op.getQuantity() - removed);
+                if (op.getQuantity() == 0) {
+                    iterator.remove();
+                }
+                this.addToTotals(op, -removed);
                 return;
             }
         }
     }
 
+    /**
+     * Reads the number of units of each product of the order, as reserved from the product stock.
+     *
+     * @return the quantities by product
+     */
+    public Map<Product, Integer> readProductQuantities() {
+        Map<Product, Integer> quantities = new LinkedHashMap<>();
+        for (OrderProduct op : products) {
+            if (op.getProduct() != null) {
+                quantities.put(op.getProduct(), op.getQuantity());
+            }
+        }
+        return quantities;
+    }
+
+    // orders have a line per distinct product, so the lines are few even for large orders
+    private OrderProduct readLine(Product product) {
+        for (OrderProduct op : products) {
+            if (this.isLineOf(op, product)) {
+                return op;
+            }
+        }
+        return null;
+    }
+
+    // products are compared by code because the product can be a cached copy
+    private boolean isLineOf(OrderProduct orderProduct, Product product) {
+        Product lineProduct = orderProduct.getProduct();
+        return lineProduct == product
+                || (lineProduct != null && lineProduct.getCode() != null && lineProduct.getCode().equals(product.getCode()));
+    }
+
+    private void addToTotals(OrderProduct orderProduct, int quantity) {
+        double price = orderProduct.getPrice();
+        double discount = price * orderProduct.getDiscount();
+        this.subtotal += quantity * price;
+        this.discountTotal += quantity * discount;
+        this.total += quantity * (price - discount);
+    }
+
     public Long getDate() {
         return date;
     }
@@ -83,12 +168,21 @@ public class Order {
         this.date = date;
     }
 
-    public Double getPrice() {
-        Double price = 0.0;
-        for (OrderProduct op : products) {
-            price += op.getPrice() * (1.0 - op.getDiscount());
-        }
-        return price;
+    public double getSubtotal() {
+        return subtotal;
+    }
+
+    public double getDiscountTotal() {
+        return discountTotal;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    // kept for the clients that read the order price
+    public double getPrice() {
+        return total;
     }
 
     public String getChargeAddress() {
@@ -139,4 +233,20 @@ public class Order {
         this.isFulfilled = fulfilled;
     }
 
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    // called by JPA before every insert and update, the bulk updates of the repository set it themselves
+    @PrePersist
+    @PreUpdate
+    public void updateLastModified() {
+        long now = System.currentTimeMillis();
+        lastModified = lastModified == null ? now : Math.max(now, lastModified + 1);
+    }
+
 }
@@ -2,8 +2,11 @@ package com.fijosilo.ecommerce.order;
 
 import com.fijosilo.ecommerce.authentication.Client;
 import com.fijosilo.ecommerce.authentication.ClientService;
+import com.fijosilo.ecommerce.cache.ETags;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
 import com.fijosilo.ecommerce.product.Product;
 import com.fijosilo.ecommerce.product.ProductService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -26,7 +29,8 @@ public class OrderController {
     }
 
     @GetMapping(value = "/order", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HashMap<String, Object>> readOrder(Authentication authentication, @RequestParam HashMap<String, String> params) {
+    public ResponseEntity<HashMap<String, Object>> readOrder(Authentication authentication, @RequestParam HashMap<String, String> params,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         HashMap<String, Object> payload = new HashMap<>();
 
         // validate client (should never fail unless security configurations are not properly configured)
@@ -53,21 +57,27 @@ public class OrderController {
         }
 
         // validate that the requested order belongs to the client
-        if (order.getClient() != client) {
+        if (!this.isOrderOwnedByClient(order, client)) {
             // if it doesn't, behave has if the order doesn't even exist
             // because we don't want clients to know anything about other clients orders
             payload.put("error", "An order with the code provided was not found.");
             return new ResponseEntity<>(payload, HttpStatus.NOT_FOUND);
         }
+        // the client already has this version of the order, so it isn't serialized again
+        String eTag = this.eTagOf(order);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return new ResponseEntity<>(ETags.headers(eTag), HttpStatus.NOT_MODIFIED);
+        }
 
         // all validations test passed
 
         payload.put("order", order);
-        return new ResponseEntity<>(payload, HttpStatus.OK);
+        return new ResponseEntity<>(payload, ETags.headers(eTag), HttpStatus.OK);
     }
 
     @GetMapping(value = "/admin/order", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HashMap<String, Object>> adminReadOrder(@RequestParam HashMap<String, String> params) {
+    public ResponseEntity<HashMap<String, Object>> adminReadOrder(@RequestParam HashMap<String, String> params,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         HashMap<String, Object> payload = new HashMap<>();
 
         // validate order code
@@ -86,15 +96,21 @@ public class OrderController {
             payload.put("error", "Field code must be a valid order code.");
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
+        // the admin already has this version of the order
+        String eTag = this.eTagOf(order);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return new ResponseEntity<>(ETags.headers(eTag), HttpStatus.NOT_MODIFIED);
+        }
 
         // all validations test passed
 
         payload.put("order", order);
-        return new ResponseEntity<>(payload, HttpStatus.OK);
+        return new ResponseEntity<>(payload, ETags.headers(eTag), HttpStatus.OK);
     }
 
     @GetMapping(value = "/orders", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HashMap<String, Object>> readOrders(Authentication authentication, @RequestParam HashMap<String, String> params) {
+    public ResponseEntity<HashMap<String, Object>> readOrders(Authentication authentication, @RequestParam HashMap<String, String> params,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         HashMap<String, Object> payload = new HashMap<>();
 
         // validate client (should never fail unless security configurations are not properly configured)
@@ -143,13 +159,20 @@ public class OrderController {
             }
         }
 
+        // the client already has this version of this page of its orders list, so the orders aren't read
+        String eTag = ETags.ofVersions("orders", client.getId(), maxOrdersPerPage, pageNumber,
+                orderService.readOrdersLastModifiedByClient(client));
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return new ResponseEntity<>(ETags.headers(eTag), HttpStatus.NOT_MODIFIED);
+        }
+
         // all validations test passed
 
         // get orders list
-        List<Order> orders = orderService.readOrdersByClient(client, maxOrdersPerPage, pageNumber);
+        List<OrderSummary> orders = orderService.readOrdersByClient(client, maxOrdersPerPage, pageNumber);
 
         payload.put("orders", orders);
-        return new ResponseEntity<>(payload, HttpStatus.OK);
+        return new ResponseEntity<>(payload, ETags.headers(eTag), HttpStatus.OK);
     }
 
     @GetMapping(value = "/admin/orders", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -269,6 +292,81 @@ public class OrderController {
             isFulfilled = Boolean.parseBoolean(isFulfilledString);
         }
 
+        // optional validate order minimum total
+        Double minTotal = null;
+        if (params.containsKey("min_order_total")) {
+            String minTotalString = params.get("min_order_total");
+            if (minTotalString.isBlank()) {
+                payload.put("error", "Field min_order_total can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                minTotal = Double.parseDouble(minTotalString);
+            } catch (NumberFormatException e) {
+                payload.put("error", "Field min_order_total must be a valid rational number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (minTotal < 0.0) {
+                payload.put("error", "Field min_order_total can't be negative.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // optional validate order maximum total
+        Double maxTotal = null;
+        if (params.containsKey("max_order_total")) {
+            String maxTotalString = params.get("max_order_total");
+            if (maxTotalString.isBlank()) {
+                payload.put("error", "Field max_order_total can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                maxTotal = Double.parseDouble(maxTotalString);
+            } catch (NumberFormatException e) {
+                payload.put("error", "Field max_order_total must be a valid rational number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (maxTotal < 0.0) {
+                payload.put("error", "Field max_order_total can't be negative.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // optional validate minimum total in relation to maximum total
+        if (minTotal != null && maxTotal == null) {
+            maxTotal = Double.MAX_VALUE;
+        }
+        if (maxTotal != null && minTotal == null) {
+            minTotal = 0.0;
+        }
+        if (minTotal != null && maxTotal != null) {
+            if (minTotal > maxTotal) {
+                payload.put("error", "Field min_order_total can't be bigger than max_order_total.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // optional validate sort
+        OrderSort sort = OrderSort.DATE;
+        if (params.containsKey("sort_by")) {
+            String sortString = params.get("sort_by").toLowerCase();
+            if (sortString.isBlank()) {
+                payload.put("error", "Field sort_by can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            sort = null;
+            for (OrderSort os : OrderSort.values()) {
+                if (sortString.equals(os.toString())) {
+                    sort = os;
+                    break;
+                }
+            }
+            if (sort == null) {
+                payload.put("error", "Field sort_by must be date or total.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
         // optional validate maximum orders per page
         Integer maxOrdersPerPage = 10;
         if (params.containsKey("max_orders_per_page")) {
@@ -309,13 +407,52 @@ public class OrderController {
             }
         }
 
+        // optional validate after
+        KeysetCursor after = null;
+        if (params.containsKey("after")) {
+            String afterString = params.get("after");
+            if (afterString.isBlank()) {
+                payload.put("error", "Field after can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (params.containsKey("page_number")) {
+                payload.put("error", "Field after can't be used together with page_number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                after = KeysetCursor.decode(afterString);
+                if (sort == OrderSort.TOTAL) {
+                    after.getDoubleKey();
+                } else {
+                    after.getLongKey();
+                }
+            } catch (IllegalArgumentException e) {
+                payload.put("error", "Field after must be a valid cursor.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
         // all validations test passed
 
         // get orders list
-        List<Order> orders = orderService.readOrdersByFilters(client, minDate, maxDate, paymentMethod, isPaid,
-                isFulfilled, maxOrdersPerPage, pageNumber);
+        List<Order> orders;
+        if (after == null) {
+            orders = orderService.readOrdersByFilters(client, minDate, maxDate, paymentMethod, isPaid,
+                    isFulfilled, minTotal, maxTotal, sort, maxOrdersPerPage, pageNumber);
+        } else {
+            orders = orderService.readOrdersByFiltersAfter(client, minDate, maxDate, paymentMethod, isPaid,
+                    isFulfilled, minTotal, maxTotal, sort, maxOrdersPerPage, after);
+        }
 
         payload.put("orders", orders);
+        // give the client a cursor to the next page
+        if (orders.size() == maxOrdersPerPage) {
+            Order lastOrder = orders.get(orders.size() - 1);
+            KeysetCursor next = sort == OrderSort.TOTAL
+                    ? KeysetCursor.of(lastOrder.getTotal(), lastOrder.getId())
+                    : KeysetCursor.of(lastOrder.getDate(), lastOrder.getId());
+            payload.put("next", next.encode());
+        }
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
@@ -342,24 +479,9 @@ public class OrderController {
         }
 
         // validate list of products
-        LinkedList<Product> products = new LinkedList<>();
-        int i = 0;
-        String key = String.format("product_codes[%d]", i);
-        while (params.containsKey(key)) {
-            if (params.get(key).isBlank()) {
-                payload.put("error", String.format("Field product_codes[%d] can't be blank.", i));
-                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
-            }
-            String productCode = params.get(key);
-            Product product = productService.readProductByCode(productCode);
-            if (product == null) {
-                payload.put("error", String.format("Field product_codes[%d] must be a valid product code.", i));
-                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
-            }
-            products.add(product);
-
-            i++;
-            key = String.format("product_codes[%d]", i);
+        Map<Product, Integer> products = this.readProductQuantities(params, "product_codes", payload);
+        if (products == null) {
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
         if (products.size() == 0) {
             payload.put("error", "Field product_codes is required.");
@@ -394,17 +516,27 @@ public class OrderController {
         Order order = new Order();
         order.setCode(UUID.randomUUID().toString());
         order.setClient(client);
-        for (Product p : products) {
-            order.addProduct(p);
+        for (Map.Entry<Product, Integer> entry : products.entrySet()) {
+            order.addProduct(entry.getKey(), entry.getValue());
         }
-        order.setDate(System.currentTimeMillis());
         order.setChargeAddress(client.getChargeAddress().toString());
         order.setPaymentMethod(paymentMethod);
         order.setPaid(false);
         order.setDeliverAddress(client.getDeliverAddress().toString());
         order.setStatus("Waiting for payment");
         order.setFulfilled(false);
-        orderService.createOrder(order);
+        // the products are taken from the stock while the order waits for payment
+        if (!productService.reserveStock(order.readProductQuantities())) {
+            payload.put("error", "Not enough stock for the products.");
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        // dated after the reservation, the stock ledger recovers the reservations it didn't write by the order date
+        order.setDate(System.currentTimeMillis());
+        if (!orderService.createOrder(order)) {
+            productService.releaseStock(order.readProductQuantities());
+            payload.put("error", "Database couldn't register the order.");
+            return new ResponseEntity<>(payload, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
 
         // TODO: respond with payment details
 
@@ -433,45 +565,15 @@ public class OrderController {
         }
 
         // optional validate product codes add list
-        LinkedList<Product> addProducts = new LinkedList<>();
-        int i = 0;
-        String key = String.format("add_product_codes[%d]", i);
-        while (params.containsKey(key)) {
-            if (params.get(key).isBlank()) {
-                payload.put("error", String.format("Field add_product_codes[%d] can't be blank.", i));
-                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
-            }
-            String productCode = params.get(key);
-            Product product = productService.readProductByCode(productCode);
-            if (product == null) {
-                payload.put("error", String.format("Field add_product_codes[%d] must be a valid product code.", i));
-                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
-            }
-            addProducts.add(product);
-
-            i++;
-            key = String.format("add_product_codes[%d]", i);
+        Map<Product, Integer> addProducts = this.readProductQuantities(params, "add_product_codes", payload);
+        if (addProducts == null) {
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
 
         // optional validate product codes remove list
-        LinkedList<Product> remProducts = new LinkedList<>();
-        i = 0;
-        key = String.format("rem_product_codes[%d]", i);
-        while (params.containsKey(key)) {
-            if (params.get(key).isBlank()) {
-                payload.put("error", String.format("Field rem_product_codes[%d] can't be blank.", i));
-                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
-            }
-            String productCode = params.get(key);
-            Product product = productService.readProductByCode(productCode);
-            if (product == null) {
-                payload.put("error", String.format("Field rem_product_codes[%d] must be a valid product code.", i));
-                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
-            }
-            remProducts.add(product);
-
-            i++;
-            key = String.format("rem_product_codes[%d]", i);
+        Map<Product, Integer> remProducts = this.readProductQuantities(params, "rem_product_codes", payload);
+        if (remProducts == null) {
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
 
         // optional validate charge address
@@ -503,6 +605,11 @@ public class OrderController {
                 return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
             }
             isPaid = Boolean.parseBoolean(isPaidString);
+            // a cancelled or expired order gave its products back to the stock, so it can't be paid anymore
+            if (isPaid && !order.isPaid() && order.isFulfilled()) {
+                payload.put("error", String.format("Order can't be paid anymore, its status is '%s'.", order.getStatus()));
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
         }
 
         // optional status
@@ -517,14 +624,24 @@ public class OrderController {
 
         // all validations test passed
 
-        // TODO: receive map of products and quantities from the front end
+        // the units added to the order are taken from the stock and the units removed are given back,
+        // unless the order was cancelled or expired, which already gave all its products back to the stock
+        Map<Product, Integer> reserveProducts = new LinkedHashMap<>();
+        Map<Product, Integer> releaseProducts = new LinkedHashMap<>();
+        if (order.isPaid() || !order.isFulfilled()) {
+            this.readStockChanges(order, addProducts, remProducts, reserveProducts, releaseProducts);
+        }
+        if (!reserveProducts.isEmpty() && !productService.reserveStock(reserveProducts)) {
+            payload.put("error", "Not enough stock for the products.");
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
 
         // update order
-        for (Product p : addProducts) {
-            order.addProduct(p);
+        for (Map.Entry<Product, Integer> entry : addProducts.entrySet()) {
+            order.addProduct(entry.getKey(), entry.getValue());
         }
-        for (Product p : remProducts) {
-            order.remProduct(p);
+        for (Map.Entry<Product, Integer> entry : remProducts.entrySet()) {
+            order.remProduct(entry.getKey(), entry.getValue());
         }
         if (chargeAddress != null) order.setChargeAddress(chargeAddress);
         if (deliverAddress != null) order.setDeliverAddress(deliverAddress);
@@ -532,9 +649,21 @@ public class OrderController {
         if (status != null) order.setStatus(status);
 
         if (!orderService.updateOrder(order)) {
+            if (!reserveProducts.isEmpty()) {
+                productService.releaseStock(reserveProducts);
+            }
+            // the order isn't saved if it was changed since it was read, like cancelled or expired
+            Order savedOrder = orderService.readOrderByCode(code);
+            if (savedOrder == null || !Objects.equals(savedOrder.getLastModified(), order.getLastModified())) {
+                payload.put("error", "Order was changed while it was being updated, read it again before updating it.");
+                return new ResponseEntity<>(payload, HttpStatus.CONFLICT);
+            }
             payload.put("error", "Database couldn't update the order.");
             return new ResponseEntity<>(payload, HttpStatus.INTERNAL_SERVER_ERROR);
         }
+        if (!releaseProducts.isEmpty()) {
+            productService.releaseStock(releaseProducts);
+        }
 
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
@@ -566,16 +695,17 @@ public class OrderController {
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
         // validate that the requested order belongs to the client
-        if (order.getClient() != client) {
+        if (!this.isOrderOwnedByClient(order, client)) {
             // if it doesn't, behave has if the order doesn't even exist
             // because we don't want clients to be able to delete and know about other clients orders
             payload.put("error", "Field code must be a valid order code.");
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
 
-        // if the order was already been paid inform the client the support needs to be contacted to cancel the order
-        if (order.isPaid()) {
-            payload.put("error", "Order has already been paid. Contact the support to cancel your order");
+        // if the order was already paid, cancelled or expired inform the client why it can't be cancelled
+        String cancelError = this.readCancelError(order);
+        if (cancelError != null) {
+            payload.put("error", cancelError);
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
 
@@ -583,9 +713,18 @@ public class OrderController {
 
         // TODO: cancel the payment request
 
-        // delete order
-        order.setStatus("Cancelled by the client");
-        orderService.deleteOrder(order);
+        // delete order, unless it was paid, cancelled or expired meanwhile, and give its products back to the stock
+        if (!orderService.cancelOrder(order, "Cancelled by the client")) {
+            Order currentOrder = orderService.readOrderByCode(code);
+            cancelError = currentOrder == null ? null : this.readCancelError(currentOrder);
+            if (cancelError == null) {
+                payload.put("error", "Database couldn't cancel the order.");
+                return new ResponseEntity<>(payload, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            payload.put("error", cancelError);
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        productService.releaseStock(order.readProductQuantities());
 
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
@@ -614,15 +753,131 @@ public class OrderController {
         // all validations test passed
 
         // TODO: cancel the payment request
-        if (!order.isPaid()) {
-            //
-        }
 
-        // delete order
-        order.setStatus("Cancelled");
-        orderService.deleteOrder(order);
+        // delete order, the products of an unpaid order go back to the stock
+        if (orderService.cancelOrder(order, "Cancelled")) {
+            productService.releaseStock(order.readProductQuantities());
+        } else {
+            order.setStatus("Cancelled");
+            orderService.deleteOrder(order);
+        }
 
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
+
+    /**
+     * Reads the products of a list field (like product_codes[0], product_codes[1], ...) with a single query.
+     * The errors are reported in the same order as if the codes were validated one by one.
+     * A code that shows up more than once in the list counts as more units of the same product.
+     *
+     * @param params the request parameters
+     * @param field the name of the list field
+     * @param payload the response payload, where the error is put if some code isn't valid
+     * @return the quantity of each product, in the order of their first code, or null if some code isn't valid
+     */
+    private Map<Product, Integer> readProductQuantities(HashMap<String, String> params, String field, HashMap<String, Object> payload) {
+        // collect the codes until the end of the list or the first blank code
+        LinkedList<String> productCodes = new LinkedList<>();
+        String key = String.format("%s[%d]", field, productCodes.size());
+        while (params.containsKey(key) && !params.get(key).isBlank()) {
+            productCodes.add(params.get(key));
+            key = String.format("%s[%d]", field, productCodes.size());
+        }
+
+        // read all the products at once
+        Map<String, Product> productsByCode = productService.readProductsByCodes(productCodes);
+        Map<Product, Integer> products = new LinkedHashMap<>();
+        int i = 0;
+        for (String productCode : productCodes) {
+            Product product = productsByCode.get(productCode);
+            if (product == null) {
+                payload.put("error", String.format("Field %s[%d] must be a valid product code.", field, i));
+                return null;
+            }
+            // the map holds a single product instance per code, so the same code always counts on the same entry
+            products.merge(product, 1, Integer::sum);
+            i++;
+        }
+
+        // the codes stopped before the end of the list
+        if (params.containsKey(key)) {
+            payload.put("error", String.format("Field %s[%d] can't be blank.", field, productCodes.size()));
+            return null;
+        }
+
+        return products;
+    }
+
+    /**
+     * Reads how many units of each product an order change takes from the stock or gives back to it.
+     * The units are added before they are removed and an order never has less than zero units of a product,
+     * like the order applies the change.
+     *
+     * @param order the order before the change
+     * @param addProducts the units added to the order by product
+     * @param remProducts the units removed from the order by product
+     * @param reserveProducts where the units taken from the stock are put
+     * @param releaseProducts where the units given back to the stock are put
+     */
+    private void readStockChanges(Order order, Map<Product, Integer> addProducts, Map<Product, Integer> remProducts,
+                                  Map<Product, Integer> reserveProducts, Map<Product, Integer> releaseProducts) {
+        // products are compared by code because the lists and the order hold different copies of them
+        Map<String, Product> products = new LinkedHashMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        Map<String, Integer> newQuantities = new HashMap<>();
+        for (Map.Entry<Product, Integer> entry : order.readProductQuantities().entrySet()) {
+            quantities.put(entry.getKey().getCode(), entry.getValue());
+            newQuantities.put(entry.getKey().getCode(), entry.getValue());
+        }
+        for (Map.Entry<Product, Integer> entry : addProducts.entrySet()) {
+            products.putIfAbsent(entry.getKey().getCode(), entry.getKey());
+            newQuantities.merge(entry.getKey().getCode(), entry.getValue(), Integer::sum);
+        }
+        for (Map.Entry<Product, Integer> entry : remProducts.entrySet()) {
+            products.putIfAbsent(entry.getKey().getCode(), entry.getKey());
+            newQuantities.merge(entry.getKey().getCode(), -entry.getValue(), (a, b) -> Math.max(0, a + b));
+        }
+        for (Map.Entry<String, Product> entry : products.entrySet()) {
+            int change = Math.max(0, newQuantities.getOrDefault(entry.getKey(), 0))
+                    - quantities.getOrDefault(entry.getKey(), 0);
+            if (change > 0) {
+                reserveProducts.put(entry.getValue(), change);
+            } else if (change < 0) {
+                releaseProducts.put(entry.getValue(), -change);
+            }
+        }
+    }
+
+    // unpaid orders are only fulfilled when they are cancelled or expire
+    private String readCancelError(Order order) {
+        if (order.isPaid()) {
+            return "Order has already been paid. Contact the support to cancel your order";
+        }
+        if (order.isFulfilled()) {
+            return String.format("Order can't be cancelled anymore, its status is '%s'.", order.getStatus());
+        }
+        return null;
+    }
+
+    // clients are compared by id because the client of the request can be a cached copy
+    private boolean isOrderOwnedByClient(Order order, Client client) {
+        return order.getClient() != null && order.getClient().getId().equals(client.getId());
+    }
+
+    // the order is sent with its products, so their versions are part of its tag
+    private String eTagOf(Order order) {
+        Long productsLastModified = null;
+        for (OrderProduct orderProduct : order.getProducts()) {
+            if (orderProduct.getProduct() == null) {
+                continue;
+            }
+            Long lastModified = orderProduct.getProduct().getLastModified();
+            if (lastModified != null && (productsLastModified == null || lastModified > productsLastModified)) {
+                productsLastModified = lastModified;
+            }
+        }
+        return ETags.ofVersions("order", order.getId(), order.getLastModified(), productsLastModified);
+    }
+
 }
@@ -1,15 +1,26 @@
 package com.fijosilo.ecommerce.order;
 
 import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderDAO {
     boolean createOrder(Order order);
     Order readOrderByCode(String code);
-    List<Order> readOrdersByClient(Client client, Integer maxOrdersPerPage, Integer pageNumber);
+    List<OrderSummary> readOrdersByClient(Client client, Integer maxOrdersPerPage, Integer pageNumber);
+    Long readOrdersLastModifiedByClient(Client client);
     List<Order> readOrdersByFilters(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
-                                    Boolean isPaid, Boolean isFulfilled, Integer maxOrdersPerPage, Integer pageNumber);
+                                    Boolean isPaid, Boolean isFulfilled, Double minTotal, Double maxTotal,
+                                    OrderSort sort, Integer maxOrdersPerPage, Integer pageNumber);
+    List<Order> readOrdersByFiltersAfter(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
+                                         Boolean isPaid, Boolean isFulfilled, Double minTotal, Double maxTotal,
+                                         OrderSort sort, Integer maxOrdersPerPage, KeysetCursor after);
+    void exportOrdersByFilters(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
+                               Boolean isPaid, Boolean isFulfilled, Consumer<Order> consumer);
     boolean updateOrder(Order order);
     boolean deleteOrder(Order order);
+    boolean cancelOrder(Order order, String status);
+    List<Order> readUnpaidOrdersBefore(Long maxDate, Integer maxOrders);
 }
@@ -0,0 +1,245 @@
+package com.fijosilo.ecommerce.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.authentication.ClientService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Controller
+public class OrderExportController {
+    private final OrderService orderService;
+    private final ClientService clientService;
+    private final ObjectMapper objectMapper;
+
+    private static final MediaType NDJSON = MediaType.valueOf("application/x-ndjson");
+    private static final MediaType CSV = MediaType.valueOf("text/csv");
+    private static final String[] CSV_HEADER = new String[]{"code", "clientEmail", "date", "chargeAddress",
+            "paymentMethod", "paid", "deliverAddress", "status", "fulfilled"};
+
+    public OrderExportController(OrderService orderService, ClientService clientService, ObjectMapper objectMapper) {
+        this.orderService = orderService;
+        this.clientService = clientService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(value = "/admin/orders/export")
+    public ResponseEntity<StreamingResponseBody> adminExportOrders(@RequestParam HashMap<String, String> params) {
+        HashMap<String, Object> payload = new HashMap<>();
+
+        // optional validate format
+        String format = "ndjson";
+        if (params.containsKey("format")) {
+            format = params.get("format").toLowerCase();
+            if (format.isBlank()) {
+                payload.put("error", "Field format can't be blank.");
+                return this.errorResponse(payload);
+            }
+            if (!format.equals("ndjson") && !format.equals("csv")) {
+                payload.put("error", "Field format must be ndjson or csv.");
+                return this.errorResponse(payload);
+            }
+        }
+
+        // optional validate client
+        Client client = null;
+        if (params.containsKey("client_email")) {
+            String email = params.get("client_email");
+            if (email.isBlank()) {
+                payload.put("error", "Field client_email can't be blank.");
+                return this.errorResponse(payload);
+            }
+            client = clientService.readClientByEmail(email);
+            if (client == null) {
+                payload.put("error", "Field client_email must be a valid client email.");
+                return this.errorResponse(payload);
+            }
+        }
+
+        // optional validate order minimum date
+        Long minDate = null;
+        if (params.containsKey("min_order_date")) {
+            String minDateString = params.get("min_order_date");
+            if (minDateString.isBlank()) {
+                payload.put("error", "Field min_order_date can't be blank.");
+                return this.errorResponse(payload);
+            }
+            try {
+                minDate = Long.parseLong(minDateString);
+            } catch (NumberFormatException e) {
+                payload.put("error", "Field min_order_date must be a valid integer number.");
+                return this.errorResponse(payload);
+            }
+        }
+
+        // optional validate order maximum date
+        Long maxDate = null;
+        if (params.containsKey("max_order_date")) {
+            String maxDateString = params.get("max_order_date");
+            if (maxDateString.isBlank()) {
+                payload.put("error", "Field max_order_date can't be blank.");
+                return this.errorResponse(payload);
+            }
+            try {
+                maxDate = Long.parseLong(maxDateString);
+            } catch (NumberFormatException e) {
+                payload.put("error", "Field max_order_date must be a valid integer number.");
+                return this.errorResponse(payload);
+            }
+        }
+
+        // optional validate minimum date in relation to maximum date
+        if (minDate != null && maxDate == null) {
+            maxDate = System.currentTimeMillis();
+        }
+        if (maxDate != null && minDate == null) {
+            minDate = 0L;
+        }
+        if (minDate != null && maxDate != null) {
+            if (minDate > maxDate) {
+                payload.put("error", "Field min_order_date can't be older than max_order_date.");
+                return this.errorResponse(payload);
+            }
+        }
+
+        // optional validate order payment method
+        PaymentMethod paymentMethod = null;
+        if (params.containsKey("order_payment_method")) {
+            String paymentMethodString = params.get("order_payment_method");
+            if (paymentMethodString.isBlank()) {
+                payload.put("error", "Field order_payment_method can't be blank.");
+                return this.errorResponse(payload);
+            }
+            for (PaymentMethod pm : PaymentMethod.values()) {
+                if (paymentMethodString.equals(pm.toString())) {
+                    paymentMethod = pm;
+                    break;
+                }
+            }
+            if (paymentMethod == null) {
+                payload.put("error", "Field order_payment_method must be a valid payment method.");
+                return this.errorResponse(payload);
+            }
+        }
+
+        // optional validate order is paid
+        Boolean isPaid = null;
+        if (params.containsKey("order_is_paid")) {
+            String isPaidString = params.get("order_is_paid").toLowerCase();
+            if (isPaidString.isBlank()) {
+                payload.put("error", "Field order_is_paid can't be blank.");
+                return this.errorResponse(payload);
+            }
+            isPaid = Boolean.parseBoolean(isPaidString);
+        }
+
+        // optional validate order is fulfilled
+        Boolean isFulfilled = null;
+        if (params.containsKey("order_is_fulfilled")) {
+            String isFulfilledString = params.get("order_is_fulfilled").toLowerCase();
+            if (isFulfilledString.isBlank()) {
+                payload.put("error", "Field order_is_fulfilled can't be blank.");
+                return this.errorResponse(payload);
+            }
+            isFulfilled = Boolean.parseBoolean(isFulfilledString);
+        }
+
+        // all validations test passed
+
+        // stream the orders as they are read from the database
+        boolean isCsv = format.equals("csv");
+        Client filterClient = client;
+        Long filterMinDate = minDate;
+        Long filterMaxDate = maxDate;
+        PaymentMethod filterPaymentMethod = paymentMethod;
+        Boolean filterIsPaid = isPaid;
+        Boolean filterIsFulfilled = isFulfilled;
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (isCsv) {
+                writer.write(this.csvLine(CSV_HEADER));
+            }
+            try {
+                orderService.exportOrdersByFilters(filterClient, filterMinDate, filterMaxDate, filterPaymentMethod,
+                        filterIsPaid, filterIsFulfilled, order -> {
+                            try {
+                                writer.write(isCsv ? this.csvLine(order) : this.ndjsonLine(order));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(isCsv ? CSV : NDJSON)
+                .header("Content-Disposition", String.format("attachment; filename=\"orders.%s\"", format))
+                .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> errorResponse(HashMap<String, Object> payload) {
+        return ResponseEntity.unprocessableEntity()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> objectMapper.writeValue(outputStream, payload));
+    }
+
+    private String ndjsonLine(Order order) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("code", order.getCode());
+        row.put("clientEmail", order.getClient() == null ? null : order.getClient().getEmail());
+        row.put("date", order.getDate());
+        row.put("chargeAddress", order.getChargeAddress());
+        row.put("paymentMethod", order.getPaymentMethod());
+        row.put("paid", order.isPaid());
+        row.put("deliverAddress", order.getDeliverAddress());
+        row.put("status", order.getStatus());
+        row.put("fulfilled", order.isFulfilled());
+        return objectMapper.writeValueAsString(row) + "\n";
+    }
+
+    private String csvLine(Order order) {
+        return this.csvLine(new String[]{
+                order.getCode(),
+                order.getClient() == null ? null : order.getClient().getEmail(),
+                String.valueOf(order.getDate()),
+                order.getChargeAddress(),
+                order.getPaymentMethod(),
+                String.valueOf(order.isPaid()),
+                order.getDeliverAddress(),
+                order.getStatus(),
+                String.valueOf(order.isFulfilled())
+        });
+    }
+
+    // joins the values with commas, quoting the ones that contain commas, quotes or line breaks
+    private String csvLine(String[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = values[i] == null ? "" : values[i];
+            if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.append("\r\n").toString();
+    }
+
+}
@@ -1,20 +1,24 @@
 package com.fijosilo.ecommerce.order;
 
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
 import com.fijosilo.ecommerce.product.Product;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
 public class OrderProduct {
     @Id
-    @GenericGenerator(name = "increment", strategy = "increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "order_product_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     @ManyToOne
     private Product product;
     private Double price;
     private Double discount;
+    private int quantity;
 
     public OrderProduct() {}
 
@@ -50,4 +54,12 @@ public class OrderProduct {
         this.discount = discount;
     }
 
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
 }
@@ -1,10 +1,12 @@
 package com.fijosilo.ecommerce.order;
 
 import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class OrderService {
@@ -22,16 +24,50 @@ public class OrderService {
         return orderDAO.readOrderByCode(code);
     }
 
-    public List<Order> readOrdersByClient(Client client, Integer maxOrdersPerPage, Integer pageNumber) {
+    public List<OrderSummary> readOrdersByClient(Client client, Integer maxOrdersPerPage, Integer pageNumber) {
         return orderDAO.readOrdersByClient(client, maxOrdersPerPage, pageNumber);
     }
 
+    /**
+     * Reads the last modified date of the newest change to the orders of the client, without reading the orders.
+     * Orders are never deleted, so any change to the list of orders of the client changes it.
+     *
+     * @param client the client
+     * @return the last modified date or null if the client has no orders
+     */
+    public Long readOrdersLastModifiedByClient(Client client) {
+        return orderDAO.readOrdersLastModifiedByClient(client);
+    }
+
     public List<Order> readOrdersByFilters(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
-                                           Boolean isPaid, Boolean isFulfilled, Integer maxOrdersPerPage, Integer pageNumber) {
+                                           Boolean isPaid, Boolean isFulfilled, Double minTotal, Double maxTotal,
+                                           OrderSort sort, Integer maxOrdersPerPage, Integer pageNumber) {
         return orderDAO.readOrdersByFilters(client, minDate, maxDate, paymentMethod,
-                isPaid, isFulfilled, maxOrdersPerPage, pageNumber);
+                isPaid, isFulfilled, minTotal, maxTotal, sort, maxOrdersPerPage, pageNumber);
+    }
+
+    public List<Order> readOrdersByFiltersAfter(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
+                                                Boolean isPaid, Boolean isFulfilled, Double minTotal, Double maxTotal,
+                                                OrderSort sort, Integer maxOrdersPerPage, KeysetCursor after) {
+        return orderDAO.readOrdersByFiltersAfter(client, minDate, maxDate, paymentMethod,
+                isPaid, isFulfilled, minTotal, maxTotal, sort, maxOrdersPerPage, after);
+    }
+
+    /**
+     * Reads every order matching the filters, one at a time, in date order.
+     * The orders are passed to the consumer as they are read, so they aren't all held in memory at once.
+     */
+    public void exportOrdersByFilters(Client client, Long minDate, Long maxDate, PaymentMethod paymentMethod,
+                                      Boolean isPaid, Boolean isFulfilled, Consumer<Order> consumer) {
+        orderDAO.exportOrdersByFilters(client, minDate, maxDate, paymentMethod, isPaid, isFulfilled, consumer);
     }
 
+    /**
+     * Saves the changes to an order, unless the order was changed since it was read, like cancelled or expired.
+     *
+     * @param order the order read and changed
+     * @return false if the order was changed since it was read or couldn't be saved
+     */
     public boolean updateOrder(Order order) {
         return orderDAO.updateOrder(order);
     }
@@ -40,4 +76,23 @@ public class OrderService {
         return orderDAO.deleteOrder(order);
     }
 
+    /**
+     * Cancels an order that wasn't paid or fulfilled yet, checked and changed by a single statement,
+     * so an order is only ever cancelled once and its reserved stock can be released by whoever cancelled it.
+     *
+     * @param order the order to cancel
+     * @param status the status of the cancelled order
+     * @return true if the order was cancelled by this call
+     */
+    public boolean cancelOrder(Order order, String status) {
+        return orderDAO.cancelOrder(order, status);
+    }
+
+    /**
+     * Reads the oldest orders that are still waiting for payment, with their products.
+     */
+    public List<Order> readUnpaidOrdersBefore(Long maxDate, Integer maxOrders) {
+        return orderDAO.readUnpaidOrdersBefore(maxDate, maxOrders);
+    }
+
 }
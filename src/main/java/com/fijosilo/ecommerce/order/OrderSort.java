@@ -0,0 +1,21 @@
+package com.fijosilo.ecommerce.order;
+
+/**
+ * Sort keys of the admin order list, every sort breaks ties by the order id.
+ */
+public enum OrderSort {
+    DATE("date"),
+    TOTAL("total");
+
+    private final String value;
+
+    OrderSort(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+}
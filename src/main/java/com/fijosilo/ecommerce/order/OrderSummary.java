@@ -0,0 +1,103 @@
+package com.fijosilo.ecommerce.order;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Objects;
+
+/**
+ * The fields of an order shown by the order lists.
+ * Lists select these fields straight from the database, so they don't load the order entities with their
+ * client and products, the full order is only read by its code.
+ */
+public class OrderSummary {
+    @JsonIgnore
+    private final Long id;
+    private final String code;
+    private final Long date;
+    private final double subtotal;
+    private final double discountTotal;
+    private final double total;
+    private final String paymentMethod;
+    private final boolean isPaid;
+    private final String status;
+    private final boolean isFulfilled;
+
+    public OrderSummary(Long id, String code, Long date, double subtotal, double discountTotal, double total,
+                        String paymentMethod, boolean isPaid, String status, boolean isFulfilled) {
+        this.id = id;
+        this.code = code;
+        this.date = date;
+        this.subtotal = subtotal;
+        this.discountTotal = discountTotal;
+        this.total = total;
+        this.paymentMethod = paymentMethod;
+        this.isPaid = isPaid;
+        this.status = status;
+        this.isFulfilled = isFulfilled;
+    }
+
+    public OrderSummary(Order order) {
+        this(order.getId(), order.getCode(), order.getDate(), order.getSubtotal(), order.getDiscountTotal(),
+                order.getTotal(), order.getPaymentMethod(), order.isPaid(), order.getStatus(), order.isFulfilled());
+    }
+
+    // used by the pagination cursors
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Long getDate() {
+        return date;
+    }
+
+    public double getSubtotal() {
+        return subtotal;
+    }
+
+    public double getDiscountTotal() {
+        return discountTotal;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    // kept for the clients that read the order price
+    public double getPrice() {
+        return total;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public boolean isPaid() {
+        return isPaid;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isFulfilled() {
+        return isFulfilled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderSummary that = (OrderSummary) o;
+        return Objects.equals(id, that.id) && Objects.equals(code, that.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, code);
+    }
+
+}
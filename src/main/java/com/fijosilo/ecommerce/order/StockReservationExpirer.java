@@ -0,0 +1,91 @@
+package com.fijosilo.ecommerce.order;
+
+import com.fijosilo.ecommerce.product.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives back to the stock the products of the orders that weren't paid in time.
+ * New orders take their products from the stock while they wait for payment, when the payment doesn't come
+ * before the reservation time to live, the order is cancelled and its products can be bought by someone else.
+ */
+@Component
+public class StockReservationExpirer {
+    private static final int ORDERS_PER_CHECK = 100;
+
+    private final OrderService orderService;
+    private final ProductService productService;
+    private final long timeToLive;
+    private final long checkInterval;
+    private final ScheduledExecutorService executor;
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationExpirer.class);
+
+    public StockReservationExpirer(OrderService orderService, ProductService productService,
+                                   @Value("${com.fijosilo.ecommerce.stock_reservation.time_to_live:1800000}") long timeToLive,
+                                   @Value("${com.fijosilo.ecommerce.stock_reservation.check_interval:60000}") long checkInterval) {
+        this.orderService = orderService;
+        this.productService = productService;
+        this.timeToLive = timeToLive;
+        this.checkInterval = checkInterval;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservation-expirer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                this.expireReservations(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                // an exception would stop the scheduled checks, so it is only logged
+                log.warn(String.format("Couldn't expire the stock reservations: %s", e.getMessage()));
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Cancels the orders still waiting for payment after the reservation time to live and releases their stock.
+     * An order cancelled meanwhile by the client or an admin is skipped, so its stock is never released twice.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of orders cancelled
+     */
+    public int expireReservations(long now) {
+        int expired = 0;
+        while (true) {
+            List<Order> orders = orderService.readUnpaidOrdersBefore(now - timeToLive, ORDERS_PER_CHECK);
+            int cancelled = 0;
+            for (Order order : orders) {
+                if (orderService.cancelOrder(order, "Payment expired")) {
+                    productService.releaseStock(order.readProductQuantities());
+                    cancelled++;
+                }
+            }
+            expired += cancelled;
+            // stop on a partial page, or when nothing could be cancelled so the same orders aren't read forever
+            if (orders.size() < ORDERS_PER_CHECK || cancelled == 0) {
+                break;
+            }
+        }
+        return expired;
+    }
+
+}
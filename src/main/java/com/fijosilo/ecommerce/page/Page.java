@@ -1,6 +1,8 @@
 package com.fijosilo.ecommerce.page;
 
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -8,11 +10,14 @@ import javax.persistence.*;
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = "title"))
 public class Page {
     @Id
-    @GenericGenerator(name = "increment", strategy = "increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "page_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     private String title;
     private String content;
+    // changed by every write, so the clients can tell if their copy of the page is still current
+    private Long lastModified;
 
     public Long getId() {
         return id;
@@ -38,4 +43,20 @@ public class Page {
         this.content = content;
     }
 
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    // called by JPA before every insert and update
+    @PrePersist
+    @PreUpdate
+    public void updateLastModified() {
+        long now = System.currentTimeMillis();
+        lastModified = lastModified == null ? now : Math.max(now, lastModified + 1);
+    }
+
 }
@@ -1,5 +1,8 @@
 package com.fijosilo.ecommerce.page;
 
+import com.fijosilo.ecommerce.cache.CacheableResponse;
+import com.fijosilo.ecommerce.cache.ETags;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,8 +19,10 @@ public class PageController {
         this.pageService = pageService;
     }
 
+    @CacheableResponse
     @GetMapping(value = "/{title}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HashMap<String, Object>> readPage(@PathVariable("title") String title) {
+    public ResponseEntity<HashMap<String, Object>> readPage(@PathVariable("title") String title,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         HashMap<String, Object> payload = new HashMap<>();
 
         // validate title
@@ -31,10 +36,15 @@ public class PageController {
             payload.put("error", "This page was not found.");
             return new ResponseEntity<>(payload, HttpStatus.NOT_FOUND);
         }
+        // the client already has this version of the page
+        String eTag = ETags.ofVersions("page", page.getId(), page.getLastModified());
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return new ResponseEntity<>(ETags.headers(eTag), HttpStatus.NOT_MODIFIED);
+        }
 
         // return content
         payload.put("page", page.getContent());
-        return new ResponseEntity<>(payload, HttpStatus.OK);
+        return new ResponseEntity<>(payload, ETags.headers(eTag), HttpStatus.OK);
     }
 
     @PostMapping(value = "/admin/page", produces = MediaType.APPLICATION_JSON_VALUE)
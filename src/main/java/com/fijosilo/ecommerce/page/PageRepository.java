@@ -1,5 +1,6 @@
 package com.fijosilo.ecommerce.page;
 
+import com.fijosilo.ecommerce.persistence.JPAEntityRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -13,22 +14,13 @@ import java.util.List;
 
 @Repository
 @Transactional
-public class PageRepository implements PageDAO {
-    @PersistenceContext
-    private EntityManager entityManager;
-
+public class PageRepository extends JPAEntityRepository implements PageDAO {
     private final Logger log = LoggerFactory.getLogger(PageRepository.class);
 
     @Override
     public boolean createPage(Page page) {
-        // if the page is already in the database don't do anything
-        Page dbPage = this.readPageByTitle(page.getTitle());
-        if (dbPage != null) {
-            return true;
-        }
-        // else save the page to the database
         try {
-            entityManager.persist(page);
+            this.save(page);
             return true;
         } catch (IllegalArgumentException | PersistenceException e) {
             log.warn(e.getMessage());
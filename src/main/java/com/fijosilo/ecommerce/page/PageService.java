@@ -1,17 +1,22 @@
 package com.fijosilo.ecommerce.page;
 
+import com.fijosilo.ecommerce.cache.CatalogVersion;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PageService {
     private final PageDAO pageDAO;
+    private final CatalogVersion catalogVersion;
 
-    public PageService(PageDAO pageDAO) {
+    public PageService(PageDAO pageDAO, CatalogVersion catalogVersion) {
         this.pageDAO = pageDAO;
+        this.catalogVersion = catalogVersion;
     }
 
     public boolean createPage(Page page) {
-        return pageDAO.createPage(page);
+        boolean isCreated = pageDAO.createPage(page);
+        catalogVersion.bump();
+        return isCreated;
     }
 
     public Page readPageByTitle(String title) {
@@ -19,11 +24,15 @@ public class PageService {
     }
 
     public boolean updatePage(Page page) {
-        return pageDAO.updatePage(page);
+        boolean isUpdated = pageDAO.updatePage(page);
+        catalogVersion.bump();
+        return isUpdated;
     }
 
     public boolean deletePage(Page page) {
-        return pageDAO.deletePage(page);
+        boolean isDeleted = pageDAO.deletePage(page);
+        catalogVersion.bump();
+        return isDeleted;
     }
 
 }
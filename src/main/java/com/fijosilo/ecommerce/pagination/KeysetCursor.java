@@ -0,0 +1,99 @@
+package com.fijosilo.ecommerce.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page, used to read the next page by seeking past it instead of skipping an offset.
+ * It's made of the value of the sort key (like the addition date or the discount) and the id used to break ties,
+ * and it's handed to the clients as an opaque token.
+ */
+public class KeysetCursor {
+    private final String key;
+    private final Long id;
+
+    private KeysetCursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * Creates a cursor for a listing sorted only by id.
+     *
+     * @param id the id of the last row of the page
+     * @return the cursor
+     */
+    public static KeysetCursor of(Long id) {
+        return new KeysetCursor(null, id);
+    }
+
+    /**
+     * Creates a cursor for a listing sorted by a key and then by id.
+     *
+     * @param key the sort key of the last row of the page
+     * @param id the id of the last row of the page
+     * @return the cursor
+     * @throws IllegalArgumentException if the key is null, the listings sorted by a key leave out the rows without one
+     */
+    public static KeysetCursor of(Number key, Long id) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("Cursor key can't be null.");
+        }
+        return new KeysetCursor(key.toString(), id);
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     *
+     * @param token the token to decode
+     * @return the cursor
+     * @throws IllegalArgumentException if the token isn't a valid cursor
+     */
+    public static KeysetCursor decode(String token) throws IllegalArgumentException {
+        String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = text.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Cursor has no id.");
+        }
+        String key = separator == 0 ? null : text.substring(0, separator);
+        Long id = Long.parseLong(text.substring(separator + 1));
+        return new KeysetCursor(key, id);
+    }
+
+    public String encode() {
+        String text = (key == null ? "" : key) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the sort key as a long
+     * @throws IllegalArgumentException if the cursor has no sort key or it isn't a long
+     */
+    public Long getLongKey() throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("Cursor has no key.");
+        }
+        return Long.parseLong(key);
+    }
+
+    /**
+     * @return the sort key as a double
+     * @throws IllegalArgumentException if the cursor has no sort key or it isn't a finite double
+     */
+    public Double getDoubleKey() throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("Cursor has no key.");
+        }
+        double doubleKey = Double.parseDouble(key);
+        // no row has a NaN or an infinite key, and seeking past one would skip or repeat every row
+        if (!Double.isFinite(doubleKey)) {
+            throw new IllegalArgumentException("Cursor key isn't a finite number.");
+        }
+        return doubleKey;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.fijosilo.ecommerce.persistence;
+
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+
+/**
+ * Base of the JPA repositories, it saves entities using the state of the persistence context
+ * instead of reading them from the database first.
+ */
+public abstract class JPAEntityRepository {
+    @PersistenceContext
+    protected EntityManager entityManager;
+
+    /**
+     * Saves the entity to the database.
+     * Managed entities are already written by the persistence context when it flushes, new entities (without an id)
+     * are persisted and detached entities are merged, so saving never needs to read the entity first.
+     * The entity is flushed, so duplicates of unique columns are rejected by the database constraints right away
+     * and the transaction is marked to roll back.
+     *
+     * @param entity the entity to save
+     * @throws IllegalArgumentException if the input isn't an entity
+     * @throws PersistenceException if the entity couldn't be saved
+     */
+    protected void save(Object entity) throws IllegalArgumentException, PersistenceException {
+        this.stage(entity);
+        this.flush();
+    }
+
+    /**
+     * Saves the entity to the persistence context without flushing it, so the entities staged together
+     * are written by the next {@link #flush()} as JDBC batches.
+     *
+     * @param entity the entity to stage
+     * @throws IllegalArgumentException if the input isn't an entity
+     * @throws PersistenceException if the entity couldn't be staged
+     */
+    protected void stage(Object entity) throws IllegalArgumentException, PersistenceException {
+        if (entityManager.contains(entity)) {
+            return;
+        }
+        if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity) == null) {
+            entityManager.persist(entity);
+        } else {
+            entityManager.merge(entity);
+        }
+    }
+
+    /**
+     * Writes the staged entities to the database.
+     * The constraints are checked now instead of when the transaction commits, so their violations reach the caller,
+     * and the transaction is marked to roll back.
+     *
+     * @throws PersistenceException if the entities couldn't be written
+     */
+    protected void flush() throws PersistenceException {
+        try {
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            // the failed write is rolled back with its transaction, which then ends without an unexpected rollback error
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            throw e;
+        }
+    }
+
+}
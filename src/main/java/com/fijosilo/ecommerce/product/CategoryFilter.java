@@ -0,0 +1,32 @@
+package com.fijosilo.ecommerce.product;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The categories a product list is filtered by.
+ * Every requested category is a group of category names, the category itself and its subcategories,
+ * and a product belongs to a group when it belongs to any of the names of the group.
+ */
+public class CategoryFilter {
+    private final List<Set<String>> groups;
+    private final CategoryMatch match;
+
+    /**
+     * @param groups the category name groups, one for each requested category
+     * @param match if the product must belong to any of the groups or to all of them
+     */
+    public CategoryFilter(List<Set<String>> groups, CategoryMatch match) {
+        this.groups = List.copyOf(groups);
+        this.match = match;
+    }
+
+    public List<Set<String>> getGroups() {
+        return groups;
+    }
+
+    public CategoryMatch getMatch() {
+        return match;
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.fijosilo.ecommerce.product;
+
+/**
+ * How the products are matched against several categories.
+ */
+public enum CategoryMatch {
+    // the product belongs to any of the categories
+    ANY("any"),
+    // the product belongs to every one of the categories
+    ALL("all");
+
+    private final String value;
+
+    CategoryMatch(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+}
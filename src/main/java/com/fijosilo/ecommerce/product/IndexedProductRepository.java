@@ -0,0 +1,254 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.category.Category;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product repository that answers the product filters from an in-memory {@link ProductIndex},
+ * the product searches from an in-memory {@link ProductSearchIndex},
+ * the type-ahead suggestions from an in-memory {@link ProductSuggestionTrie}
+ * and the novelties and promotions from in-memory {@link ProductLeaderboard}s.
+ * Every other operation goes to the JPA repository, and the product writes keep the indexes up to date
+ * once their transaction commits, so a write that is rolled back never reaches the indexes.
+ * The indexes are loaded when the app starts.
+ */
+@Repository("IndexedProductRepository")
+@Transactional
+public class IndexedProductRepository implements ProductDAO {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ProductDAO productDAO;
+    private final ProductIndex productIndex = new ProductIndex();
+    private final ProductSearchIndex productSearchIndex = new ProductSearchIndex();
+    private final ProductSuggestionTrie productSuggestionTrie = new ProductSuggestionTrie();
+    // enabled products with an addition date from the newest
+    private final ProductLeaderboard<Long> novelties = new ProductLeaderboard<>(Product::getAdditionDate,
+            product -> product.isEnabled() && product.getAdditionDate() != null);
+    // enabled products with a discount from the biggest discount
+    private final ProductLeaderboard<Double> promotions = new ProductLeaderboard<>(Product::getDiscount,
+            product -> product.isEnabled() && product.getDiscount() > 0.0);
+    private volatile boolean isIndexLoaded = false;
+
+    private static final Logger log = LoggerFactory.getLogger(IndexedProductRepository.class);
+
+    public IndexedProductRepository(@Qualifier("JPAProductRepository") ProductDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+
+    @Override
+    public boolean createProduct(Product product) {
+        if (!productDAO.createProduct(product)) {
+            return false;
+        }
+        this.indexProduct(product);
+        return true;
+    }
+
+    @Override
+    public Product readProductByCode(String code) {
+        return productDAO.readProductByCode(code);
+    }
+
+    @Override
+    public Map<String, Product> readProductsByCodes(Collection<String> codes) {
+        return productDAO.readProductsByCodes(codes);
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByFilters(String name, Double minPrice, Double maxPrice, String brand,
+                                                      CategoryFilter categoryFilter, Integer maxProductsPerPage, Integer pageNumber) {
+        this.loadIndex();
+        return productIndex.search(name, minPrice, maxPrice, brand, categoryFilter,
+                (pageNumber - 1) * maxProductsPerPage, maxProductsPerPage);
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByFiltersAfter(String name, Double minPrice, Double maxPrice, String brand,
+                                                           CategoryFilter categoryFilter, Integer maxProductsPerPage, KeysetCursor after) {
+        this.loadIndex();
+        return productIndex.searchAfter(name, minPrice, maxPrice, brand, categoryFilter,
+                after == null ? null : after.getId(), maxProductsPerPage);
+    }
+
+    @Override
+    public List<ProductSummary> readProductsBySearch(String query, Integer maxProductsPerPage, Integer pageNumber) {
+        this.loadIndex();
+        return productSearchIndex.search(query, (pageNumber - 1) * maxProductsPerPage, maxProductsPerPage);
+    }
+
+    @Override
+    public List<ProductSuggestion> readProductSuggestions(String prefix, Integer maxSuggestions) {
+        this.loadIndex();
+        return productSuggestionTrie.suggest(prefix, maxSuggestions);
+    }
+
+    @Override
+    public ProductFacets readProductFacets(String name, Double minPrice, Double maxPrice, String brand,
+                                           CategoryFilter categoryFilter, double[] priceBandEdges) {
+        this.loadIndex();
+        return productIndex.facets(name, minPrice, maxPrice, brand, categoryFilter, priceBandEdges);
+    }
+
+    @Override
+    public boolean updateProduct(Product product) {
+        if (!productDAO.updateProduct(product)) {
+            return false;
+        }
+        this.indexProduct(product);
+        return true;
+    }
+
+    @Override
+    public boolean deleteProduct(Product product) {
+        if (!productDAO.deleteProduct(product)) {
+            return false;
+        }
+        this.indexProduct(product);
+        return true;
+    }
+
+    /**
+     * Indexes again the products of the category, so a category update like a rename reaches the indexes.
+     */
+    @Override
+    public void reindexProductsByCategory(Category category) {
+        List<Product> products = entityManager.createQuery(
+                "SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.productBrand LEFT JOIN FETCH p.categories "
+                        + "WHERE p.id IN (SELECT cp.id FROM Product cp JOIN cp.categories c WHERE c.id = :categoryId)",
+                Product.class).setParameter("categoryId", category.getId()).getResultList();
+        for (Product product : products) {
+            this.indexProduct(product);
+        }
+    }
+
+    @Override
+    public boolean reserveStock(Map<Product, Integer> quantities) {
+        return productDAO.reserveStock(quantities);
+    }
+
+    @Override
+    public boolean releaseStock(Map<Product, Integer> quantities) {
+        return productDAO.releaseStock(quantities);
+    }
+
+    @Override
+    public boolean changeStock(Product product, int change) {
+        return productDAO.changeStock(product, change);
+    }
+
+    @Override
+    public boolean createProductBrand(ProductBrand productBrand) {
+        return productDAO.createProductBrand(productBrand);
+    }
+
+    @Override
+    public ProductBrand readProductBrandByBrand(String brand) {
+        return productDAO.readProductBrandByBrand(brand);
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByDescendingDate(Integer maxProductsPerPage, Integer pageNumber) {
+        this.loadIndex();
+        return novelties.page((pageNumber - 1) * maxProductsPerPage, maxProductsPerPage);
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByDescendingDiscount(Integer maxProductsPerPage, Integer pageNumber) {
+        this.loadIndex();
+        return promotions.page((pageNumber - 1) * maxProductsPerPage, maxProductsPerPage);
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByDescendingDateAfter(Integer maxProductsPerPage, KeysetCursor after) {
+        this.loadIndex();
+        if (after == null) {
+            return novelties.page(0, maxProductsPerPage);
+        }
+        return novelties.pageAfter(after.getLongKey(), after.getId(), maxProductsPerPage);
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByDescendingDiscountAfter(Integer maxProductsPerPage, KeysetCursor after) {
+        this.loadIndex();
+        if (after == null) {
+            return promotions.page(0, maxProductsPerPage);
+        }
+        return promotions.pageAfter(after.getDoubleKey(), after.getId(), maxProductsPerPage);
+    }
+
+    private void indexProduct(Product product) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.putInIndexes(product);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                putInIndexes(product);
+            }
+        });
+    }
+
+    private void putInIndexes(Product product) {
+        productIndex.put(product);
+        productSearchIndex.put(product);
+        productSuggestionTrie.put(product);
+        novelties.put(product);
+        promotions.put(product);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexes() {
+        try {
+            this.loadIndex();
+        } catch (RuntimeException e) {
+            // the app still starts, the first read that needs the indexes loads them again
+            log.warn(String.format("Couldn't load the product indexes: %s", e.getMessage()));
+        }
+    }
+
+    // the indexes are loaded from the database when the app starts, or by the first read that needs them if that failed
+    private void loadIndex() {
+        if (isIndexLoaded) {
+            return;
+        }
+        synchronized (productIndex) {
+            if (isIndexLoaded) {
+                return;
+            }
+            List<Product> products = entityManager.createQuery(
+                    "SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.productBrand LEFT JOIN FETCH p.categories ORDER BY p.id",
+                    Product.class).getResultList();
+            for (Product product : products) {
+                // products written while the index was loading are already indexed with their latest state
+                productIndex.putIfAbsent(product);
+                productSearchIndex.putIfAbsent(product);
+                productSuggestionTrie.putIfAbsent(product);
+                novelties.putIfAbsent(product);
+                promotions.putIfAbsent(product);
+            }
+            isIndexLoaded = true;
+            log.info(String.format("Product index loaded with %d products", productIndex.size()));
+            log.info(String.format("Product search index loaded with %d enabled products", productSearchIndex.size()));
+            log.info(String.format("Product novelties loaded with %d products and promotions with %d products",
+                    novelties.size(), promotions.size()));
+        }
+    }
+
+}
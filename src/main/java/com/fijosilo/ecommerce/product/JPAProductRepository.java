@@ -1,39 +1,31 @@
 package com.fijosilo.ecommerce.product;
 
 import com.fijosilo.ecommerce.category.Category;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
+import com.fijosilo.ecommerce.persistence.JPAEntityRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.Metamodel;
 import javax.transaction.Transactional;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 @Repository("JPAProductRepository")
 @Transactional
-public class JPAProductRepository implements ProductDAO {
-    @PersistenceContext
-    private EntityManager entityManager;
-
+public class JPAProductRepository extends JPAEntityRepository implements ProductDAO {
     private static final Logger log = LoggerFactory.getLogger(JPAProductRepository.class);
 
     @Override
     public boolean createProduct(Product product) {
-        // if the product is already in the database don't do anything
-        Product dbProduct = this.readProductByCode(product.getCode());
-        if (dbProduct != null) {
-            return true;
-        }
-        // else save the product to the database
         try {
-            entityManager.persist(product);
+            this.save(product);
             return true;
         } catch (IllegalArgumentException | PersistenceException e) {
             log.warn(e.getMessage());
@@ -46,24 +38,214 @@ public class JPAProductRepository implements ProductDAO {
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Product> builderQuery = criteriaBuilder.createQuery(Product.class);
         Root<Product> productRoot = builderQuery.from(Product.class);
+        // the product is cached outside of the persistence context, so its collections are fetched with it
+        productRoot.fetch("categories", JoinType.LEFT);
+        productRoot.fetch("imagesURL", JoinType.LEFT);
         builderQuery.where(criteriaBuilder.equal(productRoot.get("code"), code));
-        CriteriaQuery<Product> select = builderQuery.select(productRoot);
-        TypedQuery<Product> typedQuery = entityManager.createQuery(select).setMaxResults(1);
+        CriteriaQuery<Product> select = builderQuery.select(productRoot).distinct(true);
+        TypedQuery<Product> typedQuery = entityManager.createQuery(select);
         List<Product> productList = typedQuery.getResultList();
         return productList.isEmpty() ? null : productList.get(0);
     }
 
     @Override
-    public List<Product> readProductsByFilters(String name, Double minPrice, Double maxPrice, String brand,
-                                               List<String> categoryNames, Integer maxProductsPerPage, Integer pageNumber) {
+    public Map<String, Product> readProductsByCodes(Collection<String> codes) {
+        Map<String, Product> products = new HashMap<>();
+        if (codes.isEmpty()) {
+            return products;
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> builderQuery = criteriaBuilder.createQuery(Product.class);
+        Root<Product> productRoot = builderQuery.from(Product.class);
+        builderQuery.where(productRoot.get("code").in(new HashSet<>(codes)));
+        CriteriaQuery<Product> select = builderQuery.select(productRoot);
+        TypedQuery<Product> typedQuery = entityManager.createQuery(select);
+        for (Product product : typedQuery.getResultList()) {
+            products.put(product.getCode(), product);
+        }
+        return products;
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByFilters(String name, Double minPrice, Double maxPrice, String brand,
+                                                      CategoryFilter categoryFilter, Integer maxProductsPerPage, Integer pageNumber) {
         // initialize the query
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Product> criteriaQuery = criteriaBuilder.createQuery(Product.class);
+        CriteriaQuery<ProductSummary> criteriaQuery = criteriaBuilder.createQuery(ProductSummary.class);
         Metamodel metamodel = entityManager.getMetamodel();
         EntityType Product_ = metamodel.entity(Product.class);
         Root<Product> product = criteriaQuery.from(Product_);
+        Join<Product, ProductBrand> productBrand = product.join("productBrand", JoinType.LEFT);
 
         // generate the query conditions
+        List<Predicate> predicates = this.filterPredicates(criteriaBuilder, criteriaQuery, product, productBrand,
+                name, minPrice, maxPrice, brand, categoryFilter);
+
+        // execute query and get the result
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(this.summarySelection(criteriaBuilder, product, productBrand))
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.asc(product.get("id")))
+        );
+        typedQuery.setFirstResult((pageNumber - 1) * maxProductsPerPage);
+        typedQuery.setMaxResults(maxProductsPerPage);
+        List<ProductSummary> productList = typedQuery.getResultList();
+        return productList;
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByFiltersAfter(String name, Double minPrice, Double maxPrice, String brand,
+                                                           CategoryFilter categoryFilter, Integer maxProductsPerPage, KeysetCursor after) {
+        // initialize the query
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> criteriaQuery = criteriaBuilder.createQuery(ProductSummary.class);
+        Metamodel metamodel = entityManager.getMetamodel();
+        EntityType Product_ = metamodel.entity(Product.class);
+        Root<Product> product = criteriaQuery.from(Product_);
+        Join<Product, ProductBrand> productBrand = product.join("productBrand", JoinType.LEFT);
+
+        // generate the query conditions
+        List<Predicate> predicates = this.filterPredicates(criteriaBuilder, criteriaQuery, product, productBrand,
+                name, minPrice, maxPrice, brand, categoryFilter);
+        // seek past the last product of the previous page
+        if (after != null) {
+            predicates.add(criteriaBuilder.gt(product.get("id"), after.getId()));
+        }
+
+        // execute query and get the result
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(this.summarySelection(criteriaBuilder, product, productBrand))
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.asc(product.get("id")))
+        );
+        typedQuery.setMaxResults(maxProductsPerPage);
+        List<ProductSummary> productList = typedQuery.getResultList();
+        return productList;
+    }
+
+    /**
+     * Searches without a full-text index, so the products are matched by their name and description
+     * containing every word of the query and are returned in id order, not by relevance.
+     */
+    @Override
+    public List<ProductSummary> readProductsBySearch(String query, Integer maxProductsPerPage, Integer pageNumber) {
+        // initialize the query
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> criteriaQuery = criteriaBuilder.createQuery(ProductSummary.class);
+        Root<Product> product = criteriaQuery.from(Product.class);
+        Join<Product, ProductBrand> productBrand = product.join("productBrand", JoinType.LEFT);
+
+        // generate the query conditions
+        List<Predicate> predicates = new LinkedList<>();
+        predicates.add(criteriaBuilder.equal(product.get("isEnabled"), true));
+        for (String word : ProductIndex.tokenize(query)) {
+            String pattern = "%" + word + "%";
+            predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.like(criteriaBuilder.lower(product.get("name")), pattern),
+                    criteriaBuilder.like(criteriaBuilder.lower(product.get("description")), pattern)));
+        }
+
+        // execute query and get the result
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(this.summarySelection(criteriaBuilder, product, productBrand))
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.asc(product.get("id")))
+        );
+        typedQuery.setFirstResult((pageNumber - 1) * maxProductsPerPage);
+        typedQuery.setMaxResults(maxProductsPerPage);
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * Suggests the enabled products and the brands whose names start with the prefix, from the newest product,
+     * without the suggestion trie the products aren't suggested by the later words of their names.
+     */
+    @Override
+    public List<ProductSuggestion> readProductSuggestions(String prefix, Integer maxSuggestions) {
+        String pattern = String.join(" ", ProductIndex.tokenize(prefix)) + "%";
+        List<ProductSuggestion> suggestions = new ArrayList<>();
+
+        List<Object[]> products = entityManager.createQuery(
+                "SELECT p.name, p.code, p.additionDate FROM Product p " +
+                        "WHERE p.isEnabled = true AND LOWER(p.name) LIKE :pattern ORDER BY p.additionDate DESC", Object[].class)
+                .setParameter("pattern", pattern)
+                .setMaxResults(maxSuggestions)
+                .getResultList();
+        for (Object[] product : products) {
+            suggestions.add(new ProductSuggestion(SuggestionType.PRODUCT, (String) product[0], (String) product[1],
+                    product[2] == null ? 0 : (Long) product[2]));
+        }
+
+        List<Object[]> brands = entityManager.createQuery(
+                "SELECT b.brand, MAX(p.additionDate) FROM Product p JOIN p.productBrand b " +
+                        "WHERE p.isEnabled = true AND LOWER(b.brand) LIKE :pattern GROUP BY b.brand " +
+                        "ORDER BY MAX(p.additionDate) DESC", Object[].class)
+                .setParameter("pattern", pattern)
+                .setMaxResults(maxSuggestions)
+                .getResultList();
+        for (Object[] brand : brands) {
+            suggestions.add(new ProductSuggestion(SuggestionType.BRAND, (String) brand[0], null,
+                    brand[1] == null ? 0 : (Long) brand[1]));
+        }
+
+        suggestions.sort(Comparator.comparingLong(ProductSuggestion::getRank).reversed());
+        return suggestions.subList(0, Math.min(maxSuggestions, suggestions.size()));
+    }
+
+    @Override
+    public ProductFacets readProductFacets(String name, Double minPrice, Double maxPrice, String brand,
+                                           CategoryFilter categoryFilter, double[] priceBandEdges) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        ProductFacets facets = new ProductFacets(priceBandEdges);
+
+        // one grouped query for each facet, each one without the facet's own filter
+        CriteriaQuery<Tuple> brandQuery = criteriaBuilder.createTupleQuery();
+        Root<Product> brandProduct = brandQuery.from(Product.class);
+        Join<Product, ProductBrand> brandProductBrand = brandProduct.join("productBrand");
+        List<Predicate> brandPredicates = this.filterPredicates(criteriaBuilder, brandQuery, brandProduct, brandProductBrand,
+                name, minPrice, maxPrice, null, categoryFilter);
+        brandQuery.multiselect(brandProductBrand.get("brand"), criteriaBuilder.count(brandProduct))
+                .where(brandPredicates.toArray(new Predicate[]{}))
+                .groupBy(brandProductBrand.get("brand"));
+        for (Tuple tuple : entityManager.createQuery(brandQuery).getResultList()) {
+            facets.countBrand(tuple.get(0, String.class), tuple.get(1, Long.class).intValue());
+        }
+
+        CriteriaQuery<Tuple> categoryQuery = criteriaBuilder.createTupleQuery();
+        Root<Product> categoryProduct = categoryQuery.from(Product.class);
+        Join<Product, ProductBrand> categoryProductBrand = categoryProduct.join("productBrand", JoinType.LEFT);
+        Join<Product, Category> category = categoryProduct.join("categories");
+        List<Predicate> categoryPredicates = this.filterPredicates(criteriaBuilder, categoryQuery, categoryProduct, categoryProductBrand,
+                name, minPrice, maxPrice, brand, null);
+        categoryQuery.multiselect(category.get("name"), criteriaBuilder.count(categoryProduct))
+                .where(categoryPredicates.toArray(new Predicate[]{}))
+                .groupBy(category.get("name"));
+        for (Tuple tuple : entityManager.createQuery(categoryQuery).getResultList()) {
+            facets.countCategory(tuple.get(0, String.class), tuple.get(1, Long.class).intValue());
+        }
+
+        // the products are counted by price and the prices are put in their bands here
+        CriteriaQuery<Tuple> priceQuery = criteriaBuilder.createTupleQuery();
+        Root<Product> priceProduct = priceQuery.from(Product.class);
+        Join<Product, ProductBrand> priceProductBrand = priceProduct.join("productBrand", JoinType.LEFT);
+        List<Predicate> pricePredicates = this.filterPredicates(criteriaBuilder, priceQuery, priceProduct, priceProductBrand,
+                name, null, null, brand, categoryFilter);
+        priceQuery.multiselect(priceProduct.get("price"), criteriaBuilder.count(priceProduct))
+                .where(pricePredicates.toArray(new Predicate[]{}))
+                .groupBy(priceProduct.get("price"));
+        for (Tuple tuple : entityManager.createQuery(priceQuery).getResultList()) {
+            facets.countPrice(tuple.get(0, Double.class), tuple.get(1, Long.class).intValue());
+        }
+
+        return facets;
+    }
+
+    private List<Predicate> filterPredicates(CriteriaBuilder criteriaBuilder, AbstractQuery<?> query, Root<Product> product,
+                                             Join<Product, ProductBrand> productBrand, String name, Double minPrice,
+                                             Double maxPrice, String brand, CategoryFilter categoryFilter) {
         List<Predicate> predicates = new LinkedList<>();
         if (name != null) {
             predicates.add(criteriaBuilder.like(product.get("name"), name));
@@ -72,24 +254,78 @@ public class JPAProductRepository implements ProductDAO {
             predicates.add(criteriaBuilder.between(product.get("price"), minPrice, maxPrice));
         }
         if (brand != null) {
-            Join<Product, ProductBrand> productBrand = product.join(Product_.getSingularAttribute("productBrand"));
             predicates.add(criteriaBuilder.equal(productBrand.get("brand"), brand));
         }
-        if (categoryNames != null) {
-            EntityType Category_ = metamodel.entity(Category.class);
-            SetJoin<Product, Category> categories = product.join(Product_.getSet("categories", Category.class));
-            for (String category : categoryNames) {
-                categories.on(criteriaBuilder.equal(categories.get("category"), category));
-            }
+        if (categoryFilter != null) {
+            predicates.add(this.categoryPredicate(criteriaBuilder, query, product, categoryFilter));
         }
+        return predicates;
+    }
 
-        // execute query and get the result
-        TypedQuery<Product> typedQuery = entityManager.createQuery(
-                criteriaQuery.select(product).where(predicates.toArray(new Predicate[]{})));
-        typedQuery.setFirstResult((pageNumber - 1) * maxProductsPerPage);
-        typedQuery.setMaxResults(maxProductsPerPage);
-        List<Product> productList = typedQuery.getResultList();
-        return productList;
+    /**
+     * Matches the products against the categories with semi-joins on the product categories,
+     * so the page query still returns one row per product and can be paged by the database.
+     * Any of the categories is a single IN subquery over every category name, all of the categories is a subquery
+     * grouped by product that counts the matched names when every category is a single name,
+     * or an IN subquery for each category when the categories have subcategories.
+     */
+    private Predicate categoryPredicate(CriteriaBuilder criteriaBuilder, AbstractQuery<?> query, Root<Product> product,
+                                        CategoryFilter categoryFilter) {
+        Set<String> names = new HashSet<>();
+        boolean isEveryGroupSingle = true;
+        for (Set<String> group : categoryFilter.getGroups()) {
+            names.addAll(group);
+            isEveryGroupSingle &= group.size() == 1;
+        }
+        if (names.isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        if (categoryFilter.getMatch() == CategoryMatch.ANY) {
+            return product.get("id").in(this.productIdsInCategories(query, names));
+        }
+        if (isEveryGroupSingle) {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Product> categoryProduct = subquery.from(Product.class);
+            Join<Product, Category> category = categoryProduct.join("categories");
+            subquery.select(categoryProduct.get("id"))
+                    .where(category.get("name").in(names))
+                    .groupBy(categoryProduct.get("id"))
+                    .having(criteriaBuilder.equal(criteriaBuilder.countDistinct(category.get("name")), (long) names.size()));
+            return product.get("id").in(subquery);
+        }
+        List<Predicate> groupPredicates = new ArrayList<>();
+        for (Set<String> group : categoryFilter.getGroups()) {
+            groupPredicates.add(product.get("id").in(this.productIdsInCategories(query, group)));
+        }
+        return criteriaBuilder.and(groupPredicates.toArray(new Predicate[]{}));
+    }
+
+    private Subquery<Long> productIdsInCategories(AbstractQuery<?> query, Set<String> names) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<Product> categoryProduct = subquery.from(Product.class);
+        Join<Product, Category> category = categoryProduct.join("categories");
+        return subquery.select(categoryProduct.get("id")).where(category.get("name").in(names));
+    }
+
+    /**
+     * Selects the summary of the product straight from the query, so the lists don't load product entities.
+     *
+     * @param criteriaBuilder the criteria builder of the query
+     * @param product the product root of the query
+     * @param productBrand the left join of the product brand
+     * @return the product summary selection
+     */
+    private CompoundSelection<ProductSummary> summarySelection(CriteriaBuilder criteriaBuilder, Root<Product> product,
+                                                               Join<Product, ProductBrand> productBrand) {
+        return criteriaBuilder.construct(ProductSummary.class,
+                product.get("id"),
+                product.get("code"),
+                product.get("name"),
+                product.get("price"),
+                product.get("discount"),
+                product.get("thumbnailURL"),
+                productBrand.get("brand"),
+                product.get("additionDate"));
     }
 
     @Override
@@ -111,15 +347,116 @@ public class JPAProductRepository implements ProductDAO {
     }
 
     @Override
-    public boolean createProductBrand(ProductBrand productBrand) {
-        // if the product brand is already in the database don't do anything
-        ProductBrand dbProductBrand = this.readProductBrandByBrand(productBrand.getBrand());
-        if (dbProductBrand != null) {
+    public void reindexProductsByCategory(Category category) {
+        // the products are read from the database, there's no index to keep up to date
+    }
+
+    @Override
+    public boolean reserveStock(Map<Product, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return true;
+        }
+        Map<Long, Integer> quantitiesById = this.quantitiesById(quantities);
+        try {
+            // lock the product rows in id order, so concurrent checkouts of the same products wait for each other
+            // instead of deadlocking, and no other checkout takes the stock between the check and the update
+            List<?> rows = entityManager.createNativeQuery(
+                    "SELECT id, stock FROM product WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+                    .setParameter("ids", quantitiesById.keySet())
+                    .getResultList();
+            if (rows.size() != quantitiesById.size()) {
+                return false;
+            }
+            for (Object row : rows) {
+                Object[] columns = (Object[]) row;
+                long id = ((Number) columns[0]).longValue();
+                int stock = ((Number) columns[1]).intValue();
+                if (stock < quantitiesById.get(id)) {
+                    return false;
+                }
+            }
+            return this.updateStock(quantitiesById, -1) == quantitiesById.size();
+        } catch (IllegalArgumentException | PersistenceException e) {
+            log.warn(e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean releaseStock(Map<Product, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return true;
+        }
+        try {
+            this.updateStock(this.quantitiesById(quantities), 1);
             return true;
+        } catch (IllegalArgumentException | PersistenceException e) {
+            log.warn(e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean changeStock(Product product, int change) {
+        try {
+            // the change is added to the stock as it is now, a change that takes more units than are left empties it
+            int updated = entityManager.createNativeQuery("UPDATE product SET stock = GREATEST(stock + :change, 0), "
+                            + "last_modified = GREATEST(:now, COALESCE(last_modified, 0) + 1) WHERE id = :id")
+                    .setParameter("change", change)
+                    .setParameter("now", System.currentTimeMillis())
+                    .setParameter("id", product.getId())
+                    .executeUpdate();
+            return updated == 1;
+        } catch (IllegalArgumentException | PersistenceException e) {
+            log.warn(e.getMessage());
+            return false;
         }
-        // else save the product brand to the database
+    }
+
+    private Map<Long, Integer> quantitiesById(Map<Product, Integer> quantities) {
+        Map<Long, Integer> quantitiesById = new TreeMap<>();
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            quantitiesById.merge(entry.getKey().getId(), entry.getValue(), Integer::sum);
+        }
+        return quantitiesById;
+    }
+
+    /**
+     * Changes the stock of a list of products with a single statement.
+     * Stock is only ever taken from products that have enough of it, so the stock never goes negative.
+     *
+     * @param quantitiesById the quantities by product id
+     * @param sign 1 to add the quantities to the stock, -1 to take them from the stock
+     * @return the number of products updated
+     */
+    private int updateStock(Map<Long, Integer> quantitiesById, int sign) {
+        StringBuilder change = new StringBuilder("CASE id");
+        for (int i = 0; i < quantitiesById.size(); i++) {
+            change.append(" WHEN :id").append(i).append(" THEN :quantity").append(i);
+        }
+        change.append(" END");
+        // the statement skips the entity callbacks, so it moves the version of the products itself
+        String sql = "UPDATE product SET stock = stock + " + change
+                + ", last_modified = GREATEST(:now, COALESCE(last_modified, 0) + 1) WHERE id IN (:ids)";
+        if (sign < 0) {
+            sql += " AND stock + " + change + " >= 0";
+        }
+        Query query = entityManager.createNativeQuery(sql);
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : quantitiesById.entrySet()) {
+            query.setParameter("id" + i, entry.getKey());
+            query.setParameter("quantity" + i, sign * entry.getValue());
+            i++;
+        }
+        query.setParameter("ids", quantitiesById.keySet());
+        query.setParameter("now", System.currentTimeMillis());
+        return query.executeUpdate();
+    }
+
+    @Override
+    public boolean createProductBrand(ProductBrand productBrand) {
         try {
-            entityManager.persist(productBrand);
+            this.save(productBrand);
             return true;
         } catch (IllegalArgumentException | PersistenceException e) {
             log.warn(e.getMessage());
@@ -140,35 +477,39 @@ public class JPAProductRepository implements ProductDAO {
     }
 
     @Override
-    public List<Product> readProductsByDescendingDate(Integer maxProductsPerPage, Integer pageNumber) {
+    public List<ProductSummary> readProductsByDescendingDate(Integer maxProductsPerPage, Integer pageNumber) {
         // initialize the query
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Product> criteriaQuery = criteriaBuilder.createQuery(Product.class);
+        CriteriaQuery<ProductSummary> criteriaQuery = criteriaBuilder.createQuery(ProductSummary.class);
         Metamodel metamodel = entityManager.getMetamodel();
         EntityType Product_ = metamodel.entity(Product.class);
         Root<Product> productRoot = criteriaQuery.from(Product_);
+        Join<Product, ProductBrand> productBrand = productRoot.join("productBrand", JoinType.LEFT);
 
         // execute query and get the result
-        TypedQuery<Product> typedQuery = entityManager.createQuery(
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(
                 criteriaQuery
-                        .select(productRoot)
-                        .where(criteriaBuilder.equal(productRoot.get("isEnabled"), true))
-                        .orderBy(criteriaBuilder.desc(productRoot.get("additionDate")))
+                        .select(this.summarySelection(criteriaBuilder, productRoot, productBrand))
+                        // products without an addition date aren't novelties, and they couldn't be a cursor key
+                        .where(criteriaBuilder.equal(productRoot.get("isEnabled"), true),
+                                criteriaBuilder.isNotNull(productRoot.get("additionDate")))
+                        .orderBy(criteriaBuilder.desc(productRoot.get("additionDate")), criteriaBuilder.desc(productRoot.get("id")))
         );
         typedQuery.setFirstResult((pageNumber - 1) * maxProductsPerPage);
         typedQuery.setMaxResults(maxProductsPerPage);
-        List<Product> productList = typedQuery.getResultList();
+        List<ProductSummary> productList = typedQuery.getResultList();
         return productList;
     }
 
     @Override
-    public List<Product> readProductsByDescendingDiscount(Integer maxProductsPerPage, Integer pageNumber) {
+    public List<ProductSummary> readProductsByDescendingDiscount(Integer maxProductsPerPage, Integer pageNumber) {
         // initialize the query
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Product> criteriaQuery = criteriaBuilder.createQuery(Product.class);
+        CriteriaQuery<ProductSummary> criteriaQuery = criteriaBuilder.createQuery(ProductSummary.class);
         Metamodel metamodel = entityManager.getMetamodel();
         EntityType Product_ = metamodel.entity(Product.class);
         Root<Product> productRoot = criteriaQuery.from(Product_);
+        Join<Product, ProductBrand> productBrand = productRoot.join("productBrand", JoinType.LEFT);
 
         // generate the query conditions
         List<Predicate> predicates = new LinkedList<>();
@@ -176,15 +517,91 @@ public class JPAProductRepository implements ProductDAO {
         predicates.add(criteriaBuilder.gt(productRoot.get("discount"), 0.0));
 
         // execute query and get the result
-        TypedQuery<Product> typedQuery = entityManager.createQuery(
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(
                 criteriaQuery
-                        .select(productRoot)
+                        .select(this.summarySelection(criteriaBuilder, productRoot, productBrand))
                         .where(predicates.toArray(new Predicate[]{}))
-                        .orderBy(criteriaBuilder.desc(productRoot.get("discount")))
+                        .orderBy(criteriaBuilder.desc(productRoot.get("discount")), criteriaBuilder.desc(productRoot.get("id")))
         );
         typedQuery.setFirstResult((pageNumber - 1) * maxProductsPerPage);
         typedQuery.setMaxResults(maxProductsPerPage);
-        List<Product> productList = typedQuery.getResultList();
+        List<ProductSummary> productList = typedQuery.getResultList();
+        return productList;
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByDescendingDateAfter(Integer maxProductsPerPage, KeysetCursor after) {
+        // initialize the query
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> criteriaQuery = criteriaBuilder.createQuery(ProductSummary.class);
+        Metamodel metamodel = entityManager.getMetamodel();
+        EntityType Product_ = metamodel.entity(Product.class);
+        Root<Product> productRoot = criteriaQuery.from(Product_);
+        Join<Product, ProductBrand> productBrand = productRoot.join("productBrand", JoinType.LEFT);
+
+        // generate the query conditions
+        List<Predicate> predicates = new LinkedList<>();
+        predicates.add(criteriaBuilder.equal(productRoot.get("isEnabled"), true));
+        predicates.add(criteriaBuilder.isNotNull(productRoot.get("additionDate")));
+        // seek past the last product of the previous page
+        if (after != null) {
+            Long additionDate = after.getLongKey();
+            predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.lt(productRoot.get("additionDate"), additionDate),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(productRoot.get("additionDate"), additionDate),
+                            criteriaBuilder.lt(productRoot.get("id"), after.getId())
+                    )
+            ));
+        }
+
+        // execute query and get the result
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(this.summarySelection(criteriaBuilder, productRoot, productBrand))
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.desc(productRoot.get("additionDate")), criteriaBuilder.desc(productRoot.get("id")))
+        );
+        typedQuery.setMaxResults(maxProductsPerPage);
+        List<ProductSummary> productList = typedQuery.getResultList();
+        return productList;
+    }
+
+    @Override
+    public List<ProductSummary> readProductsByDescendingDiscountAfter(Integer maxProductsPerPage, KeysetCursor after) {
+        // initialize the query
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> criteriaQuery = criteriaBuilder.createQuery(ProductSummary.class);
+        Metamodel metamodel = entityManager.getMetamodel();
+        EntityType Product_ = metamodel.entity(Product.class);
+        Root<Product> productRoot = criteriaQuery.from(Product_);
+        Join<Product, ProductBrand> productBrand = productRoot.join("productBrand", JoinType.LEFT);
+
+        // generate the query conditions
+        List<Predicate> predicates = new LinkedList<>();
+        predicates.add(criteriaBuilder.equal(productRoot.get("isEnabled"), true));
+        predicates.add(criteriaBuilder.gt(productRoot.get("discount"), 0.0));
+        // seek past the last product of the previous page
+        if (after != null) {
+            Double discount = after.getDoubleKey();
+            predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.lt(productRoot.get("discount"), discount),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(productRoot.get("discount"), discount),
+                            criteriaBuilder.lt(productRoot.get("id"), after.getId())
+                    )
+            ));
+        }
+
+        // execute query and get the result
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(
+                criteriaQuery
+                        .select(this.summarySelection(criteriaBuilder, productRoot, productBrand))
+                        .where(predicates.toArray(new Predicate[]{}))
+                        .orderBy(criteriaBuilder.desc(productRoot.get("discount")), criteriaBuilder.desc(productRoot.get("id")))
+        );
+        typedQuery.setMaxResults(maxProductsPerPage);
+        List<ProductSummary> productList = typedQuery.getResultList();
         return productList;
     }
 
@@ -0,0 +1,65 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.persistence.JPAEntityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.PersistenceException;
+import javax.transaction.Transactional;
+
+@Repository("JPAStockLedgerRepository")
+@Transactional
+public class JPAStockLedgerRepository extends JPAEntityRepository implements StockLedgerDAO {
+    private static final Logger log = LoggerFactory.getLogger(JPAStockLedgerRepository.class);
+
+    @Override
+    public ProductStockFlush readStockFlush(Long productId) {
+        return entityManager.find(ProductStockFlush.class, productId);
+    }
+
+    @Override
+    public int readReservedStockSince(Long productId, Long date) {
+        // units can be reserved for an order after it's made, like by an admin adding products to it,
+        // so every order changed since the date is counted with all of its units
+        // cancelled orders are fulfilled without being paid, their units were given back
+        Long reserved = entityManager.createQuery("SELECT SUM(op.quantity) FROM Order o JOIN o.products op "
+                        + "WHERE op.product.id = :productId AND o.lastModified >= :date "
+                        + "AND (o.isPaid = :paid OR o.isFulfilled = :fulfilled)",
+                        Long.class)
+                .setParameter("productId", productId)
+                .setParameter("date", date)
+                .setParameter("paid", true)
+                .setParameter("fulfilled", false)
+                .getSingleResult();
+        return reserved == null ? 0 : reserved.intValue();
+    }
+
+    @Override
+    public boolean writeStock(Long productId, int change, Long date) {
+        try {
+            // the stock and the date of the write are changed together, so a restart never applies a change twice,
+            // without a change only the date is written, so the version of the product doesn't move
+            if (change != 0) {
+                entityManager.createNativeQuery("UPDATE product SET stock = stock + :change, "
+                                + "last_modified = GREATEST(:now, COALESCE(last_modified, 0) + 1) WHERE id = :id")
+                        .setParameter("change", change)
+                        .setParameter("now", System.currentTimeMillis())
+                        .setParameter("id", productId)
+                        .executeUpdate();
+            }
+            ProductStockFlush flush = entityManager.find(ProductStockFlush.class, productId);
+            if (flush == null) {
+                this.stage(new ProductStockFlush(productId, date));
+            } else {
+                flush.setDate(date);
+            }
+            this.flush();
+            return true;
+        } catch (IllegalArgumentException | PersistenceException e) {
+            log.warn(e.getMessage());
+            return false;
+        }
+    }
+
+}
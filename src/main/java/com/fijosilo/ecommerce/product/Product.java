@@ -1,7 +1,10 @@
 package com.fijosilo.ecommerce.product;
 
 import com.fijosilo.ecommerce.category.Category;
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.HashSet;
@@ -12,8 +15,9 @@ import java.util.Set;
 @Table(name = "product", uniqueConstraints = @UniqueConstraint(columnNames = {"code"}))
 public class Product {
     @Id
-    @GenericGenerator(name="increment", strategy="increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "product_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     private String code;
     @ManyToOne
@@ -21,16 +25,24 @@ public class Product {
     private String name;
     private String description;
     private double price;
+    // the stock is only changed by statements that add to it, so saving a product never overwrites the units
+    // reserved since it was read
+    @Column(updatable = false)
     private int stock;
     private String thumbnailURL;
 
     private double discount;
+    // the images and categories of a list of products are read in batches instead of one query per product
     @ElementCollection
+    @BatchSize(size = 50)
     private List<String> imagesURL;
     @ManyToMany
+    @BatchSize(size = 50)
     private Set<Category> categories = new HashSet<>();
     private Long additionDate;
     private boolean isEnabled;
+    // the version of the product, changed by every write so the clients can tell if their copy is still current
+    private Long lastModified;
 
     public Product() {}
 
@@ -138,4 +150,24 @@ public class Product {
         isEnabled = enabled;
     }
 
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Sets the last modified date to now, or to just after the previous one if the clock didn't move,
+     * so every write gives the product a new version. Called by JPA before every insert and update,
+     * and by the product writes that only change the images or the categories, which JPA doesn't see as an update.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateLastModified() {
+        long now = System.currentTimeMillis();
+        lastModified = lastModified == null ? now : Math.max(now, lastModified + 1);
+    }
+
 }
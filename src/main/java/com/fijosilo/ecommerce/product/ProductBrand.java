@@ -1,7 +1,9 @@
 package com.fijosilo.ecommerce.product;
 
 
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -9,8 +11,9 @@ import javax.persistence.*;
 @Table(name = "product_brand", uniqueConstraints = @UniqueConstraint(columnNames = {"brand"}))
 public class ProductBrand {
     @Id
-    @GenericGenerator(name="increment", strategy="increment")
-    @GeneratedValue(generator = "increment")
+    @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "product_brand_sequence"))
+    @GeneratedValue(generator = "pooled")
     private Long id;
     private String brand;
 
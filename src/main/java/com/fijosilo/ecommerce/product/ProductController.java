@@ -1,7 +1,11 @@
 package com.fijosilo.ecommerce.product;
 
+import com.fijosilo.ecommerce.cache.CacheableResponse;
+import com.fijosilo.ecommerce.cache.ETags;
 import com.fijosilo.ecommerce.category.Category;
 import com.fijosilo.ecommerce.category.CategoryService;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -21,7 +25,8 @@ public class ProductController {
     }
 
     @GetMapping(value = "/product", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HashMap<String, Object>> readProduct(@RequestParam HashMap<String, String> params) {
+    public ResponseEntity<HashMap<String, Object>> readProduct(@RequestParam HashMap<String, String> params,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         HashMap<String, Object> payload = new HashMap<>();
 
         // validate code
@@ -40,13 +45,19 @@ public class ProductController {
             payload.put("error", "Field code must be a valid product code.");
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
+        // the client already has this version of the product, so it isn't serialized again
+        String eTag = this.eTagOf(product);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return new ResponseEntity<>(ETags.headers(eTag), HttpStatus.NOT_MODIFIED);
+        }
 
         // all validations test passed
 
         payload.put("product", product);
-        return new ResponseEntity<>(payload, HttpStatus.OK);
+        return new ResponseEntity<>(payload, ETags.headers(eTag), HttpStatus.OK);
     }
 
+    @CacheableResponse
     @GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<HashMap<String, Object>> readProducts(@RequestParam HashMap<String, String> params) {
         HashMap<String, Object> payload = new HashMap<>();
@@ -133,8 +144,34 @@ public class ProductController {
             i++;
             key = String.format("categories[%d]", i);
         }
-        if (categories.size() == 0) {
-            categories = null;
+        // optional validate category match
+        CategoryMatch categoryMatch = CategoryMatch.ANY;
+        if (params.containsKey("category_match")) {
+            String categoryMatchString = params.get("category_match");
+            if (categoryMatchString.isBlank()) {
+                payload.put("error", "Field category_match can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            categoryMatch = null;
+            for (CategoryMatch cm : CategoryMatch.values()) {
+                if (categoryMatchString.toLowerCase().equals(cm.toString())) {
+                    categoryMatch = cm;
+                    break;
+                }
+            }
+            if (categoryMatch == null) {
+                payload.put("error", "Field category_match must be any or all.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+        CategoryFilter categoryFilter = null;
+        if (categories.size() > 0) {
+            // a category matches the products of its subcategories too
+            List<Set<String>> categoryGroups = new ArrayList<>();
+            for (String category : categories) {
+                categoryGroups.add(categoryService.readCategoryNamesWithSubcategories(category));
+            }
+            categoryFilter = new CategoryFilter(categoryGroups, categoryMatch);
         }
         // optional validate maximum products per page
         Integer maxProductsPerPage = 10;
@@ -175,12 +212,52 @@ public class ProductController {
             }
         }
 
+        // optional validate after
+        KeysetCursor after = null;
+        if (params.containsKey("after")) {
+            String afterString = params.get("after");
+            if (afterString.isBlank()) {
+                payload.put("error", "Field after can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (params.containsKey("page_number")) {
+                payload.put("error", "Field after can't be used together with page_number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                after = KeysetCursor.decode(afterString);
+            } catch (IllegalArgumentException e) {
+                payload.put("error", "Field after must be a valid cursor.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // optional facets
+        boolean withFacets = false;
+        if (params.containsKey("facets")) {
+            withFacets = Boolean.parseBoolean(params.get("facets"));
+        }
+
         // all validations test passed
 
         // get product list
-        List<Product> products = productService.readProductsByFilters(name, minPrice, maxPrice, brand, categories, maxProductsPerPage, pageNumber);
+        List<ProductSummary> products;
+        if (after == null) {
+            products = productService.readProductsByFilters(name, minPrice, maxPrice, brand, categoryFilter, maxProductsPerPage, pageNumber);
+        } else {
+            products = productService.readProductsByFiltersAfter(name, minPrice, maxPrice, brand, categoryFilter, maxProductsPerPage, after);
+        }
 
         payload.put("products", products);
+        // give the client a cursor to the next page
+        if (products.size() == maxProductsPerPage) {
+            ProductSummary lastProduct = products.get(products.size() - 1);
+            payload.put("next", KeysetCursor.of(lastProduct.getId()).encode());
+        }
+        // give the client the number of products of each filter value, for the filter panel
+        if (withFacets) {
+            payload.put("facets", productService.readProductFacets(name, minPrice, maxPrice, brand, categoryFilter));
+        }
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
@@ -390,7 +467,7 @@ public class ProductController {
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
         // validate product
-        Product product = productService.readProductByCode(code);
+        Product product = productService.readProductByCodeForUpdate(code);
         if (product == null) {
             payload.put("error", "Field code must contain a valid product code.");
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
@@ -539,7 +616,6 @@ public class ProductController {
         if (description != null) product.setDescription(description);
         if (price != null) product.setPrice(price);
         if (discount != null) product.setDiscount(discount);
-        if (stock != null) product.setStock(stock);
         if (thumbnail != null) product.setThumbnailURL(thumbnail);
         if (images != null) product.setImagesURL(images);
         for (Category c : categories) {
@@ -547,7 +623,9 @@ public class ProductController {
         }
         if (enabled != null) product.setEnabled(enabled);
 
-        if (!productService.updateProduct(product)) {
+        // only the change the admin made to the stock it read is saved, the units reserved meanwhile are kept
+        int stockChange = stock == null ? 0 : stock - product.getStock();
+        if (!productService.updateProduct(product, stockChange)) {
             payload.put("error", "Database couldn't update the product.");
             return new ResponseEntity<>(payload, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -571,7 +649,7 @@ public class ProductController {
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
         }
         // validate product
-        Product product = productService.readProductByCode(code);
+        Product product = productService.readProductByCodeForUpdate(code);
         if (product == null) {
             payload.put("error", "Field code must contain a valid product code.");
             return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
@@ -589,6 +667,7 @@ public class ProductController {
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
+    @CacheableResponse
     @GetMapping(value = "/products/novelties", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<HashMap<String, Object>> readNovelties(@RequestParam HashMap<String, String> params) {
         HashMap<String, Object> payload = new HashMap<>();
@@ -633,15 +712,47 @@ public class ProductController {
             }
         }
 
+        // optional validate after
+        KeysetCursor after = null;
+        if (params.containsKey("after")) {
+            String afterString = params.get("after");
+            if (afterString.isBlank()) {
+                payload.put("error", "Field after can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (params.containsKey("page_number")) {
+                payload.put("error", "Field after can't be used together with page_number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                after = KeysetCursor.decode(afterString);
+                after.getLongKey();
+            } catch (IllegalArgumentException e) {
+                payload.put("error", "Field after must be a valid cursor.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
         // all validations test passed
 
         // get product list
-        List<Product> products = productService.readProductsByDescendingDate(maxProductsPerPage, pageNumber);
+        List<ProductSummary> products;
+        if (after == null) {
+            products = productService.readProductsByDescendingDate(maxProductsPerPage, pageNumber);
+        } else {
+            products = productService.readProductsByDescendingDateAfter(maxProductsPerPage, after);
+        }
 
         payload.put("products", products);
+        // give the client a cursor to the next page
+        if (products.size() == maxProductsPerPage) {
+            ProductSummary lastProduct = products.get(products.size() - 1);
+            payload.put("next", KeysetCursor.of(lastProduct.getAdditionDate(), lastProduct.getId()).encode());
+        }
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
+    @CacheableResponse
     @GetMapping(value = "/products/promotions", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<HashMap<String, Object>> readPromotions(@RequestParam HashMap<String, String> params) {
         HashMap<String, Object> payload = new HashMap<>();
@@ -686,13 +797,172 @@ public class ProductController {
             }
         }
 
+        // optional validate after
+        KeysetCursor after = null;
+        if (params.containsKey("after")) {
+            String afterString = params.get("after");
+            if (afterString.isBlank()) {
+                payload.put("error", "Field after can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (params.containsKey("page_number")) {
+                payload.put("error", "Field after can't be used together with page_number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                after = KeysetCursor.decode(afterString);
+                after.getDoubleKey();
+            } catch (IllegalArgumentException e) {
+                payload.put("error", "Field after must be a valid cursor.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
         // all validations test passed
 
         // get product list
-        List<Product> products = productService.readProductsByDescendingDiscount(maxProductsPerPage, pageNumber);
+        List<ProductSummary> products;
+        if (after == null) {
+            products = productService.readProductsByDescendingDiscount(maxProductsPerPage, pageNumber);
+        } else {
+            products = productService.readProductsByDescendingDiscountAfter(maxProductsPerPage, after);
+        }
+
+        payload.put("products", products);
+        // give the client a cursor to the next page
+        if (products.size() == maxProductsPerPage) {
+            ProductSummary lastProduct = products.get(products.size() - 1);
+            payload.put("next", KeysetCursor.of(lastProduct.getDiscount(), lastProduct.getId()).encode());
+        }
+        return new ResponseEntity<>(payload, HttpStatus.OK);
+    }
+
+    @CacheableResponse
+    @GetMapping(value = "/products/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HashMap<String, Object>> searchProducts(@RequestParam HashMap<String, String> params) {
+        HashMap<String, Object> payload = new HashMap<>();
+
+        // validate query
+        if (!params.containsKey("query")) {
+            payload.put("error", "Field query is required.");
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        String query = params.get("query");
+        if (query.isBlank()) {
+            payload.put("error", "Field query can't be blank.");
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        // optional validate maximum products per page
+        Integer maxProductsPerPage = 10;
+        if (params.containsKey("max_products_per_page")) {
+            String maxProductsPerPageString = params.get("max_products_per_page");
+            if (maxProductsPerPageString.isBlank()) {
+                payload.put("error", "Field max_products_per_page can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                maxProductsPerPage = Integer.parseInt(maxProductsPerPageString);
+            } catch (NumberFormatException e) {
+                payload.put("error", "Field max_products_per_page must be a valid integer number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (maxProductsPerPage < 1) {
+                payload.put("error", "Field max_products_per_page can't be smaller than one.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // optional validate page number
+        Integer pageNumber = 1;
+        if (params.containsKey("page_number")) {
+            String pageNumberString = params.get("page_number");
+            if (pageNumberString.isBlank()) {
+                payload.put("error", "Field page_number can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                pageNumber = Integer.parseInt(pageNumberString);
+            } catch (NumberFormatException e) {
+                payload.put("error", "Field page_number must be a valid integer number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (pageNumber < 1) {
+                payload.put("error", "Field page_number can't be smaller than one.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // all validations test passed
+
+        // get the products from the most relevant
+        List<ProductSummary> products = productService.readProductsBySearch(query, maxProductsPerPage, pageNumber);
 
         payload.put("products", products);
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
+    @CacheableResponse
+    @GetMapping(value = "/products/suggestions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HashMap<String, Object>> readSuggestions(@RequestParam HashMap<String, String> params) {
+        HashMap<String, Object> payload = new HashMap<>();
+
+        // validate prefix
+        if (!params.containsKey("prefix")) {
+            payload.put("error", "Field prefix is required.");
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        String prefix = params.get("prefix");
+        if (prefix.isBlank()) {
+            payload.put("error", "Field prefix can't be blank.");
+            return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        // optional validate maximum suggestions
+        Integer maxSuggestions = ProductSuggestionTrie.MAX_SUGGESTIONS;
+        if (params.containsKey("max_suggestions")) {
+            String maxSuggestionsString = params.get("max_suggestions");
+            if (maxSuggestionsString.isBlank()) {
+                payload.put("error", "Field max_suggestions can't be blank.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            try {
+                maxSuggestions = Integer.parseInt(maxSuggestionsString);
+            } catch (NumberFormatException e) {
+                payload.put("error", "Field max_suggestions must be a valid integer number.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (maxSuggestions < 1) {
+                payload.put("error", "Field max_suggestions can't be smaller than one.");
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            if (maxSuggestions > ProductSuggestionTrie.MAX_SUGGESTIONS) {
+                payload.put("error", String.format("Field max_suggestions can't be bigger than %d.", ProductSuggestionTrie.MAX_SUGGESTIONS));
+                return new ResponseEntity<>(payload, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+
+        // all validations test passed
+
+        // get the suggestions from the best one
+        List<ProductSuggestion> suggestions = productService.readProductSuggestions(prefix, maxSuggestions);
+
+        payload.put("suggestions", suggestions);
+        return new ResponseEntity<>(payload, HttpStatus.OK);
+    }
+
+    // the product is sent with its categories and their parents, so their versions are part of its tag
+    private String eTagOf(Product product) {
+        Long categoriesLastModified = null;
+        for (Category category : product.getCategories()) {
+            for (Category c = category; c != null; c = c.getParent()) {
+                if (c.getLastModified() != null
+                        && (categoriesLastModified == null || c.getLastModified() > categoriesLastModified)) {
+                    categoriesLastModified = c.getLastModified();
+                }
+            }
+        }
+        return ETags.ofVersions("product", product.getId(), product.getLastModified(), categoriesLastModified);
+    }
+
 }
@@ -1,18 +1,36 @@
 package com.fijosilo.ecommerce.product;
 
+import com.fijosilo.ecommerce.category.Category;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductDAO {
     boolean createProduct(Product product);
     Product readProductByCode(String code);
-    List<Product> readProductsByFilters(String name, Double minPrice, Double maxPrice, String brand,
-                                        List<String> categoryNames, Integer maxProductsPerPage, Integer pageNumber);
+    Map<String, Product> readProductsByCodes(Collection<String> codes);
+    List<ProductSummary> readProductsByFilters(String name, Double minPrice, Double maxPrice, String brand,
+                                               CategoryFilter categoryFilter, Integer maxProductsPerPage, Integer pageNumber);
+    List<ProductSummary> readProductsByFiltersAfter(String name, Double minPrice, Double maxPrice, String brand,
+                                                    CategoryFilter categoryFilter, Integer maxProductsPerPage, KeysetCursor after);
+    List<ProductSummary> readProductsBySearch(String query, Integer maxProductsPerPage, Integer pageNumber);
+    List<ProductSuggestion> readProductSuggestions(String prefix, Integer maxSuggestions);
+    ProductFacets readProductFacets(String name, Double minPrice, Double maxPrice, String brand,
+                                    CategoryFilter categoryFilter, double[] priceBandEdges);
     boolean updateProduct(Product product);
     boolean deleteProduct(Product product);
+    void reindexProductsByCategory(Category category);
+    boolean reserveStock(Map<Product, Integer> quantities);
+    boolean releaseStock(Map<Product, Integer> quantities);
+    boolean changeStock(Product product, int change);
 
     boolean createProductBrand(ProductBrand productBrand);
     ProductBrand readProductBrandByBrand(String brand);
 
-    List<Product> readProductsByDescendingDate(Integer maxProductsPerPage, Integer pageNumber);
-    List<Product> readProductsByDescendingDiscount(Integer maxProductsPerPage, Integer pageNumber);
+    List<ProductSummary> readProductsByDescendingDate(Integer maxProductsPerPage, Integer pageNumber);
+    List<ProductSummary> readProductsByDescendingDiscount(Integer maxProductsPerPage, Integer pageNumber);
+    List<ProductSummary> readProductsByDescendingDateAfter(Integer maxProductsPerPage, KeysetCursor after);
+    List<ProductSummary> readProductsByDescendingDiscountAfter(Integer maxProductsPerPage, KeysetCursor after);
 }
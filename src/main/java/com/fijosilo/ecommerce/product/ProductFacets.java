@@ -0,0 +1,107 @@
+package com.fijosilo.ecommerce.product;
+
+import java.util.*;
+
+/**
+ * Number of products of each brand, category and price band, shown next to the product filters.
+ * The counts of a facet apply every filter except the facet's own filter, so picking a brand still shows
+ * how many products every other brand would have with the rest of the filters.
+ */
+public class ProductFacets {
+    private final Map<String, Integer> brands = new TreeMap<>();
+    private final Map<String, Integer> categories = new TreeMap<>();
+    private final double[] priceBandEdges;
+    private final int[] priceBandCounts;
+
+    /**
+     * @param priceBandEdges the ascending lower edges of the price bands, the last band has no upper edge
+     */
+    public ProductFacets(double[] priceBandEdges) {
+        this.priceBandEdges = priceBandEdges.clone();
+        this.priceBandCounts = new int[priceBandEdges.length];
+    }
+
+    void countBrand(String brand, int count) {
+        brands.merge(brand, count, Integer::sum);
+    }
+
+    void countCategory(String category, int count) {
+        categories.merge(category, count, Integer::sum);
+    }
+
+    void countPrice(double price, int count) {
+        // index of the last edge that isn't bigger than the price
+        int low = 0;
+        int high = priceBandEdges.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (priceBandEdges[middle] <= price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        // prices below the first edge aren't in any band
+        if (low > 0) {
+            priceBandCounts[low - 1] += count;
+        }
+    }
+
+    public Map<String, Integer> getBrands() {
+        return brands;
+    }
+
+    public Map<String, Integer> getCategories() {
+        return categories;
+    }
+
+    public List<PriceBand> getPriceBands() {
+        List<PriceBand> priceBands = new ArrayList<>(priceBandEdges.length);
+        for (int i = 0; i < priceBandEdges.length; i++) {
+            Double max = i + 1 < priceBandEdges.length ? priceBandEdges[i + 1] : null;
+            priceBands.add(new PriceBand(priceBandEdges[i], max, priceBandCounts[i]));
+        }
+        return priceBands;
+    }
+
+    /**
+     * Products priced from the minimum price up to, but not including, the maximum price.
+     */
+    public static class PriceBand {
+        private final double min;
+        private final Double max;
+        private final int count;
+
+        public PriceBand(double min, Double max, int count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PriceBand that = (PriceBand) o;
+            return Double.compare(that.min, min) == 0 && count == that.count && Objects.equals(max, that.max);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(min, max, count);
+        }
+    }
+
+}
@@ -0,0 +1,407 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.category.Category;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the product catalog.
+ * Every product gets a document ordinal, name tokens, brands and categories keep posting lists of those ordinals
+ * and prices are kept in a sorted array, so filtering a page only needs a few set operations over the postings.
+ * Only the product summaries are kept, the product entities aren't held by the index.
+ * Pages are in id order, the same order as the JPA repository, so a cursor reads the same page from both.
+ */
+public class ProductIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // document ordinal to indexed document
+    private final List<Document> documents = new ArrayList<>();
+    // product id to document ordinal
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    // true while the products were indexed in id order, so the ordinals are in id order too
+    private boolean isIdOrdered = true;
+    private long maxId = Long.MIN_VALUE;
+
+    // posting lists
+    private final TreeMap<String, BitSet> nameTokens = new TreeMap<>();
+    private final Map<String, BitSet> brands = new HashMap<>();
+    private final Map<String, BitSet> categories = new HashMap<>();
+
+    // document ordinals sorted by price
+    private double[] prices = new double[16];
+    private int[] priceOrdinals = new int[16];
+    private int priceCount = 0;
+
+    /**
+     * Adds the product to the index or re-indexes it if it was already indexed.
+     *
+     * @param product the product to index, it must have an id
+     */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(product.getId());
+            if (ordinal == null) {
+                ordinal = documents.size();
+                documents.add(null);
+                ordinals.put(product.getId(), ordinal);
+                // the pooled ids of other nodes can be smaller than the ids already indexed
+                if (product.getId() <= maxId) {
+                    isIdOrdered = false;
+                }
+                maxId = Math.max(maxId, product.getId());
+            } else {
+                unindex(ordinal, documents.get(ordinal));
+            }
+            Document document = new Document(product);
+            documents.set(ordinal, document);
+            index(ordinal, document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the product to the index only if it isn't indexed yet.
+     *
+     * @param product the product to index, it must have an id
+     */
+    public void putIfAbsent(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!ordinals.containsKey(product.getId())) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a page of the products matching every provided filter, in id order.
+     * The name matches when every one of its words is the start of a word of the product name,
+     * the categories match when the product belongs to any or to all of them, as set by the category filter.
+     *
+     * @param name optional name to match
+     * @param minPrice optional minimum price, only used with maxPrice
+     * @param maxPrice optional maximum price, only used with minPrice
+     * @param brand optional brand to match
+     * @param categoryFilter optional categories to match
+     * @param offset number of matching products to skip
+     * @param limit maximum number of products to return
+     * @return the summaries of the products in the requested page
+     */
+    public List<ProductSummary> search(String name, Double minPrice, Double maxPrice, String brand,
+                                CategoryFilter categoryFilter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(name, minPrice, maxPrice, brand, categoryFilter);
+            return page(matches, null, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the page of the products matching every provided filter that comes after the input product in id order.
+     *
+     * @param name optional name to match
+     * @param minPrice optional minimum price, only used with maxPrice
+     * @param maxPrice optional maximum price, only used with minPrice
+     * @param brand optional brand to match
+     * @param categoryFilter optional categories to match
+     * @param afterId optional id of the last product of the previous page
+     * @param limit maximum number of products to return
+     * @return the summaries of the products in the requested page
+     */
+    public List<ProductSummary> searchAfter(String name, Double minPrice, Double maxPrice, String brand,
+                                     CategoryFilter categoryFilter, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(name, minPrice, maxPrice, brand, categoryFilter);
+            return page(matches, afterId, 0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<ProductSummary> page(BitSet matches, Long afterId, int offset, int limit) {
+        if (!isIdOrdered) {
+            return pageById(matches, afterId, offset, limit);
+        }
+        int fromOrdinal = afterId == null ? 0 : ordinalAfter(afterId);
+        List<ProductSummary> page = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        int skipped = 0;
+        for (int i = matches.nextSetBit(fromOrdinal); i >= 0 && page.size() < limit; i = matches.nextSetBit(i + 1)) {
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(documents.get(i).summary);
+        }
+        return page;
+    }
+
+    // sorts the matching products by id when the ordinals aren't in id order
+    private List<ProductSummary> pageById(BitSet matches, Long afterId, int offset, int limit) {
+        List<ProductSummary> matching = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            ProductSummary summary = documents.get(i).summary;
+            if (afterId == null || summary.getId() > afterId) {
+                matching.add(summary);
+            }
+        }
+        matching.sort(Comparator.comparing(ProductSummary::getId));
+        int from = Math.min(offset, matching.size());
+        return new ArrayList<>(matching.subList(from, Math.min(from + limit, matching.size())));
+    }
+
+    // first ordinal after the product with the input id, the ordinals are in id order
+    private int ordinalAfter(Long id) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal != null) {
+            return ordinal + 1;
+        }
+        // the product isn't indexed, so continue from the first product with a bigger id
+        for (int i = 0; i < documents.size(); i++) {
+            if (documents.get(i).summary.getId() > id) {
+                return i;
+            }
+        }
+        return documents.size();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(String name, Double minPrice, Double maxPrice, String brand, CategoryFilter categoryFilter) {
+        BitSet matches = matchName(name);
+        if (minPrice != null && maxPrice != null) {
+            matches.and(matchPrice(minPrice, maxPrice));
+        }
+        if (brand != null) {
+            matches.and(matchBrand(brand));
+        }
+        if (categoryFilter != null) {
+            matches.and(matchCategories(categoryFilter));
+        }
+        return matches;
+    }
+
+    /**
+     * Counts the products of each brand, category and price band in a single pass over the products matching the name.
+     * The counts of each facet leave out the facet's own filter, so they show what picking another value would give.
+     *
+     * @param name optional name to match
+     * @param minPrice optional minimum price, only used with maxPrice
+     * @param maxPrice optional maximum price, only used with minPrice
+     * @param brand optional brand to match
+     * @param categoryFilter optional categories to match
+     * @param priceBandEdges the ascending lower edges of the price bands
+     * @return the facet counts
+     */
+    public ProductFacets facets(String name, Double minPrice, Double maxPrice, String brand,
+                                CategoryFilter categoryFilter, double[] priceBandEdges) {
+        lock.readLock().lock();
+        try {
+            BitSet nameMatches = matchName(name);
+            BitSet priceMatches = minPrice != null && maxPrice != null ? matchPrice(minPrice, maxPrice) : null;
+            BitSet brandMatches = brand != null ? matchBrand(brand) : null;
+            BitSet categoryMatches = categoryFilter != null ? matchCategories(categoryFilter) : null;
+
+            ProductFacets facets = new ProductFacets(priceBandEdges);
+            for (int i = nameMatches.nextSetBit(0); i >= 0; i = nameMatches.nextSetBit(i + 1)) {
+                boolean isPriceMatch = priceMatches == null || priceMatches.get(i);
+                boolean isBrandMatch = brandMatches == null || brandMatches.get(i);
+                boolean isCategoryMatch = categoryMatches == null || categoryMatches.get(i);
+                Document document = documents.get(i);
+                if (isPriceMatch && isCategoryMatch && document.brand != null) {
+                    facets.countBrand(document.brand, 1);
+                }
+                if (isPriceMatch && isBrandMatch) {
+                    for (String category : document.categories) {
+                        facets.countCategory(category, 1);
+                    }
+                }
+                if (isBrandMatch && isCategoryMatch) {
+                    facets.countPrice(document.price, 1);
+                }
+            }
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matchName(String name) {
+        BitSet matches = new BitSet(documents.size());
+        matches.set(0, documents.size());
+        if (name != null) {
+            for (String token : tokenize(name)) {
+                // every token of the name filter must prefix at least one token of the product name
+                BitSet tokenMatches = new BitSet(documents.size());
+                for (BitSet postings : nameTokens.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                    tokenMatches.or(postings);
+                }
+                matches.and(tokenMatches);
+            }
+        }
+        return matches;
+    }
+
+    private BitSet matchPrice(double minPrice, double maxPrice) {
+        BitSet matches = new BitSet(documents.size());
+        for (int i = lowerBound(minPrice); i < priceCount && prices[i] <= maxPrice; i++) {
+            matches.set(priceOrdinals[i]);
+        }
+        return matches;
+    }
+
+    private BitSet matchBrand(String brand) {
+        BitSet postings = brands.get(brand);
+        return postings == null ? new BitSet() : postings;
+    }
+
+    private BitSet matchCategories(CategoryFilter categoryFilter) {
+        // the products of each group are the union of the postings of its category names
+        List<BitSet> groupMatches = new ArrayList<>(categoryFilter.getGroups().size());
+        for (Set<String> group : categoryFilter.getGroups()) {
+            BitSet postings = new BitSet(documents.size());
+            for (String category : group) {
+                BitSet categoryPostings = categories.get(category);
+                if (categoryPostings != null) {
+                    postings.or(categoryPostings);
+                }
+            }
+            groupMatches.add(postings);
+        }
+        BitSet matches = new BitSet(documents.size());
+        if (categoryFilter.getMatch() == CategoryMatch.ANY) {
+            for (BitSet postings : groupMatches) {
+                matches.or(postings);
+            }
+            return matches;
+        }
+        // intersect from the smallest group, so with many categories most of the work is done on few products
+        groupMatches.sort(Comparator.comparingInt(BitSet::cardinality));
+        if (!groupMatches.isEmpty()) {
+            matches.or(groupMatches.get(0));
+        }
+        for (int i = 1; i < groupMatches.size() && !matches.isEmpty(); i++) {
+            matches.and(groupMatches.get(i));
+        }
+        return matches;
+    }
+
+    private void index(int ordinal, Document document) {
+        for (String token : document.nameTokens) {
+            nameTokens.computeIfAbsent(token, k -> new BitSet()).set(ordinal);
+        }
+        if (document.brand != null) {
+            brands.computeIfAbsent(document.brand, k -> new BitSet()).set(ordinal);
+        }
+        for (String category : document.categories) {
+            categories.computeIfAbsent(category, k -> new BitSet()).set(ordinal);
+        }
+        insertPrice(document.price, ordinal);
+    }
+
+    private void unindex(int ordinal, Document document) {
+        for (String token : document.nameTokens) {
+            clearPosting(nameTokens, token, ordinal);
+        }
+        if (document.brand != null) {
+            clearPosting(brands, document.brand, ordinal);
+        }
+        for (String category : document.categories) {
+            clearPosting(categories, category, ordinal);
+        }
+        removePrice(document.price, ordinal);
+    }
+
+    private static void clearPosting(Map<String, BitSet> postings, String key, int ordinal) {
+        BitSet posting = postings.get(key);
+        if (posting != null) {
+            posting.clear(ordinal);
+            if (posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // index of the first price that isn't smaller than the input price
+    private int lowerBound(double price) {
+        int low = 0;
+        int high = priceCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void insertPrice(double price, int ordinal) {
+        if (priceCount == prices.length) {
+            prices = Arrays.copyOf(prices, priceCount * 2);
+            priceOrdinals = Arrays.copyOf(priceOrdinals, priceCount * 2);
+        }
+        int position = lowerBound(price);
+        System.arraycopy(prices, position, prices, position + 1, priceCount - position);
+        System.arraycopy(priceOrdinals, position, priceOrdinals, position + 1, priceCount - position);
+        prices[position] = price;
+        priceOrdinals[position] = ordinal;
+        priceCount++;
+    }
+
+    private void removePrice(double price, int ordinal) {
+        for (int i = lowerBound(price); i < priceCount && prices[i] == price; i++) {
+            if (priceOrdinals[i] == ordinal) {
+                System.arraycopy(prices, i + 1, prices, i, priceCount - i - 1);
+                System.arraycopy(priceOrdinals, i + 1, priceOrdinals, i, priceCount - i - 1);
+                priceCount--;
+                return;
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new LinkedList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // the values of a product that were indexed, so they can be unindexed even if the product changes afterwards
+    private static class Document {
+        private final ProductSummary summary;
+        private final Set<String> nameTokens;
+        private final String brand;
+        private final Set<String> categories = new HashSet<>();
+        private final double price;
+
+        private Document(Product product) {
+            this.summary = new ProductSummary(product);
+            this.nameTokens = new HashSet<>(product.getName() == null ? List.of() : tokenize(product.getName()));
+            this.brand = product.getProductBrand() == null ? null : product.getProductBrand().getBrand();
+            for (Category category : product.getCategories()) {
+                this.categories.add(category.getName());
+            }
+            this.price = product.getPrice();
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.fijosilo.ecommerce.product;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory list of products sorted by a key, from the biggest key, and then by id, from the biggest id,
+ * the same order as the novelty and promotion queries.
+ * The products are kept in a concurrent skip list, so a page is read without locks by walking it from the start
+ * or from the last product of the previous page, while the product writes move their product to its new place.
+ *
+ * @param <K> the type of the sort key
+ */
+public class ProductLeaderboard<K extends Comparable<K>> {
+    private final Function<Product, K> keyOf;
+    private final Predicate<Product> isListed;
+    private final ConcurrentSkipListMap<Entry<K>, ProductSummary> products = new ConcurrentSkipListMap<>();
+    // product id to its place in the list
+    private final Map<Long, Entry<K>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param keyOf reads the sort key of a product, products without a key are listed last
+     * @param isListed tells if a product belongs to the list
+     */
+    public ProductLeaderboard(Function<Product, K> keyOf, Predicate<Product> isListed) {
+        this.keyOf = keyOf;
+        this.isListed = isListed;
+    }
+
+    /**
+     * Adds the product to the list, moves it to its new place or removes it if it doesn't belong to the list anymore.
+     *
+     * @param product the product, it must have an id
+     */
+    public synchronized void put(Product product) {
+        Entry<K> oldEntry = entries.get(product.getId());
+        Entry<K> entry = null;
+        if (isListed.test(product)) {
+            // the product is put in its new place before it leaves the old one, so the pages read meanwhile never miss it
+            entry = new Entry<>(keyOf.apply(product), product.getId());
+            products.put(entry, new ProductSummary(product));
+            entries.put(product.getId(), entry);
+        } else {
+            entries.remove(product.getId());
+        }
+        if (oldEntry != null && !oldEntry.equals(entry)) {
+            products.remove(oldEntry);
+        }
+    }
+
+    /**
+     * Adds the product only if it isn't in the list yet.
+     *
+     * @param product the product, it must have an id
+     */
+    public synchronized void putIfAbsent(Product product) {
+        if (!entries.containsKey(product.getId())) {
+            put(product);
+        }
+    }
+
+    /**
+     * Reads a page of the list.
+     *
+     * @param offset number of products to skip
+     * @param limit maximum number of products to return
+     * @return the summaries of the products in the requested page
+     */
+    public List<ProductSummary> page(int offset, int limit) {
+        return page(products, offset, limit);
+    }
+
+    /**
+     * Reads the page of the list that comes after the input product.
+     *
+     * @param key the sort key of the last product of the previous page
+     * @param id the id of the last product of the previous page
+     * @param limit maximum number of products to return
+     * @return the summaries of the products in the requested page
+     */
+    public List<ProductSummary> pageAfter(K key, Long id, int limit) {
+        return page(products.tailMap(new Entry<>(key, id), false), 0, limit);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static List<ProductSummary> page(ConcurrentNavigableMap<?, ProductSummary> products, int offset, int limit) {
+        List<ProductSummary> page = new ArrayList<>(limit);
+        Iterator<ProductSummary> iterator = products.values().iterator();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    // place of a product in the list, bigger keys and then bigger ids come first
+    private static class Entry<K extends Comparable<K>> implements Comparable<Entry<K>> {
+        private final K key;
+        private final long id;
+
+        private Entry(K key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry<K> other) {
+            if (key == null || other.key == null) {
+                if (key != other.key) {
+                    return key == null ? 1 : -1;
+                }
+            } else {
+                int byKey = other.key.compareTo(key);
+                if (byKey != 0) {
+                    return byKey;
+                }
+            }
+            return Long.compare(other.id, id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Entry<?> that = (Entry<?>) o;
+            return id == that.id && Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, id);
+        }
+    }
+
+}
@@ -0,0 +1,391 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.category.Category;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory full-text index of the product catalog, ranked with BM25.
+ * The words of the name, description, brand and categories of every enabled product are kept in posting lists
+ * with their frequency, weighted by the field they come from, so a word in the name counts more than one in the description.
+ * Every word of a query must match a product, the last word also matches the words it starts, as the client types,
+ * and a longer word that isn't in the index matches the indexed words one or two typos away from it.
+ * Only the product summaries are kept, the product entities aren't held by the index.
+ */
+public class ProductSearchIndex {
+    // BM25 term frequency saturation and document length normalization
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // weight of a word in each field
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    // weight of the words matched by a prefix or with typos, against the word itself
+    private static final float PREFIX_WEIGHT = 0.5f;
+    private static final float ONE_TYPO_WEIGHT = 0.4f;
+    private static final float TWO_TYPOS_WEIGHT = 0.2f;
+    // shortest query word that is expanded by prefix, by one typo and by two typos
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_ONE_TYPO_LENGTH = 4;
+    private static final int MIN_TWO_TYPOS_LENGTH = 8;
+    // most indexed words a query word is expanded to, the most frequent ones are kept
+    private static final int MAX_EXPANSIONS = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // document ordinal to indexed document, null when the product isn't indexed anymore
+    private final List<Document> documents = new ArrayList<>();
+    // product id to document ordinal
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    // weighted length of each document, kept apart so scoring a word reads a single array
+    private float[] lengths = new float[16];
+    // word to the ordinals of the documents with it
+    private final Map<String, Postings> terms = new HashMap<>();
+    // the indexed words in order, so prefixes and typos can be looked up by range
+    private final TreeSet<String> vocabulary = new TreeSet<>();
+    private int documentCount = 0;
+    private double totalLength = 0;
+
+    /**
+     * Adds the product to the index or re-indexes it if it was already indexed.
+     * Disabled products are removed from the index.
+     *
+     * @param product the product to index, it must have an id
+     */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(product.getId());
+            if (ordinal == null) {
+                ordinal = documents.size();
+                documents.add(null);
+                ordinals.put(product.getId(), ordinal);
+            } else if (documents.get(ordinal) != null) {
+                unindex(ordinal, documents.get(ordinal));
+                documents.set(ordinal, null);
+            }
+            if (product.isEnabled()) {
+                Document document = new Document(product);
+                documents.set(ordinal, document);
+                index(ordinal, document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the product to the index only if it isn't indexed yet.
+     *
+     * @param product the product to index, it must have an id
+     */
+    public void putIfAbsent(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!ordinals.containsKey(product.getId())) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a page of the products matching every word of the query, from the most relevant one.
+     * Products with the same relevance are in index order.
+     *
+     * @param query the words to search for
+     * @param offset number of matching products to skip
+     * @param limit maximum number of products to return
+     * @return the summaries of the products in the requested page
+     */
+    public List<ProductSummary> search(String query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<String> words = new ArrayList<>(new LinkedHashSet<>(ProductIndex.tokenize(query)));
+            if (words.isEmpty() || documentCount == 0) {
+                return List.of();
+            }
+            float averageLength = (float) (totalLength / documentCount);
+            float[] scores = new float[documents.size()];
+            BitSet matches = null;
+            for (int i = 0; i < words.size(); i++) {
+                Map<String, Float> expansions = expand(words.get(i), i == words.size() - 1);
+                // a word without matches leaves the query without matches
+                if (expansions.isEmpty()) {
+                    return List.of();
+                }
+                BitSet wordMatches = new BitSet(documents.size());
+                for (Map.Entry<String, Float> expansion : expansions.entrySet()) {
+                    score(terms.get(expansion.getKey()), expansion.getValue(), averageLength, scores, wordMatches);
+                }
+                if (matches == null) {
+                    matches = wordMatches;
+                } else {
+                    matches.and(wordMatches);
+                }
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return page(matches, scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // adds the BM25 score of a word to every document with it
+    private void score(Postings postings, float weight, float averageLength, float[] scores, BitSet matches) {
+        float idf = (float) Math.log(1 + (documentCount - postings.size + 0.5) / (postings.size + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+            int ordinal = postings.ordinals[i];
+            float frequency = postings.frequencies[i];
+            float normalization = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+            scores[ordinal] += weight * idf * frequency * (K1 + 1) / (frequency + normalization);
+            matches.set(ordinal);
+        }
+    }
+
+    // the best documents up to the end of the page, kept in a heap so the matches are never fully sorted
+    private List<ProductSummary> page(BitSet matches, float[] scores, int offset, int limit) {
+        int size = offset + limit;
+        if (size <= 0) {
+            return List.of();
+        }
+        Comparator<Integer> byRelevance = (a, b) -> scores[a] != scores[b] ? Float.compare(scores[b], scores[a]) : Integer.compare(a, b);
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(size, matches.cardinality()) + 1, byRelevance.reversed());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            // once the heap is full only a document better than its worst one gets in, documents come in ordinal order
+            if (best.size() == size && scores[i] <= scores[best.peek()]) {
+                continue;
+            }
+            best.add(i);
+            if (best.size() > size) {
+                best.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort(byRelevance);
+        List<ProductSummary> page = new ArrayList<>(Math.max(ranked.size() - offset, 0));
+        for (int i = offset; i < ranked.size(); i++) {
+            page.add(documents.get(ranked.get(i)).summary);
+        }
+        return page;
+    }
+
+    /**
+     * Finds the indexed words a query word matches, with their weight.
+     * The word itself and, for the last word, the words it starts are matched,
+     * the words with typos are only matched when nothing else is, so they don't crowd out exact matches.
+     */
+    private Map<String, Float> expand(String word, boolean isLast) {
+        Map<String, Float> expansions = new HashMap<>();
+        if (terms.containsKey(word)) {
+            expansions.put(word, 1f);
+        }
+        if (isLast && word.length() >= MIN_PREFIX_LENGTH) {
+            List<String> prefixed = mostFrequent(vocabulary.subSet(word, false, word + Character.MAX_VALUE, false));
+            for (String term : prefixed) {
+                expansions.put(term, PREFIX_WEIGHT);
+            }
+        }
+        if (!expansions.isEmpty() || word.length() < MIN_ONE_TYPO_LENGTH) {
+            return expansions;
+        }
+        int maxTypos = word.length() >= MIN_TWO_TYPOS_LENGTH ? 2 : 1;
+        // a typo in the first letter is rare, so only the words starting with the same letter are compared
+        String first = word.substring(0, 1);
+        Map<String, Integer> typos = new HashMap<>();
+        for (String term : vocabulary.subSet(first, true, first + Character.MAX_VALUE, false)) {
+            if (Math.abs(term.length() - word.length()) > maxTypos) {
+                continue;
+            }
+            int distance = editDistance(word, term, maxTypos);
+            if (distance <= maxTypos) {
+                typos.put(term, distance);
+            }
+        }
+        for (String term : mostFrequent(typos.keySet())) {
+            expansions.put(term, typos.get(term) == 1 ? ONE_TYPO_WEIGHT : TWO_TYPOS_WEIGHT);
+        }
+        return expansions;
+    }
+
+    private List<String> mostFrequent(Collection<String> words) {
+        if (words.size() <= MAX_EXPANSIONS) {
+            return new ArrayList<>(words);
+        }
+        PriorityQueue<String> best = new PriorityQueue<>(MAX_EXPANSIONS + 1, Comparator.comparingInt(term -> terms.get(term).size));
+        for (String term : words) {
+            best.add(term);
+            if (best.size() > MAX_EXPANSIONS) {
+                best.poll();
+            }
+        }
+        return new ArrayList<>(best);
+    }
+
+    /**
+     * Counts the insertions, deletions, substitutions and swaps of adjacent letters that turn a word into another.
+     * The count stops once it is bigger than the maximum distance.
+     *
+     * @return the distance, or the maximum distance plus one when the words are further apart
+     */
+    static int editDistance(String a, String b, int maxDistance) {
+        int[] previousRow = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        int[] nextRow = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            row[j] = j;
+        }
+        int previousRowMin = 0;
+        for (int i = 1; i <= a.length(); i++) {
+            nextRow[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(nextRow[j - 1] + 1, row[j] + 1), row[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, previousRow[j - 2] + 1);
+                }
+                nextRow[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            // a swap reaches back two rows, so both of them must be too far apart
+            if (rowMin > maxDistance && previousRowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            previousRowMin = rowMin;
+            int[] recycled = previousRow;
+            previousRow = row;
+            row = nextRow;
+            nextRow = recycled;
+        }
+        return Math.min(row[b.length()], maxDistance + 1);
+    }
+
+    private void index(int ordinal, Document document) {
+        for (int i = 0; i < document.terms.length; i++) {
+            Postings postings = terms.get(document.terms[i]);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(document.terms[i], postings);
+                vocabulary.add(document.terms[i]);
+            }
+            postings.put(ordinal, document.frequencies[i]);
+        }
+        if (ordinal >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, Math.max(lengths.length * 2, ordinal + 1));
+        }
+        lengths[ordinal] = document.length;
+        documentCount++;
+        totalLength += document.length;
+    }
+
+    private void unindex(int ordinal, Document document) {
+        for (String term : document.terms) {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(ordinal);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                    vocabulary.remove(term);
+                }
+            }
+        }
+        documentCount--;
+        totalLength -= document.length;
+    }
+
+    // ordinals of the documents with a word, in ascending order, with the weighted frequency of the word in each one
+    private static class Postings {
+        private int[] ordinals = new int[4];
+        private float[] frequencies = new float[4];
+        private int size = 0;
+
+        private void put(int ordinal, float frequency) {
+            int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+            position = -position - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            ordinals[position] = ordinal;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        private void remove(int ordinal) {
+            int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+        }
+    }
+
+    // the words of a product that were indexed, so they can be unindexed even if the product changes afterwards
+    private static class Document {
+        private final ProductSummary summary;
+        private final String[] terms;
+        private final float[] frequencies;
+        private final float length;
+
+        private Document(Product product) {
+            this.summary = new ProductSummary(product);
+            Map<String, Float> weightedFrequencies = new HashMap<>();
+            float length = 0;
+            length += count(product.getName(), NAME_WEIGHT, weightedFrequencies);
+            length += count(product.getDescription(), DESCRIPTION_WEIGHT, weightedFrequencies);
+            if (product.getProductBrand() != null) {
+                length += count(product.getProductBrand().getBrand(), BRAND_WEIGHT, weightedFrequencies);
+            }
+            for (Category category : product.getCategories()) {
+                length += count(category.getName(), CATEGORY_WEIGHT, weightedFrequencies);
+            }
+            this.terms = new String[weightedFrequencies.size()];
+            this.frequencies = new float[weightedFrequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> entry : weightedFrequencies.entrySet()) {
+                this.terms[i] = entry.getKey();
+                this.frequencies[i] = entry.getValue();
+                i++;
+            }
+            this.length = length;
+        }
+
+        // adds the weighted frequencies of the words of a field and returns the weighted length of the field
+        private static float count(String text, float weight, Map<String, Float> weightedFrequencies) {
+            if (text == null) {
+                return 0;
+            }
+            List<String> words = ProductIndex.tokenize(text);
+            for (String word : words) {
+                weightedFrequencies.merge(word, weight, Float::sum);
+            }
+            return words.size() * weight;
+        }
+    }
+
+}
@@ -1,37 +1,172 @@
 package com.fijosilo.ecommerce.product;
 
+import com.fijosilo.ecommerce.cache.BoundedCache;
+import com.fijosilo.ecommerce.cache.CatalogVersion;
+import com.fijosilo.ecommerce.category.Category;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ProductService {
     private final ProductDAO productDAO;
+    private final BoundedCache<String, Product> productCache;
+    private final StockLedger stockLedger;
+    private final CatalogVersion catalogVersion;
+    private final double[] priceBandEdges;
 
-    public ProductService(@Qualifier("JPAProductRepository") ProductDAO productDAO) {
+    public ProductService(@Qualifier("IndexedProductRepository") ProductDAO productDAO,
+                          BoundedCache<String, Product> productCache, StockLedger stockLedger, CatalogVersion catalogVersion,
+                          @Value("${com.fijosilo.ecommerce.product_facets.price_bands:0,25,50,100,250,500,1000}") double[] priceBandEdges) {
         this.productDAO = productDAO;
+        this.productCache = productCache;
+        this.stockLedger = stockLedger;
+        this.catalogVersion = catalogVersion;
+        this.priceBandEdges = priceBandEdges;
     }
 
     public boolean createProduct(Product product) {
-        return productDAO.createProduct(product);
+        boolean isCreated = productDAO.createProduct(product);
+        catalogVersion.bump();
+        return isCreated;
     }
 
     public Product readProductByCode(String code) {
+        return productCache.get(code, productDAO::readProductByCode);
+    }
+
+    /**
+     * Reads the product to change it, bypassing the cache, so the cached product isn't changed before the change is saved.
+     */
+    public Product readProductByCodeForUpdate(String code) {
         return productDAO.readProductByCode(code);
     }
 
-    public List<Product> readProductsByFilters(String name, Double minPrice, Double maxPrice, String brand,
-                                               List<String> categoryNames, Integer maxProductsPerPage, Integer pageNumber) {
-        return productDAO.readProductsByFilters(name, minPrice, maxPrice, brand, categoryNames, maxProductsPerPage, pageNumber);
+    public Map<String, Product> readProductsByCodes(Collection<String> codes) {
+        return productDAO.readProductsByCodes(codes);
+    }
+
+    public List<ProductSummary> readProductsByFilters(String name, Double minPrice, Double maxPrice, String brand,
+                                                      CategoryFilter categoryFilter, Integer maxProductsPerPage, Integer pageNumber) {
+        return productDAO.readProductsByFilters(name, minPrice, maxPrice, brand, categoryFilter, maxProductsPerPage, pageNumber);
+    }
+
+    public List<ProductSummary> readProductsByFiltersAfter(String name, Double minPrice, Double maxPrice, String brand,
+                                                           CategoryFilter categoryFilter, Integer maxProductsPerPage, KeysetCursor after) {
+        return productDAO.readProductsByFiltersAfter(name, minPrice, maxPrice, brand, categoryFilter, maxProductsPerPage, after);
+    }
+
+    public List<ProductSummary> readProductsBySearch(String query, Integer maxProductsPerPage, Integer pageNumber) {
+        return productDAO.readProductsBySearch(query, maxProductsPerPage, pageNumber);
+    }
+
+    public List<ProductSuggestion> readProductSuggestions(String prefix, Integer maxSuggestions) {
+        return productDAO.readProductSuggestions(prefix, maxSuggestions);
+    }
+
+    /**
+     * Counts the products matching the filters by brand, category and price band.
+     * Each facet is counted without its own filter, so the counts of the other values of a picked filter are kept.
+     */
+    public ProductFacets readProductFacets(String name, Double minPrice, Double maxPrice, String brand,
+                                           CategoryFilter categoryFilter) {
+        return productDAO.readProductFacets(name, minPrice, maxPrice, brand, categoryFilter, priceBandEdges);
     }
 
-    public boolean updateProduct(Product product) {
-        return productDAO.updateProduct(product);
+    /**
+     * Updates the product and adds a change to its stock.
+     * The update doesn't write the stock, so the units reserved since the product was read are kept.
+     *
+     * @param product the product
+     * @param stockChange the units added to the stock, negative to take them
+     */
+    public boolean updateProduct(Product product, int stockChange) {
+        // the images and categories aren't columns of the product, so changing only them wouldn't change its version
+        product.updateLastModified();
+        boolean isUpdated = productDAO.updateProduct(product);
+        if (isUpdated && stockChange != 0) {
+            if (stockLedger.isHot(product)) {
+                stockLedger.changeStock(product, stockChange);
+            } else {
+                isUpdated = productDAO.changeStock(product, stockChange);
+            }
+        }
+        productCache.invalidate(product.getCode());
+        catalogVersion.bump();
+        return isUpdated;
     }
 
     public boolean deleteProduct(Product product) {
-        return productDAO.deleteProduct(product);
+        boolean isDeleted = productDAO.deleteProduct(product);
+        productCache.invalidate(product.getCode());
+        catalogVersion.bump();
+        return isDeleted;
+    }
+
+    /**
+     * Indexes again the products of a category after the category is updated.
+     * The cached products keep the category as it was when they were read, so they're all dropped.
+     */
+    public void reindexProductsByCategory(Category category) {
+        productDAO.reindexProductsByCategory(category);
+        productCache.invalidateAll();
+    }
+
+    /**
+     * Takes the quantities of the products from their stock, all of them or none of them.
+     * The hot products are taken from the stock ledger and the others from the database.
+     *
+     * @param quantities the quantities by product
+     * @return false if any of the products doesn't have enough stock
+     */
+    public boolean reserveStock(Map<Product, Integer> quantities) {
+        Map<Product, Integer> hotQuantities = new HashMap<>();
+        Map<Product, Integer> otherQuantities = new HashMap<>();
+        this.splitHotProducts(quantities, hotQuantities, otherQuantities);
+        if (!stockLedger.reserveStock(hotQuantities)) {
+            return false;
+        }
+        boolean isReserved = productDAO.reserveStock(otherQuantities);
+        if (!isReserved) {
+            stockLedger.releaseStock(hotQuantities);
+        }
+        // the stock is changed by the database, so the cached products can't be trusted anymore
+        for (Product product : otherQuantities.keySet()) {
+            productCache.invalidate(product.getCode());
+        }
+        return isReserved;
+    }
+
+    /**
+     * Gives back to the stock the quantities of the products taken by a reservation.
+     */
+    public boolean releaseStock(Map<Product, Integer> quantities) {
+        Map<Product, Integer> hotQuantities = new HashMap<>();
+        Map<Product, Integer> otherQuantities = new HashMap<>();
+        this.splitHotProducts(quantities, hotQuantities, otherQuantities);
+        stockLedger.releaseStock(hotQuantities);
+        boolean isReleased = productDAO.releaseStock(otherQuantities);
+        for (Product product : otherQuantities.keySet()) {
+            productCache.invalidate(product.getCode());
+        }
+        return isReleased;
+    }
+
+    private void splitHotProducts(Map<Product, Integer> quantities,
+                                  Map<Product, Integer> hotQuantities, Map<Product, Integer> otherQuantities) {
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            if (stockLedger.isHot(entry.getKey())) {
+                hotQuantities.put(entry.getKey(), entry.getValue());
+            } else {
+                otherQuantities.put(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     public boolean createProductBrand(ProductBrand productBrand) {
@@ -42,12 +177,20 @@ public class ProductService {
         return productDAO.readProductBrandByBrand(brand);
     }
 
-    public List<Product> readProductsByDescendingDate(Integer maxProductsPerPage, Integer pageNumber) {
+    public List<ProductSummary> readProductsByDescendingDate(Integer maxProductsPerPage, Integer pageNumber) {
         return productDAO.readProductsByDescendingDate(maxProductsPerPage, pageNumber);
     }
 
-    public List<Product> readProductsByDescendingDiscount(Integer maxProductsPerPage, Integer pageNumber) {
+    public List<ProductSummary> readProductsByDescendingDiscount(Integer maxProductsPerPage, Integer pageNumber) {
         return productDAO.readProductsByDescendingDiscount(maxProductsPerPage, pageNumber);
     }
 
+    public List<ProductSummary> readProductsByDescendingDateAfter(Integer maxProductsPerPage, KeysetCursor after) {
+        return productDAO.readProductsByDescendingDateAfter(maxProductsPerPage, after);
+    }
+
+    public List<ProductSummary> readProductsByDescendingDiscountAfter(Integer maxProductsPerPage, KeysetCursor after) {
+        return productDAO.readProductsByDescendingDiscountAfter(maxProductsPerPage, after);
+    }
+
 }
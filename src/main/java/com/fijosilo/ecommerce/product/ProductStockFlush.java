@@ -0,0 +1,39 @@
+package com.fijosilo.ecommerce.product;
+
+import javax.persistence.*;
+
+/**
+ * When the stock ledger last wrote the stock of a hot product to the product table.
+ * Orders made after it may have reserved units that never reached the table, if the app stopped before the next write.
+ */
+@Entity
+@Table(name = "product_stock_flush")
+public class ProductStockFlush {
+    @Id
+    private Long productId;
+    private Long date;
+
+    public ProductStockFlush() {}
+
+    public ProductStockFlush(Long productId, Long date) {
+        this.productId = productId;
+        this.date = date;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getDate() {
+        return date;
+    }
+
+    public void setDate(Long date) {
+        this.date = date;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Objects;
+
+/**
+ * A type-ahead suggestion, the name of a product with its code or the name of a brand.
+ */
+public class ProductSuggestion {
+    private final SuggestionType type;
+    private final String text;
+    private final String code;
+    @JsonIgnore
+    private final long rank;
+
+    /**
+     * @param type what the suggestion points to
+     * @param text the text shown to the client
+     * @param code the code of the product, null for brands
+     * @param rank the suggestions with a bigger rank come first
+     */
+    public ProductSuggestion(SuggestionType type, String text, String code, long rank) {
+        this.type = type;
+        this.text = text;
+        this.code = code;
+        this.rank = rank;
+    }
+
+    public String getType() {
+        return type.toString();
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    // used to order the suggestions
+    public long getRank() {
+        return rank;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductSuggestion that = (ProductSuggestion) o;
+        return type == that.type && Objects.equals(text, that.text) && Objects.equals(code, that.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, text, code);
+    }
+
+}
@@ -0,0 +1,346 @@
+package com.fijosilo.ecommerce.product;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory type-ahead suggestions over the names of the enabled products and of their brands.
+ * The names are kept in a prefix trie that merges the chains of single children into one edge, and every node keeps
+ * the best suggestions of its whole subtree, so suggesting only walks the typed prefix and copies the node's list.
+ * A product name is reachable from the start of each of its words, so typing any word of the name suggests it.
+ * Products rank by their addition date, the newest first, and brands by the addition date of their newest product.
+ */
+public class ProductSuggestionTrie {
+    // the most suggestions kept by each node
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<ProductSuggestion> BY_RANK = Comparator
+            .comparingLong(ProductSuggestion::getRank).reversed()
+            .thenComparing(ProductSuggestion::getText)
+            .thenComparing(ProductSuggestion::getCode, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node("");
+    // ids of the products put in the trie, enabled or not
+    private final Set<Long> productIds = new HashSet<>();
+    // product id to its suggestion, so it can be removed when the product changes
+    private final Map<Long, ProductSuggestion> productSuggestions = new HashMap<>();
+    // product id to its brand
+    private final Map<Long, String> productBrands = new HashMap<>();
+    // brand to the addition dates of its products by product id, the newest one ranks the brand
+    private final Map<String, Map<Long, Long>> brandProducts = new HashMap<>();
+    private final Map<String, ProductSuggestion> brandSuggestions = new HashMap<>();
+
+    /**
+     * Adds the product and its brand to the suggestions or updates them if they were already added.
+     * Disabled products are removed from the suggestions.
+     *
+     * @param product the product to suggest, it must have an id
+     */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            productIds.add(product.getId());
+            ProductSuggestion oldSuggestion = productSuggestions.remove(product.getId());
+            if (oldSuggestion != null) {
+                remove(oldSuggestion);
+            }
+            String oldBrand = productBrands.remove(product.getId());
+            if (oldBrand != null) {
+                brandProducts.get(oldBrand).remove(product.getId());
+            }
+
+            String brand = null;
+            if (product.isEnabled()) {
+                long rank = product.getAdditionDate() == null ? 0 : product.getAdditionDate();
+                if (product.getName() != null) {
+                    ProductSuggestion suggestion = new ProductSuggestion(SuggestionType.PRODUCT, product.getName(), product.getCode(), rank);
+                    productSuggestions.put(product.getId(), suggestion);
+                    insert(suggestion);
+                }
+                if (product.getProductBrand() != null) {
+                    brand = product.getProductBrand().getBrand();
+                    productBrands.put(product.getId(), brand);
+                    brandProducts.computeIfAbsent(brand, k -> new HashMap<>()).put(product.getId(), rank);
+                }
+            }
+
+            if (oldBrand != null) {
+                rerankBrand(oldBrand);
+            }
+            if (brand != null && !brand.equals(oldBrand)) {
+                rerankBrand(brand);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the product only if it wasn't put in the trie yet.
+     *
+     * @param product the product to suggest, it must have an id
+     */
+    public void putIfAbsent(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!productIds.contains(product.getId())) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the best suggestions whose words start with the typed text.
+     *
+     * @param prefix the typed text
+     * @param maxSuggestions the maximum number of suggestions, up to {@link #MAX_SUGGESTIONS}
+     * @return the suggestions from the best one
+     */
+    public List<ProductSuggestion> suggest(String prefix, int maxSuggestions) {
+        String key = normalize(ProductIndex.tokenize(prefix), 0);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                node = node.child(key.charAt(i));
+                if (node == null) {
+                    return List.of();
+                }
+                // the typed text can end in the middle of the edge
+                int length = Math.min(node.label.length(), key.length() - i);
+                if (!node.label.regionMatches(0, key, i, length)) {
+                    return List.of();
+                }
+                i += length;
+            }
+            List<ProductSuggestion> suggestions = new ArrayList<>(Math.min(maxSuggestions, node.bestSize));
+            for (int j = 0; j < node.bestSize && j < maxSuggestions; j++) {
+                suggestions.add(node.best[j]);
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // replaces the suggestion of a brand when the addition date of its newest product changes
+    private void rerankBrand(String brand) {
+        Map<Long, Long> dates = brandProducts.get(brand);
+        ProductSuggestion oldSuggestion = brandSuggestions.get(brand);
+        if (dates.isEmpty()) {
+            brandProducts.remove(brand);
+            if (oldSuggestion != null) {
+                brandSuggestions.remove(brand);
+                remove(oldSuggestion);
+            }
+            return;
+        }
+        long rank = Collections.max(dates.values());
+        if (oldSuggestion != null && oldSuggestion.getRank() == rank) {
+            return;
+        }
+        if (oldSuggestion != null) {
+            remove(oldSuggestion);
+        }
+        ProductSuggestion suggestion = new ProductSuggestion(SuggestionType.BRAND, brand, null, rank);
+        brandSuggestions.put(brand, suggestion);
+        insert(suggestion);
+    }
+
+    private void insert(ProductSuggestion suggestion) {
+        for (String key : keys(suggestion)) {
+            insert(key, suggestion);
+        }
+    }
+
+    private void remove(ProductSuggestion suggestion) {
+        for (String key : keys(suggestion)) {
+            remove(key, suggestion);
+        }
+    }
+
+    private void insert(String key, ProductSuggestion suggestion) {
+        Node node = root;
+        int i = 0;
+        while (true) {
+            node.offer(suggestion);
+            if (i == key.length()) {
+                node.entries.add(suggestion);
+                return;
+            }
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                leaf.entries.add(suggestion);
+                leaf.offer(suggestion);
+                node.addChild(leaf);
+                return;
+            }
+            int common = 0;
+            while (common < child.label.length() && i + common < key.length()
+                    && child.label.charAt(common) == key.charAt(i + common)) {
+                common++;
+            }
+            if (common < child.label.length()) {
+                // the key leaves the edge half way, so the edge is split where they part
+                Node middle = new Node(child.label.substring(0, common));
+                node.replaceChild(middle);
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                System.arraycopy(child.best, 0, middle.best, 0, child.bestSize);
+                middle.bestSize = child.bestSize;
+                child = middle;
+            }
+            i += common;
+            node = child;
+        }
+    }
+
+    private void remove(String key, ProductSuggestion suggestion) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int i = 0;
+        path.push(node);
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null || !key.startsWith(node.label, i)) {
+                return;
+            }
+            i += node.label.length();
+            path.push(node);
+        }
+        node.entries.removeIf(entry -> entry == suggestion);
+        // the best suggestions are recomputed from the node up, each node from its children that are already done
+        Node child = null;
+        while (!path.isEmpty()) {
+            node = path.pop();
+            if (child != null && child.entries.isEmpty() && child.childCount == 0) {
+                node.removeChild(child);
+            }
+            if (node.contains(suggestion)) {
+                node.recomputeBest();
+            }
+            child = node;
+        }
+    }
+
+    // the name from the start of each of its words
+    private static Set<String> keys(ProductSuggestion suggestion) {
+        List<String> tokens = ProductIndex.tokenize(suggestion.getText());
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(normalize(tokens, i));
+        }
+        return keys;
+    }
+
+    private static String normalize(List<String> tokens, int from) {
+        return String.join(" ", tokens.subList(from, tokens.size()));
+    }
+
+    private static class Node {
+        private String label;
+        // children sorted by the first letter of their label
+        private Node[] children = new Node[0];
+        private int childCount = 0;
+        // suggestions whose key ends at this node
+        private final List<ProductSuggestion> entries = new ArrayList<>(1);
+        // best suggestions of the subtree, from the best one
+        private final ProductSuggestion[] best = new ProductSuggestion[MAX_SUGGESTIONS];
+        private int bestSize = 0;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char letter) {
+            int position = find(letter);
+            return position >= 0 ? children[position] : null;
+        }
+
+        private int find(char letter) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char middleLetter = children[middle].label.charAt(0);
+                if (middleLetter < letter) {
+                    low = middle + 1;
+                } else if (middleLetter > letter) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void addChild(Node child) {
+            int position = -find(child.label.charAt(0)) - 1;
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            System.arraycopy(children, position, children, position + 1, childCount - position);
+            children[position] = child;
+            childCount++;
+        }
+
+        private void replaceChild(Node child) {
+            children[find(child.label.charAt(0))] = child;
+        }
+
+        private void removeChild(Node child) {
+            int position = find(child.label.charAt(0));
+            System.arraycopy(children, position + 1, children, position, childCount - position - 1);
+            children[--childCount] = null;
+        }
+
+        private boolean contains(ProductSuggestion suggestion) {
+            for (int i = 0; i < bestSize; i++) {
+                if (best[i] == suggestion) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // adds a suggestion of the subtree to the best ones if it ranks among them
+        private void offer(ProductSuggestion suggestion) {
+            if (contains(suggestion)) {
+                return;
+            }
+            if (bestSize == MAX_SUGGESTIONS && BY_RANK.compare(suggestion, best[bestSize - 1]) >= 0) {
+                return;
+            }
+            int position = bestSize == MAX_SUGGESTIONS ? bestSize - 1 : bestSize;
+            while (position > 0 && BY_RANK.compare(suggestion, best[position - 1]) < 0) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = suggestion;
+            bestSize = Math.min(bestSize + 1, MAX_SUGGESTIONS);
+        }
+
+        private void recomputeBest() {
+            Arrays.fill(best, null);
+            bestSize = 0;
+            for (ProductSuggestion entry : entries) {
+                offer(entry);
+            }
+            for (int i = 0; i < childCount; i++) {
+                for (int j = 0; j < children[i].bestSize; j++) {
+                    offer(children[i].best[j]);
+                }
+            }
+        }
+    }
+
+}
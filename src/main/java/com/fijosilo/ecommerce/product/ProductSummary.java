@@ -0,0 +1,87 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Objects;
+
+/**
+ * The fields of a product shown by the product lists.
+ * Lists select these fields straight from the database, so they don't load the product entities with their
+ * brand, images and categories, the full product is only read by its code.
+ */
+public class ProductSummary {
+    @JsonIgnore
+    private final Long id;
+    private final String code;
+    private final String name;
+    private final double price;
+    private final double discount;
+    private final String thumbnailURL;
+    private final String brand;
+    private final Long additionDate;
+
+    public ProductSummary(Long id, String code, String name, double price, double discount, String thumbnailURL,
+                          String brand, Long additionDate) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.price = price;
+        this.discount = discount;
+        this.thumbnailURL = thumbnailURL;
+        this.brand = brand;
+        this.additionDate = additionDate;
+    }
+
+    public ProductSummary(Product product) {
+        this(product.getId(), product.getCode(), product.getName(), product.getPrice(), product.getDiscount(),
+                product.getThumbnailURL(), product.getProductBrand() == null ? null : product.getProductBrand().getBrand(),
+                product.getAdditionDate());
+    }
+
+    // used by the pagination cursors
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public double getDiscount() {
+        return discount;
+    }
+
+    public String getThumbnailURL() {
+        return thumbnailURL;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public Long getAdditionDate() {
+        return additionDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductSummary that = (ProductSummary) o;
+        return Objects.equals(id, that.id) && Objects.equals(code, that.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, code);
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.cache.BoundedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the stock of the hot products in memory, for the flash sales where a handful of products take most of
+ * the checkouts and the row lock of each product would make their checkouts wait for each other.
+ * The stock of a hot product is taken from a {@link StripedStockCounter}, and the changes are written behind
+ * to the product table at a fixed interval, together with the date of the write,
+ * and the cached product is dropped after each write, so it's read again with the written stock.
+ * When the app starts, the orders changed after the last write of a product are taken from its stock again,
+ * in case the app stopped before their reservations were written.
+ */
+@Component
+public class StockLedger {
+    private final StockLedgerDAO stockLedgerDAO;
+    private final ProductDAO productDAO;
+    private final BoundedCache<String, Product> productCache;
+    private final List<String> hotProductCodes;
+    private final int stripes;
+    private final long writeInterval;
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, String> productCodes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    public StockLedger(@Qualifier("JPAStockLedgerRepository") StockLedgerDAO stockLedgerDAO,
+                       @Qualifier("JPAProductRepository") ProductDAO productDAO,
+                       BoundedCache<String, Product> productCache,
+                       @Value("${com.fijosilo.ecommerce.stock_ledger.hot_products:}") String[] hotProductCodes,
+                       @Value("${com.fijosilo.ecommerce.stock_ledger.stripes:8}") int stripes,
+                       @Value("${com.fijosilo.ecommerce.stock_ledger.write_interval:1000}") long writeInterval) {
+        this.stockLedgerDAO = stockLedgerDAO;
+        this.productDAO = productDAO;
+        this.productCache = productCache;
+        this.hotProductCodes = new ArrayList<>();
+        for (String code : hotProductCodes) {
+            if (!code.isBlank()) {
+                this.hotProductCodes.add(code.trim());
+            }
+        }
+        this.stripes = stripes;
+        this.writeInterval = writeInterval;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (hotProductCodes.isEmpty()) {
+            return;
+        }
+        for (Product product : productDAO.readProductsByCodes(hotProductCodes).values()) {
+            this.load(product);
+        }
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                this.writeChanges();
+            } catch (RuntimeException e) {
+                // an exception would stop the scheduled writes, so it is only logged
+                log.warn(String.format("Couldn't write the stock of the hot products: %s", e.getMessage()));
+            }
+        }, writeInterval, writeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        // the changes since the last write are written before the app stops, so they don't need to be recovered
+        try {
+            executor.awaitTermination(writeInterval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.writeChanges();
+    }
+
+    public boolean isHot(Product product) {
+        return product.getId() != null && counters.containsKey(product.getId());
+    }
+
+    /**
+     * Takes the quantities of the hot products from their stock, all of them or none of them.
+     *
+     * @param quantities the quantities by hot product
+     * @return false if any of the products doesn't have enough stock
+     */
+    public boolean reserveStock(Map<Product, Integer> quantities) {
+        Map<StripedStockCounter, Integer> taken = new HashMap<>();
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            StripedStockCounter counter = counters.get(entry.getKey().getId());
+            if (!counter.tryTake(entry.getValue())) {
+                // give back the units already taken for the other products
+                for (Map.Entry<StripedStockCounter, Integer> takenEntry : taken.entrySet()) {
+                    takenEntry.getKey().give(takenEntry.getValue());
+                }
+                return false;
+            }
+            taken.merge(counter, entry.getValue(), Integer::sum);
+        }
+        return true;
+    }
+
+    /**
+     * Gives back to the stock of the hot products the quantities taken by a reservation.
+     */
+    public void releaseStock(Map<Product, Integer> quantities) {
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            counters.get(entry.getKey().getId()).give(entry.getValue());
+        }
+    }
+
+    /**
+     * Adds the stock change of an admin to the stock of a hot product, on top of the units reserved meanwhile.
+     * A change that takes more units than are left empties the stock.
+     * The change is written to the product table with the other changes of the product.
+     *
+     * @param product the hot product
+     * @param change the units added to the stock, negative to take them
+     */
+    public void changeStock(Product product, int change) {
+        StripedStockCounter counter = counters.get(product.getId());
+        if (change > 0) {
+            counter.give(change);
+        } else if (change < 0) {
+            counter.takeAtMost(-change);
+        }
+    }
+
+    /**
+     * Writes the stock changes of every hot product to the product table.
+     */
+    public void writeChanges() {
+        for (Map.Entry<Long, StripedStockCounter> entry : counters.entrySet()) {
+            // the date is read before the changes, so every order of a change that isn't written yet
+            // is changed after the write, orders are saved after their reservation
+            long date = System.currentTimeMillis();
+            long changes = entry.getValue().drainChanges();
+            if (changes == 0) {
+                continue;
+            }
+            if (!stockLedgerDAO.writeStock(entry.getKey(), (int) changes, date)) {
+                entry.getValue().undrainChanges(changes);
+                continue;
+            }
+            productCache.invalidate(productCodes.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Loads the stock of a hot product, taking from it the orders that may have reserved units after the last write.
+     * An order changed after the write is counted with all of its units, even the ones reserved before it,
+     * which leaves units unsold but never oversells.
+     */
+    private void load(Product product) {
+        long date = System.currentTimeMillis();
+        int stock = product.getStock();
+        int unwritten = 0;
+        ProductStockFlush flush = stockLedgerDAO.readStockFlush(product.getId());
+        if (flush != null) {
+            unwritten = stockLedgerDAO.readReservedStockSince(product.getId(), flush.getDate());
+        }
+        if (!stockLedgerDAO.writeStock(product.getId(), -unwritten, date)) {
+            // without knowing which orders were written the product is left to the database reservations
+            log.warn(String.format("Couldn't load the stock of the hot product %s.", product.getCode()));
+            return;
+        }
+        if (unwritten > 0) {
+            log.info(String.format("Recovered %d reserved units of the hot product %s.", unwritten, product.getCode()));
+        }
+        productCodes.put(product.getId(), product.getCode());
+        counters.put(product.getId(), new StripedStockCounter(stripes, Math.max(stock - unwritten, 0)));
+    }
+
+}
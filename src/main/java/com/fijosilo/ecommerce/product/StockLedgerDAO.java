@@ -0,0 +1,7 @@
+package com.fijosilo.ecommerce.product;
+
+public interface StockLedgerDAO {
+    ProductStockFlush readStockFlush(Long productId);
+    int readReservedStockSince(Long productId, Long date);
+    boolean writeStock(Long productId, int change, Long date);
+}
@@ -0,0 +1,147 @@
+package com.fijosilo.ecommerce.product;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The stock of a product split across stripes, so concurrent checkouts of the product take their units
+ * from different stripes instead of all competing for the same counter.
+ * Units are only ever taken with compare-and-set from stripes that have them, so the stock never goes negative.
+ * Every stripe also counts the changes to its units that weren't written to the database yet.
+ */
+class StripedStockCounter {
+    // the stripes are spaced a cache line apart, so updating one stripe doesn't slow down the threads using the others
+    private static final int PADDING = 8;
+    // the units of a stripe and its unwritten changes share the cache line of the stripe
+    private static final int CHANGES = 1;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    StripedStockCounter(int stripes, long stock) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        this.set(stock);
+    }
+
+    /**
+     * Takes units from the stock, all of them or none of them.
+     * A checkout first tries a single stripe, and only when no stripe has enough units on its own it gathers them
+     * from several stripes, giving them back if the stock doesn't have enough units in total.
+     *
+     * @param quantity the number of units to take, bigger than zero
+     * @return true if the units were taken
+     */
+    boolean tryTake(long quantity) {
+        int home = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (this.tryTake((home + i) % stripes, quantity)) {
+                return true;
+            }
+        }
+        return this.gather(home, quantity);
+    }
+
+    /**
+     * Gives units back to the stock.
+     *
+     * @param quantity the number of units to give back
+     */
+    void give(long quantity) {
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        cells.addAndGet(stripe * PADDING, quantity);
+        cells.addAndGet(stripe * PADDING + CHANGES, quantity);
+    }
+
+    /**
+     * Reads and clears the changes to the stock since the last time they were read,
+     * units taken count as negative changes and units given back as positive changes.
+     * No change is lost or read twice, even while checkouts are taking and giving units.
+     */
+    long drainChanges() {
+        long changes = 0;
+        for (int i = 0; i < stripes; i++) {
+            changes += cells.getAndSet(i * PADDING + CHANGES, 0);
+        }
+        return changes;
+    }
+
+    /**
+     * Puts back changes that couldn't be written, so they are written with the next changes.
+     */
+    void undrainChanges(long changes) {
+        cells.addAndGet(CHANGES, changes);
+    }
+
+    /**
+     * Reads the units left, which is only exact while no checkout is taking or giving units.
+     */
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Replaces the stock, spread evenly across the stripes, the unwritten changes are kept.
+     */
+    synchronized void set(long stock) {
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, stock / stripes + (i < stock % stripes ? 1 : 0));
+        }
+    }
+
+    private boolean tryTake(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        long units = cells.get(index);
+        while (units >= quantity) {
+            if (cells.compareAndSet(index, units, units - quantity)) {
+                cells.addAndGet(index + CHANGES, -quantity);
+                return true;
+            }
+            units = cells.get(index);
+        }
+        return false;
+    }
+
+    /**
+     * Takes as many units as the stock has, up to the quantity.
+     *
+     * @param quantity the maximum number of units to take
+     * @return the number of units taken
+     */
+    long takeAtMost(long quantity) {
+        return this.takeAtMost(0, quantity);
+    }
+
+    // only one checkout gathers at a time, so two of them can't each hold part of the units the other one needs
+    private synchronized boolean gather(int home, long quantity) {
+        long taken = this.takeAtMost(home, quantity);
+        if (taken < quantity) {
+            this.give(taken);
+            return false;
+        }
+        return true;
+    }
+
+    private synchronized long takeAtMost(int home, long quantity) {
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            int index = ((home + i) % stripes) * PADDING;
+            long units = cells.get(index);
+            while (units > 0) {
+                long take = Math.min(units, quantity - taken);
+                if (cells.compareAndSet(index, units, units - take)) {
+                    cells.addAndGet(index + CHANGES, -take);
+                    taken += take;
+                    break;
+                }
+                units = cells.get(index);
+            }
+        }
+        return taken;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.fijosilo.ecommerce.product;
+
+/**
+ * What a type-ahead suggestion points to.
+ */
+public enum SuggestionType {
+    PRODUCT("product"),
+    BRAND("brand");
+
+    private final String value;
+
+    SuggestionType(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+}
@@ -0,0 +1,46 @@
+-- Adds the quantity to the existing order products and merges the lines of the same product of each order.
+-- Run it once on MariaDB before starting the app with the order product quantities,
+-- otherwise hibernate adds the column with every existing order product having a quantity of 0.
+-- Run it before order_totals.sql, which sums the order products by their quantity.
+-- Every existing order product was a single unit, so they all get a quantity of 1,
+-- then the units of the same product in an order are merged into one line with their quantity, like the app keeps them.
+-- The merged line is priced with the average price and discount of its units, so the order totals don't change.
+-- The quantities are summed, so running it again doesn't change the merged lines.
+
+ALTER TABLE order_product
+    ADD COLUMN IF NOT EXISTS quantity INT NOT NULL DEFAULT 1;
+
+START TRANSACTION;
+
+CREATE TEMPORARY TABLE order_product_kept AS
+    SELECT MIN(op.id) AS id,
+           SUM(op.quantity) AS quantity,
+           SUM(op.price * op.quantity) / SUM(op.quantity) AS price,
+           COALESCE(SUM(op.price * op.quantity * op.discount) / NULLIF(SUM(op.price * op.quantity), 0),
+                    MIN(op.discount)) AS discount
+    FROM client_order_products cop
+        JOIN order_product op ON op.id = cop.products_id
+    GROUP BY cop.order_id, op.product_id;
+
+CREATE TEMPORARY TABLE order_product_merged AS
+    SELECT cop.products_id AS id
+    FROM client_order_products cop
+        LEFT JOIN order_product_kept k ON k.id = cop.products_id
+    WHERE k.id IS NULL;
+
+UPDATE order_product op
+    JOIN order_product_kept k ON k.id = op.id
+SET op.quantity = k.quantity,
+    op.price = k.price,
+    op.discount = k.discount;
+
+DELETE cop FROM client_order_products cop
+    JOIN order_product_merged m ON m.id = cop.products_id;
+
+DELETE op FROM order_product op
+    JOIN order_product_merged m ON m.id = op.id;
+
+DROP TEMPORARY TABLE order_product_merged;
+DROP TEMPORARY TABLE order_product_kept;
+
+COMMIT;
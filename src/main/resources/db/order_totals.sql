@@ -0,0 +1,26 @@
+-- Adds the order totals to the existing orders, summed from the products of each order.
+-- Run it once on MariaDB before starting the app with the order totals,
+-- otherwise hibernate adds the columns with every existing order totaling 0.
+-- Run it after order_product_quantity.sql, the order products are summed by their quantity.
+-- The order products are kept in the client_order_products join table, priced when the order was made.
+
+ALTER TABLE client_order
+    ADD COLUMN IF NOT EXISTS subtotal DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS discount_total DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS total DOUBLE NOT NULL DEFAULT 0;
+
+UPDATE client_order o
+    LEFT JOIN (
+        SELECT cop.order_id,
+               SUM(op.price * op.quantity) AS subtotal,
+               SUM(op.price * op.quantity * op.discount) AS discount_total,
+               SUM(op.price * op.quantity * (1 - op.discount)) AS total
+        FROM client_order_products cop
+            JOIN order_product op ON op.id = cop.products_id
+        GROUP BY cop.order_id
+    ) t ON t.order_id = o.id
+SET o.subtotal = COALESCE(t.subtotal, 0),
+    o.discount_total = COALESCE(t.discount_total, 0),
+    o.total = COALESCE(t.total, 0);
+
+CREATE INDEX IF NOT EXISTS client_order_total ON client_order (total);
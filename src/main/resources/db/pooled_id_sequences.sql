@@ -0,0 +1,33 @@
+-- Creates the id sequences used by the pooled id generator, starting after the ids that already exist.
+-- Run it once on MariaDB (10.3 or later) before starting the app with the pooled id generator,
+-- otherwise hibernate creates the sequences starting at 1 and the new ids collide with the existing ones.
+-- The increment must match the hibernate property com.fijosilo.ecommerce.id_block_size (50 by default).
+
+DELIMITER //
+
+CREATE OR REPLACE PROCEDURE create_id_sequence(IN sequence_name VARCHAR(64), IN table_name VARCHAR(64))
+BEGIN
+    SET @start = 1;
+    SET @statement = CONCAT('SELECT COALESCE(MAX(id), 0) + 1 INTO @start FROM ', table_name);
+    PREPARE statement FROM @statement;
+    EXECUTE statement;
+    DEALLOCATE PREPARE statement;
+
+    SET @statement = CONCAT('CREATE OR REPLACE SEQUENCE ', sequence_name, ' START WITH ', @start, ' INCREMENT BY 50');
+    PREPARE statement FROM @statement;
+    EXECUTE statement;
+    DEALLOCATE PREPARE statement;
+END //
+
+DELIMITER ;
+
+CALL create_id_sequence('address_sequence', 'address');
+CALL create_id_sequence('category_sequence', 'category');
+CALL create_id_sequence('client_sequence', 'client');
+CALL create_id_sequence('client_order_sequence', 'client_order');
+CALL create_id_sequence('order_product_sequence', 'order_product');
+CALL create_id_sequence('page_sequence', 'page');
+CALL create_id_sequence('product_sequence', 'product');
+CALL create_id_sequence('product_brand_sequence', 'product_brand');
+
+DROP PROCEDURE create_id_sequence;
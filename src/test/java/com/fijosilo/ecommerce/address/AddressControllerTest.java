@@ -59,6 +59,8 @@ class AddressControllerTest {
         ClientService clientService = Mockito.mock(ClientService.class);
         Mockito.when(clientService.readClientByEmail(Mockito.anyString())).thenReturn(null);
         Mockito.when(clientService.readClientByEmail(Mockito.matches("loremipsum@email.com"))).thenReturn(client);
+        Mockito.when(clientService.readClientByEmailForUpdate(Mockito.anyString())).thenReturn(null);
+        Mockito.when(clientService.readClientByEmailForUpdate(Mockito.matches("loremipsum@email.com"))).thenReturn(client);
         Mockito.when(clientService.updateClient(Mockito.any(Client.class))).thenReturn(true);
 
         AddressService addressService = Mockito.mock(AddressService.class);
@@ -0,0 +1,79 @@
+package com.fijosilo.ecommerce.authentication;
+
+import com.fijosilo.ecommerce.cache.BoundedCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ClientServiceTest {
+    private ClientDAO clientDAO;
+    private ClientService clientService;
+
+    @BeforeEach
+    void init() {
+        Client client = new Client();
+        client.setId(1L);
+        client.setEmail("loremipsum@email.com");
+
+        // client dao
+        clientDAO = Mockito.mock(ClientDAO.class);
+        Mockito.when(clientDAO.readClientByEmail(Mockito.anyString())).thenReturn(null);
+        Mockito.when(clientDAO.readClientByEmail("loremipsum@email.com")).thenReturn(client);
+        Mockito.when(clientDAO.updateClient(Mockito.any())).thenReturn(true);
+
+        // client service
+        clientService = new ClientService(clientDAO, new BoundedCache<>(10, 60000));
+    }
+
+    @Test
+    void readClientByEmailMethod_clientIsCachedTest() {
+        Client client = clientService.readClientByEmail("loremipsum@email.com");
+
+        // tests
+        assertSame(client, clientService.readClientByEmail("loremipsum@email.com"));
+        Mockito.verify(clientDAO, Mockito.times(1)).readClientByEmail("loremipsum@email.com");
+    }
+
+    @Test
+    void readClientByEmailMethod_missingClientIsNotCachedTest() {
+        assertNull(clientService.readClientByEmail("unknown@email.com"));
+        assertNull(clientService.readClientByEmail("unknown@email.com"));
+
+        // tests
+        Mockito.verify(clientDAO, Mockito.times(2)).readClientByEmail("unknown@email.com");
+    }
+
+    @Test
+    void readClientByEmailForUpdateMethod_clientIsNotReadFromTheCacheTest() {
+        clientService.readClientByEmail("loremipsum@email.com");
+        clientService.readClientByEmailForUpdate("loremipsum@email.com");
+
+        // tests
+        Mockito.verify(clientDAO, Mockito.times(2)).readClientByEmail("loremipsum@email.com");
+    }
+
+    @Test
+    void updateClientMethod_clientIsInvalidatedTest() {
+        Client client = clientService.readClientByEmail("loremipsum@email.com");
+        assertTrue(clientService.updateClient(client));
+        clientService.readClientByEmail("loremipsum@email.com");
+
+        // tests
+        Mockito.verify(clientDAO, Mockito.times(2)).readClientByEmail("loremipsum@email.com");
+    }
+
+    @Test
+    void invalidateClientMethod_clientIsInvalidatedTest() {
+        Client client = clientService.readClientByEmail("loremipsum@email.com");
+        clientService.invalidateClient(client);
+        clientService.readClientByEmail("loremipsum@email.com");
+
+        // tests
+        Mockito.verify(clientDAO, Mockito.times(2)).readClientByEmail("loremipsum@email.com");
+    }
+
+}
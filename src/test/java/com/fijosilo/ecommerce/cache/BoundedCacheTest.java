@@ -0,0 +1,71 @@
+package com.fijosilo.ecommerce.cache;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class BoundedCacheTest {
+
+    @Test
+    void getMethod_loadsMissingValuesOnceTest() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 60000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("VALUE", cache.get("value", key -> { loads.incrementAndGet(); return key.toUpperCase(); }));
+        assertEquals("VALUE", cache.get("value", key -> { loads.incrementAndGet(); return key.toUpperCase(); }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStatistics().get("hits"));
+        assertEquals(1L, cache.getStatistics().get("misses"));
+    }
+
+    @Test
+    void getMethod_nullValuesAreNotCachedTest() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 60000);
+
+        assertNull(cache.get("missing", key -> null));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putMethod_evictsTheLeastRecentlyUsedEntryTest() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 60000);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1L, cache.getStatistics().get("evictions"));
+    }
+
+    @Test
+    void getMethod_expiredEntriesAreEvictedTest() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 0);
+        cache.put("a", "A");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1L, cache.getStatistics().get("evictions"));
+    }
+
+    @Test
+    void getMethod_valuesLoadedBeforeAnInvalidationAreNotCachedTest() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 60000);
+
+        cache.get("a", key -> {
+            cache.invalidate(key);
+            return "STALE";
+        });
+
+        assertNull(cache.get("a"));
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.fijosilo.ecommerce.cache;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ETagsTest {
+
+    @Test
+    void ofVersionsMethod_changesWithTheVersionsTest() {
+        String eTag = ETags.ofVersions("product", 1L, 1643000000000L, null);
+
+        assertEquals("W/\"product-1-1643000000000-null\"", eTag);
+        assertNotEquals(eTag, ETags.ofVersions("product", 1L, 1643000000001L, null));
+        assertNotEquals(eTag, ETags.ofVersions("order", 1L, 1643000000000L, null));
+    }
+
+    @Test
+    void matchesMethod_acceptsListsWildcardsAndWeakTagsTest() {
+        String eTag = ETags.of(new byte[] {1, 2, 3});
+
+        assertTrue(ETags.matches(eTag, eTag));
+        assertTrue(ETags.matches("\"other\", " + eTag, eTag));
+        assertTrue(ETags.matches("W/" + eTag, eTag));
+        assertTrue(ETags.matches("*", eTag));
+        assertTrue(ETags.matches("\"1\"", "W/\"1\""));
+        assertFalse(ETags.matches(null, eTag));
+        assertFalse(ETags.matches("\"other\"", eTag));
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.fijosilo.ecommerce.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ResponseCacheFilterTest {
+    private CatalogVersion catalogVersion;
+    private ResponseCacheFilter responseCacheFilter;
+    private AtomicInteger handlerCalls;
+    private FilterChain filterChain;
+    private int handlerStatus;
+
+    @BeforeEach
+    void init() throws Exception {
+        catalogVersion = new CatalogVersion();
+        HandlerMapping handlerMapping = Mockito.mock(HandlerMapping.class);
+        HandlerMethod handlerMethod = new HandlerMethod(new CatalogHandler(), CatalogHandler.class.getMethod("readCatalog"));
+        Mockito.when(handlerMapping.getHandler(Mockito.any())).thenReturn(new HandlerExecutionChain(handlerMethod));
+        responseCacheFilter = new ResponseCacheFilter(new BoundedCache<>(10, 60000), catalogVersion, handlerMapping);
+
+        handlerCalls = new AtomicInteger();
+        handlerStatus = 200;
+        filterChain = (request, response) -> {
+            handlerCalls.incrementAndGet();
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            ((HttpServletResponse) response).setStatus(handlerStatus);
+            response.getOutputStream().write(("{\"calls\":" + handlerCalls.get() + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @Test
+    void doFilterMethod_servesTheSameResponseFromTheCacheTest() throws Exception {
+        MockHttpServletResponse firstResponse = this.get("a=1&b=2", null);
+        MockHttpServletResponse secondResponse = this.get("b=2&a=1", null);
+
+        assertEquals(1, handlerCalls.get());
+        assertEquals("{\"calls\":1}", firstResponse.getContentAsString());
+        assertEquals("{\"calls\":1}", secondResponse.getContentAsString());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, secondResponse.getContentType());
+        assertNotNull(firstResponse.getHeader("ETag"));
+        assertEquals(firstResponse.getHeader("ETag"), secondResponse.getHeader("ETag"));
+        assertEquals("no-cache", secondResponse.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void doFilterMethod_answersNotModifiedToAMatchingETagTest() throws Exception {
+        String eTag = this.get("a=1", null).getHeader("ETag");
+
+        MockHttpServletResponse response = this.get("a=1", eTag);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(eTag, response.getHeader("ETag"));
+    }
+
+    @Test
+    void doFilterMethod_catalogWritesSkipTheOldResponsesTest() throws Exception {
+        String eTag = this.get("a=1", null).getHeader("ETag");
+
+        catalogVersion.bump();
+        MockHttpServletResponse response = this.get("a=1", eTag);
+
+        assertEquals(2, handlerCalls.get());
+        assertEquals(200, response.getStatus());
+        assertEquals("{\"calls\":2}", response.getContentAsString());
+    }
+
+    @Test
+    void doFilterMethod_errorsAreNotCachedTest() throws Exception {
+        handlerStatus = 422;
+
+        MockHttpServletResponse response = this.get("a=1", null);
+        this.get("a=1", null);
+
+        assertEquals(2, handlerCalls.get());
+        assertEquals(422, response.getStatus());
+        assertEquals("{\"calls\":1}", response.getContentAsString());
+        assertNull(response.getHeader("ETag"));
+    }
+
+    private MockHttpServletResponse get(String queryString, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        for (String parameter : queryString.split("&")) {
+            String[] pair = parameter.split("=");
+            request.addParameter(pair[0], pair[1]);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responseCacheFilter.doFilter(request, response, filterChain);
+        return response;
+    }
+
+    static class CatalogHandler {
+        @CacheableResponse
+        public String readCatalog() {
+            return "catalog";
+        }
+    }
+
+}
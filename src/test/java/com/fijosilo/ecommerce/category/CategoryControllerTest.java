@@ -49,6 +49,9 @@ class CategoryControllerTest {
         Mockito.when(categoryService.readCategoryByName(Mockito.matches("SMARTPHONE"))).thenReturn(smartphone);
         Mockito.when(categoryService.readCategoryByName(Mockito.matches("FURNITURE"))).thenReturn(furniture);
         Mockito.when(categoryService.readCategories()).thenReturn(categories);
+        Mockito.when(categoryService.isSubcategory(Mockito.anyString(), Mockito.anyString())).thenReturn(false);
+        Mockito.when(categoryService.isSubcategory("TECHNOLOGY", "TECHNOLOGY")).thenReturn(true);
+        Mockito.when(categoryService.isSubcategory("SMARTPHONE", "TECHNOLOGY")).thenReturn(true);
         Mockito.when(categoryService.createCategory(Mockito.any(Category.class))).thenReturn(true);
         Mockito.when(categoryService.updateCategory(Mockito.any(Category.class))).thenReturn(true);
         Mockito.when(categoryService.deleteCategory(Mockito.any(Category.class))).thenReturn(true);
@@ -64,7 +67,7 @@ class CategoryControllerTest {
         HashMap<String, String> params = new HashMap<>();
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params);
+        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -79,7 +82,7 @@ class CategoryControllerTest {
         params.put("category_name", "");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params);
+        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -94,7 +97,7 @@ class CategoryControllerTest {
         params.put("category_name", "INVALID");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params);
+        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -109,7 +112,7 @@ class CategoryControllerTest {
         params.put("category_name", "TECHNOLOGY");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params);
+        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategory(params, null);
 
         // tests
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -126,7 +129,7 @@ class CategoryControllerTest {
     @Test
     void readCategoriesMethod_Test() {
         // response
-        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategories();
+        ResponseEntity<HashMap<String, Object>> response = categoryController.readCategories(null);
 
         // tests
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -326,6 +329,22 @@ class CategoryControllerTest {
         assertEquals("Field category_parent_name must be a valid category name.", response.getBody().get("error"));
     }
 
+    @Test
+    void updateCategoryMethod_newParentCategoryIsNotASubcategoryTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("category_name", "TECHNOLOGY");
+        params.put("category_parent_name", "SMARTPHONE");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = categoryController.updateCategory(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field category_parent_name can't be the category or one of its subcategories.", response.getBody().get("error"));
+    }
+
     @Test
     void updateCategoryMethod_allParametersAreValidTest() {
         // request
@@ -0,0 +1,83 @@
+package com.fijosilo.ecommerce.category;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class CategoryTreeTest {
+
+    private static Category category(long id, String name, Category parent) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setParent(parent);
+        category.setEnabled(true);
+        category.setLastModified(1643000000000L + id);
+        return category;
+    }
+
+    @Test
+    void readNamesWithSubcategoriesMethod_includesEveryDepthTest() {
+        Category technology = category(1L, "technology", null);
+        Category phones = category(2L, "phones", technology);
+        Category smartphones = category(3L, "smartphones", phones);
+        Category tvs = category(4L, "tvs", technology);
+        Category furniture = category(5L, "furniture", null);
+        CategoryTree tree = new CategoryTree(List.of(smartphones, furniture, tvs, phones, technology));
+
+        assertEquals(Set.of("technology", "phones", "smartphones", "tvs"),
+                tree.readNamesWithSubcategories(List.of("technology")));
+        assertEquals(Set.of("phones", "smartphones", "furniture"),
+                tree.readNamesWithSubcategories(List.of("phones", "furniture")));
+        assertEquals(Set.of("unknown"), tree.readNamesWithSubcategories(List.of("unknown")));
+    }
+
+    @Test
+    void isSubcategoryMethod_comparesTheSubtreesTest() {
+        Category technology = category(1L, "technology", null);
+        Category phones = category(2L, "phones", technology);
+        Category smartphones = category(3L, "smartphones", phones);
+        Category furniture = category(4L, "furniture", null);
+        CategoryTree tree = new CategoryTree(List.of(technology, phones, smartphones, furniture));
+
+        assertTrue(tree.isSubcategory("smartphones", "technology"));
+        assertTrue(tree.isSubcategory("phones", "phones"));
+        assertFalse(tree.isSubcategory("technology", "smartphones"));
+        assertFalse(tree.isSubcategory("furniture", "technology"));
+    }
+
+    @Test
+    void constructor_keepsCopiesOfTheCategoriesTest() {
+        Category technology = category(1L, "technology", null);
+        CategoryTree tree = new CategoryTree(List.of(technology));
+
+        technology.setName("changed");
+
+        assertEquals("technology", tree.readCategoryByName("technology").getName());
+        assertEquals(technology.getLastModified(), tree.readCategoryByName("technology").getLastModified());
+        assertNull(tree.readCategoryByName("changed"));
+    }
+
+    @Test
+    void constructor_breaksParentLoopsTest() {
+        Category a = category(1L, "a", null);
+        Category b = category(2L, "b", a);
+        a.setParent(b);
+        CategoryTree tree = new CategoryTree(List.of(a, b));
+
+        // one of them becomes the root of the other
+        assertEquals(2, tree.size());
+        String root = tree.readCategoryByName("a").getParent() == null ? "a" : "b";
+        String child = root.equals("a") ? "b" : "a";
+        assertNull(tree.readCategoryByName(root).getParent());
+        assertEquals(root, tree.readCategoryByName(child).getParent().getName());
+        assertTrue(tree.isSubcategory(child, root));
+        assertFalse(tree.isSubcategory(root, child));
+    }
+
+}
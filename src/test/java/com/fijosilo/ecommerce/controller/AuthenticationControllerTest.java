@@ -25,6 +25,9 @@ class AuthenticationControllerTest {
         Mockito.when(passwordEncoder.encode(Mockito.any(String.class))).thenReturn("*****");
         ClientService clientService = Mockito.mock(ClientService.class);
         Mockito.when(clientService.createClient(Mockito.any(Client.class))).thenReturn(true);
+        Mockito.when(clientService.createClient(Mockito.argThat(client -> "registered@email.com".equals(client.getEmail()))))
+                .thenReturn(false);
+        Mockito.when(clientService.readClientByEmail(Mockito.matches("registered@email.com"))).thenReturn(new Client());
         authenticationController = new AuthenticationController(passwordEncoder, clientService);
     }
 
@@ -206,6 +209,24 @@ class AuthenticationControllerTest {
         }
     }
 
+    @Test
+    void registerMethod_emailIsNotRegisteredTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("firstName", "Lorem");
+        params.put("lastName", "Ipsum");
+        params.put("email", "registered@email.com");
+        params.put("password", "l0rem!psum");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = authenticationController.register(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field email can't be the email of an already registered client.", response.getBody().get("error"));
+    }
+
     @Test
     void registerMethod_passwordIsRequiredTest() {
         // request
@@ -0,0 +1,106 @@
+package com.fijosilo.ecommerce.identifier;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the insert throughput of the increment id generator with the pooled sequence id generator,
+ * with several threads inserting into an in-memory H2 database.
+ * Run the main method with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class IdGeneratorBenchmark {
+    private static final int ROWS_PER_TRANSACTION = 20;
+
+    @Param({"increment", "pooled"})
+    private String generator;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // without a logging configuration logback logs every hibernate debug message, which would dominate the results
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, "jdbc:h2:mem:" + generator + ";DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.USER, "sa")
+                .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.POOL_SIZE, "8")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(IncrementRow.class)
+                .addAnnotatedClass(PooledRow.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insert() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(generator.equals("pooled") ? new PooledRow() : new IncrementRow());
+            }
+            transaction.commit();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Entity
+    @Table(name = "increment_row")
+    public static class IncrementRow {
+        @Id
+        @GenericGenerator(name = "increment", strategy = "increment")
+        @GeneratedValue(generator = "increment")
+        private Long id;
+        private String name = "row";
+    }
+
+    @Entity
+    @Table(name = "pooled_row")
+    public static class PooledRow {
+        @Id
+        @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+                parameters = @Parameter(name = "sequence_name", value = "pooled_row_sequence"))
+        @GeneratedValue(generator = "pooled")
+        private Long id;
+        private String name = "row";
+    }
+
+}
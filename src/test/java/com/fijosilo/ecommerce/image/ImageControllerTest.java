@@ -0,0 +1,141 @@
+package com.fijosilo.ecommerce.image;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ImageControllerTest {
+    @TempDir
+    static Path resourceFolder;
+    private static ImageProcessor imageProcessor;
+    private static ImageController imageController;
+
+    @BeforeAll
+    static void init() throws IOException {
+        Path imageFolder = Files.createDirectory(resourceFolder.resolve("image"));
+        Path image = Files.write(imageFolder.resolve("image.png"), new byte[]{1, 2, 3, 4});
+        Files.setLastModifiedTime(image, FileTime.fromMillis(1643128092000L));
+        Path thumbnail = Files.write(imageFolder.resolve("image_160.png"), new byte[]{5, 6});
+        Files.setLastModifiedTime(thumbnail, FileTime.fromMillis(1643128093000L));
+        Path full = Files.write(imageFolder.resolve("image_1920.png"), new byte[]{7, 8, 9});
+        Files.setLastModifiedTime(full, FileTime.fromMillis(1643128094000L));
+        Files.write(resourceFolder.resolve("secret.png"), new byte[]{1});
+
+        // image processor
+        imageProcessor = Mockito.mock(ImageProcessor.class);
+
+        imageController = new ImageController(resourceFolder.toString(), imageProcessor);
+    }
+
+    @Test
+    void readImageMethod_imageExistsTest() {
+        // response
+        ResponseEntity<Resource> response = imageController.readImage("missing.png", new HashMap<>());
+
+        // tests
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void readImageMethod_imageIsInsideTheImageFolderTest() {
+        // response
+        ResponseEntity<Resource> response = imageController.readImage("../secret.png", new HashMap<>());
+
+        // tests
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void readImageMethod_fullSizeIsServedByDefaultWithCachingHeadersTest() throws IOException {
+        // response
+        ResponseEntity<Resource> response = imageController.readImage("image.png", new HashMap<>());
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
+        assertEquals(3, response.getHeaders().getContentLength());
+        assertEquals(String.format("\"%x-%x\"", 1643128094000L, 3), response.getHeaders().getETag());
+        assertEquals(1643128094000L, response.getHeaders().getLastModified());
+        assertEquals("max-age=31536000, public", response.getHeaders().getCacheControl());
+        assertArrayEquals(new byte[]{7, 8, 9}, response.getBody().getInputStream().readAllBytes());
+    }
+
+    @Test
+    void readImageMethod_widthIsValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("w", "wide");
+
+        // response
+        ResponseEntity<Resource> response = imageController.readImage("image.png", params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+    }
+
+    @Test
+    void readImageMethod_widthServesTheGeneratedSizeTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("w", "100");
+
+        // response
+        ResponseEntity<Resource> response = imageController.readImage("image.png", params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
+        assertEquals(String.format("\"%x-%x\"", 1643128093000L, 2), response.getHeaders().getETag());
+        assertEquals("max-age=31536000, public", response.getHeaders().getCacheControl());
+        assertArrayEquals(new byte[]{5, 6}, response.getBody().getInputStream().readAllBytes());
+    }
+
+    @Test
+    void readImageMethod_widthServesTheOriginalUntilTheSizeIsGeneratedTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("w", "480");
+
+        // response
+        ResponseEntity<Resource> response = imageController.readImage("image.png", params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, response.getBody().getInputStream().readAllBytes());
+    }
+
+    @Test
+    void createImageMethod_sizesAreGeneratedInTheBackgroundTest() {
+        // request
+        MockMultipartFile file = new MockMultipartFile("image", "photo.png", "image/png", new byte[]{1});
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = imageController.createImage(file);
+
+        // tests
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        String relPath = (String) response.getBody().get("relPath");
+        assertTrue(relPath.matches("/image/[0-9a-f-]{36}[.]png"));
+        Path image = resourceFolder.resolve(relPath.substring(1));
+        assertTrue(Files.isRegularFile(image));
+        Mockito.verify(imageProcessor).generateSizes(image, "png");
+    }
+
+}
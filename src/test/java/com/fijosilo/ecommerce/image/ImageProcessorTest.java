@@ -0,0 +1,89 @@
+package com.fijosilo.ecommerce.image;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ImageProcessorTest {
+    @TempDir
+    static Path imageFolder;
+    private static ImageProcessor imageProcessor;
+
+    @BeforeAll
+    static void init() {
+        imageProcessor = new ImageProcessor(1, 1);
+    }
+
+    @Test
+    void generateSizesMethod_sizesKeepTheAspectRatioTest() throws IOException, ExecutionException, InterruptedException {
+        // request
+        Path image = imageFolder.resolve("wide.png");
+        ImageIO.write(new BufferedImage(3000, 1000, BufferedImage.TYPE_INT_RGB), "png", image.toFile());
+
+        // response
+        imageProcessor.generateSizes(image, "png").get();
+
+        // tests
+        BufferedImage thumbnail = ImageIO.read(imageFolder.resolve("wide_160.png").toFile());
+        assertEquals(160, thumbnail.getWidth());
+        assertEquals(53, thumbnail.getHeight());
+        BufferedImage full = ImageIO.read(imageFolder.resolve("wide_1920.png").toFile());
+        assertEquals(1920, full.getWidth());
+        assertEquals(640, full.getHeight());
+        // the original is kept as uploaded
+        assertEquals(3000, ImageIO.read(image.toFile()).getWidth());
+    }
+
+    @Test
+    void generateSizesMethod_imagesAreNotScaledUpTest() throws IOException, ExecutionException, InterruptedException {
+        // request
+        Path image = imageFolder.resolve("small.png");
+        ImageIO.write(new BufferedImage(200, 400, BufferedImage.TYPE_INT_ARGB), "png", image.toFile());
+
+        // response
+        imageProcessor.generateSizes(image, "png").get();
+
+        // tests
+        BufferedImage thumbnail = ImageIO.read(imageFolder.resolve("small_160.png").toFile());
+        assertEquals(80, thumbnail.getWidth());
+        assertEquals(160, thumbnail.getHeight());
+        assertTrue(thumbnail.getColorModel().hasAlpha());
+        BufferedImage detail = ImageIO.read(imageFolder.resolve("small_960.png").toFile());
+        assertEquals(200, detail.getWidth());
+        assertEquals(400, detail.getHeight());
+    }
+
+    @Test
+    void generateSizesMethod_invalidImagesAreIgnoredTest() throws IOException, ExecutionException, InterruptedException {
+        // request
+        Path image = Files.write(imageFolder.resolve("broken.png"), new byte[]{1, 2, 3});
+
+        // response
+        imageProcessor.generateSizes(image, "png").get();
+
+        // tests
+        assertFalse(Files.exists(imageFolder.resolve("broken_160.png")));
+        assertFalse(Files.exists(imageFolder.resolve("broken_160.png.tmp")));
+    }
+
+    @Test
+    void forWidthMethod_smallestSizeThatFitsTest() {
+        assertEquals(ImageSize.THUMBNAIL, ImageSize.forWidth(1));
+        assertEquals(ImageSize.LISTING, ImageSize.forWidth(161));
+        assertEquals(ImageSize.DETAIL, ImageSize.forWidth(960));
+        assertEquals(ImageSize.FULL, ImageSize.forWidth(5000));
+        assertEquals("image_480.jpeg", ImageSize.LISTING.fileName("image.jpeg"));
+    }
+
+}
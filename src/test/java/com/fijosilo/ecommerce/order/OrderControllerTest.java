@@ -3,19 +3,23 @@ package com.fijosilo.ecommerce.order;
 import com.fijosilo.ecommerce.address.Address;
 import com.fijosilo.ecommerce.authentication.Client;
 import com.fijosilo.ecommerce.authentication.ClientService;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
 import com.fijosilo.ecommerce.product.Product;
 import com.fijosilo.ecommerce.product.ProductService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,8 +28,12 @@ class OrderControllerTest {
     private static OrderController orderController;
     private static Authentication authentication, authenticationInvalidChargeAddress, authenticationInvalidDeliverAddress;
     private static Client clientValid, clientInvalidChargeAddress, clientInvalidDeliverAddress;
+    private static Product productPhone, productTv;
+    private static ProductService productService;
+    private static OrderService orderService;
     private static Order orderOwned, orderNotOwned;
     private static List<Order> ordersOwned, orders;
+    private static List<OrderSummary> orderSummariesOwned;
 
     @BeforeAll
     static void init() {
@@ -102,7 +110,7 @@ class OrderControllerTest {
 
         // product service
 
-        Product productPhone = new Product();
+        productPhone = new Product();
         productPhone.setId(1L);
         productPhone.setCode("QS1642517236929");
         productPhone.setProductBrand(null);
@@ -116,7 +124,7 @@ class OrderControllerTest {
         productPhone.setAdditionDate(1642517236929L);
         productPhone.setEnabled(true);
 
-        Product productTv = new Product();
+        productTv = new Product();
         productTv.setId(1L);
         productTv.setCode("QT1642517235938");
         productTv.setProductBrand(null);
@@ -130,10 +138,21 @@ class OrderControllerTest {
         productTv.setAdditionDate(1642517236929L);
         productTv.setEnabled(true);
 
-        ProductService productService = Mockito.mock(ProductService.class);
-        Mockito.when(productService.readProductByCode(Mockito.anyString())).thenReturn(null);
-        Mockito.when(productService.readProductByCode(Mockito.matches("QS1642517236929"))).thenReturn(productPhone);
-        Mockito.when(productService.readProductByCode(Mockito.matches("QT1642517235938"))).thenReturn(productTv);
+        productService = Mockito.mock(ProductService.class);
+        Mockito.when(productService.readProductsByCodes(Mockito.anyCollection())).thenAnswer(invocation -> {
+            HashMap<String, Product> products = new HashMap<>();
+            for (Product product : List.of(productPhone, productTv)) {
+                if (invocation.<Collection<String>>getArgument(0).contains(product.getCode())) {
+                    products.put(product.getCode(), product);
+                }
+            }
+            return products;
+        });
+        Mockito.when(productService.reserveStock(Mockito.anyMap())).thenAnswer(invocation -> {
+            Map<Product, Integer> quantities = invocation.getArgument(0);
+            return quantities.entrySet().stream().allMatch(entry -> entry.getKey().getStock() >= entry.getValue());
+        });
+        Mockito.when(productService.releaseStock(Mockito.anyMap())).thenReturn(true);
 
         // order service
 
@@ -164,11 +183,14 @@ class OrderControllerTest {
         ordersOwned = new LinkedList<>();
         ordersOwned.add(orderOwned);
 
+        orderSummariesOwned = new LinkedList<>();
+        orderSummariesOwned.add(new OrderSummary(orderOwned));
+
         orders = new LinkedList<>();
         orders.add(orderOwned);
         orders.add(orderNotOwned);
 
-        OrderService orderService = Mockito.mock(OrderService.class);
+        orderService = Mockito.mock(OrderService.class);
         Mockito.when(orderService.readOrderByCode(Mockito.anyString())).thenReturn(null);
         Mockito.when(orderService.readOrderByCode(Mockito.matches("9a3e45d4-7dfb-11ec-90d6-0242ac120003"))).thenReturn(orderOwned);
         Mockito.when(orderService.readOrderByCode(Mockito.matches("9a3e484a-7dfb-11ec-90d6-0242ac120003"))).thenReturn(orderNotOwned);
@@ -179,13 +201,17 @@ class OrderControllerTest {
         Mockito.when(orderService.readOrdersByClient(Mockito.eq(clientValid),
                 Mockito.anyInt(),
                 Mockito.anyInt()
-        )).thenReturn(ordersOwned);
+        )).thenReturn(orderSummariesOwned);
+        Mockito.when(orderService.readOrdersLastModifiedByClient(Mockito.eq(clientValid))).thenReturn(1643000000000L);
         Mockito.when(orderService.readOrdersByFilters(Mockito.isNull(),
                 Mockito.isNull(),
                 Mockito.isNull(),
                 Mockito.isNull(),
                 Mockito.isNull(),
                 Mockito.isNull(),
+                Mockito.isNull(),
+                Mockito.isNull(),
+                Mockito.any(OrderSort.class),
                 Mockito.anyInt(),
                 Mockito.anyInt()
         )).thenReturn(orders);
@@ -195,12 +221,29 @@ class OrderControllerTest {
                 Mockito.any(PaymentMethod.class),
                 Mockito.anyBoolean(),
                 Mockito.anyBoolean(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(OrderSort.class),
                 Mockito.anyInt(),
                 Mockito.anyInt()
         )).thenReturn(ordersOwned);
+        Mockito.when(orderService.readOrdersByFiltersAfter(Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.anyInt(),
+                Mockito.any(KeysetCursor.class)
+        )).thenReturn(orders);
         Mockito.when(orderService.createOrder(Mockito.any(Order.class))).thenReturn(true);
         Mockito.when(orderService.updateOrder(Mockito.any(Order.class))).thenReturn(true);
         Mockito.when(orderService.deleteOrder(Mockito.any(Order.class))).thenReturn(true);
+        Mockito.when(orderService.cancelOrder(Mockito.any(Order.class), Mockito.anyString()))
+                .thenAnswer(invocation -> !((Order) invocation.getArgument(0)).isPaid());
 
         // order controller
         orderController = new OrderController(orderService, clientService, productService);
@@ -214,7 +257,7 @@ class OrderControllerTest {
         HashMap<String, String> params = new HashMap<>();
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(null, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(null, params, null);
 
         // tests
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
@@ -226,7 +269,7 @@ class OrderControllerTest {
         HashMap<String, String> params = new HashMap<>();
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -241,7 +284,7 @@ class OrderControllerTest {
         params.put("code", "");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -256,7 +299,7 @@ class OrderControllerTest {
         params.put("code", "INVALID");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -271,7 +314,7 @@ class OrderControllerTest {
         params.put("code", "9a3e484a-7dfb-11ec-90d6-0242ac120003");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -279,6 +322,26 @@ class OrderControllerTest {
         assertEquals("An order with the code provided was not found.", response.getBody().get("error"));
     }
 
+    @Test
+    void readOrderMethod_linesWithoutProductHaveATagTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("code", "9a3e45d4-7dfb-11ec-90d6-0242ac120003");
+
+        // response
+        OrderProduct orderProduct = new OrderProduct();
+        orderProduct.setPrice(9.99);
+        orderProduct.setDiscount(0.0);
+        orderProduct.setQuantity(1);
+        orderOwned.getProducts().add(orderProduct);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params, null);
+        orderOwned.getProducts().remove(orderProduct);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getETag());
+    }
+
     @Test
     void readOrderMethod_isAuthenticatedAndAllParametersAreValidTest() {
         // request
@@ -286,7 +349,7 @@ class OrderControllerTest {
         params.put("code", "9a3e45d4-7dfb-11ec-90d6-0242ac120003");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrder(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -305,7 +368,7 @@ class OrderControllerTest {
         HashMap<String, String> params = new HashMap<>();
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -320,7 +383,7 @@ class OrderControllerTest {
         params.put("code", "");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -335,7 +398,7 @@ class OrderControllerTest {
         params.put("code", "INVALID");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -350,7 +413,7 @@ class OrderControllerTest {
         params.put("code", "9a3e484a-7dfb-11ec-90d6-0242ac120003");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrder(params, null);
 
         // tests
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -369,7 +432,7 @@ class OrderControllerTest {
         HashMap<String, String> params = new HashMap<>();
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(null, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(null, params, null);
 
         // tests
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
@@ -382,7 +445,7 @@ class OrderControllerTest {
         params.put("max_orders_per_page", "");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -397,7 +460,7 @@ class OrderControllerTest {
         params.put("max_orders_per_page", "9.5");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -412,7 +475,7 @@ class OrderControllerTest {
         params.put("max_orders_per_page", "0");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -427,7 +490,7 @@ class OrderControllerTest {
         params.put("page_number", "");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -442,7 +505,7 @@ class OrderControllerTest {
         params.put("page_number", "9.5");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -457,7 +520,7 @@ class OrderControllerTest {
         params.put("page_number", "0");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -473,7 +536,7 @@ class OrderControllerTest {
         params.put("page_number", "1");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params);
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, null);
 
         // tests
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -481,7 +544,43 @@ class OrderControllerTest {
         assertTrue(response.getBody().containsKey("orders"));
         assertNotNull(response.getBody().get("orders"));
         assertTrue(response.getBody().get("orders") instanceof List);
-        assertEquals(ordersOwned, response.getBody().get("orders"));
+        assertEquals(orderSummariesOwned, response.getBody().get("orders"));
+    }
+
+    @Test
+    void readOrdersMethod_matchingETagIsNotModifiedTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+
+        // response
+        String eTag = orderController.readOrders(authentication, params, null).getHeaders().getETag();
+        ResponseEntity<HashMap<String, Object>> response = orderController.readOrders(authentication, params, eTag);
+
+        // tests
+        assertNotNull(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void readOrdersMethod_eTagChangesWithThePageTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        HashMap<String, String> nextPageParams = new HashMap<>();
+        nextPageParams.put("page_number", "2");
+        HashMap<String, String> biggerPageParams = new HashMap<>();
+        biggerPageParams.put("max_orders_per_page", "20");
+
+        // response
+        String eTag = orderController.readOrders(authentication, params, null).getHeaders().getETag();
+        ResponseEntity<HashMap<String, Object>> nextPageResponse = orderController.readOrders(authentication, nextPageParams, eTag);
+        ResponseEntity<HashMap<String, Object>> biggerPageResponse = orderController.readOrders(authentication, biggerPageParams, eTag);
+
+        // tests
+        assertEquals(HttpStatus.OK, nextPageResponse.getStatusCode());
+        assertEquals(HttpStatus.OK, biggerPageResponse.getStatusCode());
+        assertNotEquals(eTag, nextPageResponse.getHeaders().getETag());
+        assertNotEquals(eTag, biggerPageResponse.getHeaders().getETag());
     }
 
 
@@ -679,6 +778,142 @@ class OrderControllerTest {
         assertEquals("Field order_is_fulfilled can't be blank.", response.getBody().get("error"));
     }
 
+    @Test
+    void adminReadOrdersMethod_minOrderTotalIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("min_order_total", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field min_order_total can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_minOrderTotalIsValidDoubleTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("min_order_total", "a");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field min_order_total must be a valid rational number.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_minOrderTotalIsNotNegativeTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("min_order_total", "-1.0");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field min_order_total can't be negative.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_maxOrderTotalIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_order_total", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field max_order_total can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_maxOrderTotalIsValidDoubleTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_order_total", "a");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field max_order_total must be a valid rational number.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_maxOrderTotalIsNotNegativeTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_order_total", "-1.0");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field max_order_total can't be negative.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_minOrderTotalIsNotBiggerThanMaxOrderTotalTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("min_order_total", "20.0");
+        params.put("max_order_total", "10.0");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field min_order_total can't be bigger than max_order_total.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_sortByIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("sort_by", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field sort_by can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_sortByIsValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("sort_by", "INVALID");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field sort_by must be date or total.", response.getBody().get("error"));
+    }
+
     @Test
     void adminReadOrdersMethod_maxOrdersPerPageIsNotBlankTest() {
         // request
@@ -786,6 +1021,118 @@ class OrderControllerTest {
         assertEquals(orders, response.getBody().get("orders"));
     }
 
+    @Test
+    void adminReadOrdersMethod_afterIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_afterIsNotUsedWithPageNumberTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("page_number", "2");
+        params.put("after", KeysetCursor.of(1643128092458L, 1L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be used together with page_number.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_afterIsValidCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", KeysetCursor.of(1L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after must be a valid cursor.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_afterTotalIsFiniteTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("sort_by", "total");
+        params.put("after", KeysetCursor.of(Double.NaN, 1L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after must be a valid cursor.", response.getBody().get("error"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_afterIsValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", KeysetCursor.of(1643128092458L, 1L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("orders"));
+        assertEquals(orders, response.getBody().get("orders"));
+        assertFalse(response.getBody().containsKey("next"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_fullPageHasNextCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_orders_per_page", "2");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("next"));
+        assertEquals(KeysetCursor.of(orderNotOwned.getDate(), orderNotOwned.getId()).encode(), response.getBody().get("next"));
+    }
+
+    @Test
+    void adminReadOrdersMethod_fullPageSortedByTotalHasTotalCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_orders_per_page", "2");
+        params.put("sort_by", "total");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminReadOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("next"));
+        assertEquals(KeysetCursor.of(orderNotOwned.getTotal(), orderNotOwned.getId()).encode(), response.getBody().get("next"));
+    }
+
 
 
     @Test
@@ -874,6 +1221,22 @@ class OrderControllerTest {
         assertEquals("Field product_codes[1] must be a valid product code.", response.getBody().get("error"));
     }
 
+    @Test
+    void createOrderMethod_invalidProductCodeIsReportedBeforeLaterBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("product_codes[0]", "INVALID");
+        params.put("product_codes[1]", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.createOrder(authentication, params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field product_codes[0] must be a valid product code.", response.getBody().get("error"));
+    }
+
     @Test
     void createOrderMethod_paymentMethodIsRequiredTest() {
         // request
@@ -939,7 +1302,71 @@ class OrderControllerTest {
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
     }
 
+    @Test
+    void createOrderMethod_repeatedProductCodesAreOneLineTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("product_codes[0]", "QS1642517236929");
+        params.put("product_codes[1]", "QT1642517235938");
+        params.put("product_codes[2]", "QS1642517236929");
+        params.put("payment_method", "PAYPAL");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.createOrder(authentication, params);
+
+        // tests
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+
+        Order order = (Order) response.getBody().get("order");
+        assertEquals(2, order.getProducts().size());
+        assertEquals("QS1642517236929", order.getProducts().get(0).getProduct().getCode());
+        assertEquals(2, order.getProducts().get(0).getQuantity());
+        assertEquals(1, order.getProducts().get(1).getQuantity());
+        assertEquals(2 * 199.99 + 499.99, order.getTotal(), 0.001);
+    }
+
+
+
+    @Test
+    void createOrderMethod_productsHaveEnoughStockTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        for (int i = 0; i < 11; i++) {
+            params.put(String.format("product_codes[%d]", i), "QS1642517236929");
+        }
+        params.put("payment_method", "PAYPAL");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = orderController.createOrder(authentication, params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Not enough stock for the products.", response.getBody().get("error"));
+    }
+
+    @Test
+    void createOrderMethod_stockIsReleasedWhenTheOrderIsNotCreatedTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("product_codes[0]", "QS1642517236929");
+        params.put("product_codes[1]", "QS1642517236929");
+        params.put("payment_method", "PAYPAL");
+
+        // response
+        Mockito.clearInvocations(productService);
+        Mockito.when(orderService.createOrder(Mockito.any(Order.class))).thenReturn(false);
+        ResponseEntity<HashMap<String, Object>> response = orderController.createOrder(authentication, params);
+        Mockito.when(orderService.createOrder(Mockito.any(Order.class))).thenReturn(true);
 
+        // tests
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals("Database couldn't register the order.", response.getBody().get("error"));
+        InOrder inOrder = Mockito.inOrder(productService, orderService);
+        inOrder.verify(productService).reserveStock(Map.of(productPhone, 2));
+        inOrder.verify(orderService).createOrder(Mockito.any(Order.class));
+        inOrder.verify(productService).releaseStock(Map.of(productPhone, 2));
+    }
 
     @Test
     void adminUpdateOrderMethod_orderCodeIsRequiredTest() {
@@ -1117,6 +1544,98 @@ class OrderControllerTest {
         assertEquals("Field status can't be blank.", response.getBody().get("error"));
     }
 
+    @Test
+    void adminUpdateOrderMethod_productsHaveEnoughStockTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("code", "9a3e45d4-7dfb-11ec-90d6-0242ac120003");
+        for (int i = 0; i < 11; i++) {
+            params.put(String.format("add_product_codes[%d]", i), "QS1642517236929");
+        }
+
+        // response
+        int lines = orderOwned.getProducts().size();
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminUpdateOrder(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Not enough stock for the products.", response.getBody().get("error"));
+        assertEquals(lines, orderOwned.getProducts().size());
+    }
+
+    @Test
+    void adminUpdateOrderMethod_onlyTheChangedUnitsAreReservedOrReleasedTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("code", "9a3e45d4-7dfb-11ec-90d6-0242ac120003");
+        params.put("add_product_codes[0]", "QT1642517235938");
+        params.put("rem_product_codes[0]", "QS1642517236929");
+        params.put("rem_product_codes[1]", "QS1642517236929");
+        params.put("rem_product_codes[2]", "QS1642517236929");
+
+        // response
+        orderOwned.addProduct(productPhone, 2);
+        Mockito.clearInvocations(productService);
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminUpdateOrder(params);
+        orderOwned.remProduct(productTv, 1);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Mockito.verify(productService).reserveStock(Map.of(productTv, 1));
+        // only the 2 units in the order go back to the stock
+        Mockito.verify(productService).releaseStock(Map.of(productPhone, 2));
+    }
+
+    @Test
+    void adminUpdateOrderMethod_cancelledOrderCantBePaidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("code", orderNotOwned.getCode());
+        params.put("order_paid", "true");
+
+        // response
+        orderNotOwned.setFulfilled(true);
+        orderNotOwned.setStatus("Payment expired");
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminUpdateOrder(params);
+        orderNotOwned.setFulfilled(false);
+        orderNotOwned.setStatus("Waiting for payment");
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Order can't be paid anymore, its status is 'Payment expired'.", response.getBody().get("error"));
+        assertFalse(orderNotOwned.isPaid());
+    }
+
+    @Test
+    void adminUpdateOrderMethod_orderChangedSinceItWasReadIsNotSavedTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("code", orderNotOwned.getCode());
+        params.put("add_product_codes[0]", "QT1642517235938");
+
+        // response
+        Order changedOrder = new Order();
+        changedOrder.setCode(orderNotOwned.getCode());
+        changedOrder.setLastModified(1643128099999L);
+        Mockito.when(orderService.readOrderByCode(orderNotOwned.getCode())).thenReturn(orderNotOwned, changedOrder);
+        Mockito.when(orderService.updateOrder(orderNotOwned)).thenReturn(false);
+        Mockito.clearInvocations(productService);
+        ResponseEntity<HashMap<String, Object>> response = orderController.adminUpdateOrder(params);
+        orderNotOwned.remProduct(productTv, 1);
+        Mockito.when(orderService.readOrderByCode(orderNotOwned.getCode())).thenReturn(orderNotOwned);
+        Mockito.when(orderService.updateOrder(orderNotOwned)).thenReturn(true);
+
+        // tests
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Order was changed while it was being updated, read it again before updating it.",
+                response.getBody().get("error"));
+        // the units reserved for the update go back to the stock
+        Mockito.verify(productService).releaseStock(Map.of(productTv, 1));
+    }
+
     @Test
     void adminUpdateOrderMethod_allParametersAreValidTest() {
         // request
@@ -1226,6 +1745,25 @@ class OrderControllerTest {
         assertEquals("Order has already been paid. Contact the support to cancel your order", response.getBody().get("error"));
     }
 
+    @Test
+    void deleteOrderMethod_orderIsAlreadyCancelledTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("code", orderOwned.getCode());
+
+        // response
+        orderOwned.setFulfilled(true);
+        orderOwned.setStatus("Payment expired");
+        ResponseEntity<HashMap<String, Object>> response = orderController.deleteOrder(authentication, params);
+        orderOwned.setFulfilled(false);
+        orderOwned.setStatus("Waiting for payment");
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Order can't be cancelled anymore, its status is 'Payment expired'.", response.getBody().get("error"));
+    }
+
     @Test
     void deleteOrderMethod_isAuthenticatedAndAllParametersAreValidTest() {
         // request
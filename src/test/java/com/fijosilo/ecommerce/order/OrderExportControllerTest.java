@@ -0,0 +1,177 @@
+package com.fijosilo.ecommerce.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fijosilo.ecommerce.authentication.Client;
+import com.fijosilo.ecommerce.authentication.ClientService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class OrderExportControllerTest {
+    private static OrderExportController orderExportController;
+
+    @BeforeAll
+    static void init() {
+        // client service
+
+        Client client = new Client();
+        client.setId(1L);
+        client.setEmail("loremipsum@email.com");
+
+        ClientService clientService = Mockito.mock(ClientService.class);
+        Mockito.when(clientService.readClientByEmail(Mockito.anyString())).thenReturn(null);
+        Mockito.when(clientService.readClientByEmail(Mockito.matches("loremipsum@email.com"))).thenReturn(client);
+
+        // order service
+
+        Order order = new Order();
+        order.setId(1L);
+        order.setCode("9a3e45d4-7dfb-11ec-90d6-0242ac120003");
+        order.setClient(client);
+        order.setDate(1643128092458L);
+        order.setChargeAddress("Rua do Texto, 1");
+        order.setPaymentMethod("PAYPAL");
+        order.setPaid(false);
+        order.setDeliverAddress("Rua do Texto \"3 ED\"");
+        order.setStatus("Waiting for payment");
+        order.setFulfilled(false);
+
+        OrderService orderService = Mockito.mock(OrderService.class);
+        Mockito.doAnswer(invocation -> {
+            invocation.<Consumer<Order>>getArgument(6).accept(order);
+            return null;
+        }).when(orderService).exportOrdersByFilters(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any());
+
+        // order export controller
+        orderExportController = new OrderExportController(orderService, clientService, new ObjectMapper());
+    }
+
+    private static String write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void adminExportOrdersMethod_formatIsNotBlankTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("format", "");
+
+        // response
+        ResponseEntity<StreamingResponseBody> response = orderExportController.adminExportOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("{\"error\":\"Field format can't be blank.\"}", write(response.getBody()));
+    }
+
+    @Test
+    void adminExportOrdersMethod_formatIsValidTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("format", "xml");
+
+        // response
+        ResponseEntity<StreamingResponseBody> response = orderExportController.adminExportOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("{\"error\":\"Field format must be ndjson or csv.\"}", write(response.getBody()));
+    }
+
+    @Test
+    void adminExportOrdersMethod_clientEmailIsValidTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("client_email", "unknown@email.com");
+
+        // response
+        ResponseEntity<StreamingResponseBody> response = orderExportController.adminExportOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("{\"error\":\"Field client_email must be a valid client email.\"}", write(response.getBody()));
+    }
+
+    @Test
+    void adminExportOrdersMethod_minDateIsNotNewerThanMaxDateTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("min_order_date", "1643128092458");
+        params.put("max_order_date", "1643128092457");
+
+        // response
+        ResponseEntity<StreamingResponseBody> response = orderExportController.adminExportOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("{\"error\":\"Field min_order_date can't be older than max_order_date.\"}", write(response.getBody()));
+    }
+
+    @Test
+    void adminExportOrdersMethod_paymentMethodIsValidTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("order_payment_method", "CASH");
+
+        // response
+        ResponseEntity<StreamingResponseBody> response = orderExportController.adminExportOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("{\"error\":\"Field order_payment_method must be a valid payment method.\"}", write(response.getBody()));
+    }
+
+    @Test
+    void adminExportOrdersMethod_ndjsonIsTheDefaultFormatTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("client_email", "loremipsum@email.com");
+
+        // response
+        ResponseEntity<StreamingResponseBody> response = orderExportController.adminExportOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.valueOf("application/x-ndjson"), response.getHeaders().getContentType());
+        assertEquals("{\"code\":\"9a3e45d4-7dfb-11ec-90d6-0242ac120003\",\"clientEmail\":\"loremipsum@email.com\"," +
+                "\"date\":1643128092458,\"chargeAddress\":\"Rua do Texto, 1\",\"paymentMethod\":\"PAYPAL\",\"paid\":false," +
+                "\"deliverAddress\":\"Rua do Texto \\\"3 ED\\\"\",\"status\":\"Waiting for payment\",\"fulfilled\":false}\n",
+                write(response.getBody()));
+    }
+
+    @Test
+    void adminExportOrdersMethod_csvValuesAreQuotedTest() throws IOException {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("format", "csv");
+
+        // response
+        ResponseEntity<StreamingResponseBody> response = orderExportController.adminExportOrders(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.valueOf("text/csv"), response.getHeaders().getContentType());
+        assertEquals("code,clientEmail,date,chargeAddress,paymentMethod,paid,deliverAddress,status,fulfilled\r\n" +
+                "9a3e45d4-7dfb-11ec-90d6-0242ac120003,loremipsum@email.com,1643128092458,\"Rua do Texto, 1\",PAYPAL,false," +
+                "\"Rua do Texto \"\"3 ED\"\"\",Waiting for payment,false\r\n",
+                write(response.getBody()));
+    }
+
+}
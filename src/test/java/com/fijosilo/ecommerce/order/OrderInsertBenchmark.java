@@ -0,0 +1,121 @@
+package com.fijosilo.ecommerce.order;
+
+import com.fijosilo.ecommerce.identifier.PooledSequenceIdGenerator;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of writing an order with its lines row by row, with a statement per line,
+ * with writing it in JDBC batches, with the lines sent together when the order is flushed,
+ * into an in-memory H2 database.
+ * Run the main method with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderInsertBenchmark {
+    private static final int LINES_PER_ORDER = 100;
+
+    @Param({"row-by-row", "batched"})
+    private String write;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // without a logging configuration logback logs every hibernate debug message, which would dominate the results
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        boolean isBatched = write.equals("batched");
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, "jdbc:h2:mem:" + write + ";DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.USER, "sa")
+                .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, isBatched ? "50" : "1")
+                .applySetting(AvailableSettings.ORDER_INSERTS, String.valueOf(isBatched))
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(OrderRow.class)
+                .addAnnotatedClass(LineRow.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void insertOrder() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            OrderRow order = new OrderRow();
+            for (int i = 0; i < LINES_PER_ORDER; i++) {
+                LineRow line = new LineRow();
+                line.quantity = i + 1;
+                session.persist(line);
+                order.lines.add(line);
+                if (write.equals("row-by-row")) {
+                    // the statement of every line goes out on its own
+                    session.flush();
+                }
+            }
+            session.persist(order);
+            // a single flush boundary, like the order repository
+            session.flush();
+            transaction.commit();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Entity
+    @Table(name = "order_row")
+    public static class OrderRow {
+        @Id
+        @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+                parameters = @Parameter(name = "sequence_name", value = "order_row_sequence"))
+        @GeneratedValue(generator = "pooled")
+        private Long id;
+        @OneToMany
+        private List<LineRow> lines = new ArrayList<>();
+    }
+
+    @Entity
+    @Table(name = "line_row")
+    public static class LineRow {
+        @Id
+        @GenericGenerator(name = "pooled", strategy = PooledSequenceIdGenerator.STRATEGY,
+                parameters = @Parameter(name = "sequence_name", value = "line_row_sequence"))
+        @GeneratedValue(generator = "pooled")
+        private Long id;
+        private double price = 9.99;
+        private int quantity;
+    }
+
+}
@@ -41,7 +41,7 @@ class PageControllerTest {
     @Test
     void readPageMethod_titleIsNotBlankTest() {
         // response
-        ResponseEntity<HashMap<String, Object>> response = pageController.readPage("");
+        ResponseEntity<HashMap<String, Object>> response = pageController.readPage("", null);
 
         // tests
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -52,7 +52,7 @@ class PageControllerTest {
     @Test
     void readPageMethod_titleIsValidTest() {
         // response
-        ResponseEntity<HashMap<String, Object>> response = pageController.readPage("INVALID");
+        ResponseEntity<HashMap<String, Object>> response = pageController.readPage("INVALID", null);
 
         // tests
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -63,7 +63,7 @@ class PageControllerTest {
     @Test
     void readPageMethod_allParametersAreValidTest() {
         // response
-        ResponseEntity<HashMap<String, Object>> response = pageController.readPage(page.getTitle());
+        ResponseEntity<HashMap<String, Object>> response = pageController.readPage(page.getTitle(), null);
 
         // tests
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -71,6 +71,19 @@ class PageControllerTest {
         assertEquals(page.getContent(), response.getBody().get("page"));
     }
 
+    @Test
+    void readPageMethod_matchingETagIsNotModifiedTest() {
+        // response
+        String eTag = pageController.readPage(page.getTitle(), null).getHeaders().getETag();
+        ResponseEntity<HashMap<String, Object>> response = pageController.readPage(page.getTitle(), eTag);
+
+        // tests
+        assertNotNull(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(eTag, response.getHeaders().getETag());
+    }
+
 
 
     @Test
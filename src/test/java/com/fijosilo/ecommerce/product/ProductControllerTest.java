@@ -2,6 +2,7 @@ package com.fijosilo.ecommerce.product;
 
 import com.fijosilo.ecommerce.category.Category;
 import com.fijosilo.ecommerce.category.CategoryService;
+import com.fijosilo.ecommerce.pagination.KeysetCursor;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,7 +21,9 @@ import static org.junit.jupiter.api.Assertions.*;
 class ProductControllerTest {
     private static ProductController productController;
     private static Product productPhone, productTable;
-    private static List<Product> products, productsNovelties, productsPromotions;
+    private static List<ProductSummary> products, productsNovelties, productsPromotions;
+    private static ProductFacets productFacets;
+    private static List<ProductSuggestion> suggestions;
 
     @BeforeAll
     static void init() {
@@ -35,6 +39,8 @@ class ProductControllerTest {
         Mockito.when(categoryService.readCategoryByName(Mockito.anyString())).thenReturn(null);
         Mockito.when(categoryService.readCategoryByName(Mockito.matches(categoryTechnology.getName()))).thenReturn(categoryTechnology);
         Mockito.when(categoryService.createCategory(Mockito.any(Category.class))).thenReturn(true);
+        Mockito.when(categoryService.readCategoryNamesWithSubcategories(Mockito.anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.<String>getArgument(0)));
 
         // product service
 
@@ -72,21 +78,24 @@ class ProductControllerTest {
         productPhone.setEnabled(true);
 
         products = new LinkedList<>();
-        products.add(productTable);
-        products.add(productPhone);
+        products.add(new ProductSummary(productTable));
+        products.add(new ProductSummary(productPhone));
 
         productsNovelties = new LinkedList<>();
-        productsNovelties.add(productPhone);
-        productsNovelties.add(productTable);
+        productsNovelties.add(new ProductSummary(productPhone));
+        productsNovelties.add(new ProductSummary(productTable));
 
         productsPromotions = new LinkedList<>();
-        productsPromotions.add(productPhone);
-        productsPromotions.add(productTable);
+        productsPromotions.add(new ProductSummary(productPhone));
+        productsPromotions.add(new ProductSummary(productTable));
 
         ProductService productService = Mockito.mock(ProductService.class);
         Mockito.when(productService.readProductByCode(Mockito.anyString())).thenReturn(null);
         Mockito.when(productService.readProductByCode(Mockito.matches(productPhone.getCode()))).thenReturn(productPhone);
         Mockito.when(productService.readProductByCode(Mockito.matches(productTable.getCode()))).thenReturn(productTable);
+        Mockito.when(productService.readProductByCodeForUpdate(Mockito.anyString())).thenReturn(null);
+        Mockito.when(productService.readProductByCodeForUpdate(Mockito.matches(productPhone.getCode()))).thenReturn(productPhone);
+        Mockito.when(productService.readProductByCodeForUpdate(Mockito.matches(productTable.getCode()))).thenReturn(productTable);
         Mockito.when(productService.readProductsByFilters(Mockito.isNull(),
                 Mockito.isNull(),
                 Mockito.isNull(),
@@ -99,7 +108,7 @@ class ProductControllerTest {
                 Mockito.anyDouble(),
                 Mockito.anyDouble(),
                 Mockito.anyString(),
-                Mockito.anyList(),
+                Mockito.any(CategoryFilter.class),
                 Mockito.anyInt(),
                 Mockito.anyInt()
         )).thenReturn(products);
@@ -107,10 +116,31 @@ class ProductControllerTest {
         Mockito.when(productService.readProductBrandByBrand(Mockito.matches(brandQuasar.getBrand()))).thenReturn(brandQuasar);
         Mockito.when(productService.createProductBrand(Mockito.any(ProductBrand.class))).thenReturn(true);
         Mockito.when(productService.createProduct(Mockito.any(Product.class))).thenReturn(true);
-        Mockito.when(productService.updateProduct(Mockito.any(Product.class))).thenReturn(true);
+        Mockito.when(productService.updateProduct(Mockito.any(Product.class), Mockito.anyInt())).thenReturn(true);
         Mockito.when(productService.deleteProduct(Mockito.any(Product.class))).thenReturn(true);
         Mockito.when(productService.readProductsByDescendingDate(Mockito.anyInt(), Mockito.anyInt())).thenReturn(productsNovelties);
         Mockito.when(productService.readProductsByDescendingDiscount(Mockito.anyInt(), Mockito.anyInt())).thenReturn(productsPromotions);
+        Mockito.when(productService.readProductsByFiltersAfter(Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.anyInt(),
+                Mockito.any(KeysetCursor.class)
+        )).thenReturn(products);
+        Mockito.when(productService.readProductsBySearch(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt())).thenReturn(products);
+        suggestions = List.of(new ProductSuggestion(SuggestionType.PRODUCT, productPhone.getName(), productPhone.getCode(),
+                productPhone.getAdditionDate()));
+        Mockito.when(productService.readProductSuggestions(Mockito.anyString(), Mockito.anyInt())).thenReturn(suggestions);
+        productFacets = new ProductFacets(new double[]{0, 250});
+        Mockito.when(productService.readProductFacets(Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any()
+        )).thenReturn(productFacets);
+        Mockito.when(productService.readProductsByDescendingDateAfter(Mockito.anyInt(), Mockito.any(KeysetCursor.class))).thenReturn(productsNovelties);
+        Mockito.when(productService.readProductsByDescendingDiscountAfter(Mockito.anyInt(), Mockito.any(KeysetCursor.class))).thenReturn(productsPromotions);
 
         // product controller
         productController = new ProductController(productService, categoryService);
@@ -124,7 +154,7 @@ class ProductControllerTest {
         HashMap<String, String> params = new HashMap<>();
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params);
+        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -139,7 +169,7 @@ class ProductControllerTest {
         params.put("code", "");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params);
+        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -154,7 +184,7 @@ class ProductControllerTest {
         params.put("code", "INVALID");
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params);
+        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params, null);
 
         // tests
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
@@ -169,7 +199,7 @@ class ProductControllerTest {
         params.put("code", productPhone.getCode());
 
         // response
-        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params);
+        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params, null);
 
         // tests
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -180,6 +210,25 @@ class ProductControllerTest {
         assertEquals(productPhone, response.getBody().get("product"));
     }
 
+    @Test
+    void readProductMethod_matchingETagIsNotModifiedTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("code", productPhone.getCode());
+
+        // response
+        String eTag = productController.readProduct(params, null).getHeaders().getETag();
+        ResponseEntity<HashMap<String, Object>> response = productController.readProduct(params, eTag);
+        ResponseEntity<HashMap<String, Object>> otherResponse = productController.readProduct(params, "W/\"product-0\"");
+
+        // tests
+        assertNotNull(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(HttpStatus.OK, otherResponse.getStatusCode());
+        assertEquals(productPhone, otherResponse.getBody().get("product"));
+    }
+
 
 
     @Test
@@ -346,6 +395,38 @@ class ProductControllerTest {
         assertEquals("Field categories[1] can't be blank.", response.getBody().get("error"));
     }
 
+    @Test
+    void readProductsMethod_categoryMatchIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("categories[0]", "WHITE");
+        params.put("category_match", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field category_match can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readProductsMethod_categoryMatchIsValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("categories[0]", "WHITE");
+        params.put("category_match", "some");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field category_match must be any or all.", response.getBody().get("error"));
+    }
+
     @Test
     void readProductsMethod_maxProductsPerPageIsNotBlankTest() {
         // request
@@ -453,6 +534,115 @@ class ProductControllerTest {
         assertEquals(products, response.getBody().get("products"));
     }
 
+    @Test
+    void readProductsMethod_afterIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readProductsMethod_afterIsNotUsedWithPageNumberTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("page_number", "2");
+        params.put("after", KeysetCursor.of(1L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be used together with page_number.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readProductsMethod_afterIsValidCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", "not a cursor");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after must be a valid cursor.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readProductsMethod_afterIsValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", KeysetCursor.of(1L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("products"));
+        assertEquals(products, response.getBody().get("products"));
+        assertFalse(response.getBody().containsKey("next"));
+    }
+
+    @Test
+    void readProductsMethod_fullPageHasNextCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_products_per_page", "2");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("next"));
+        assertEquals(KeysetCursor.of(productPhone.getId()).encode(), response.getBody().get("next"));
+    }
+
+    @Test
+    void readProductsMethod_facetsAreCountedWhenRequestedTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("facets", "true");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("facets"));
+        assertEquals(productFacets, response.getBody().get("facets"));
+    }
+
+    @Test
+    void readProductsMethod_facetsAreNotCountedByDefaultTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertFalse(response.getBody().containsKey("facets"));
+    }
+
 
 
     @Test
@@ -1281,6 +1471,85 @@ class ProductControllerTest {
         assertEquals(productsNovelties, response.getBody().get("products"));
     }
 
+    @Test
+    void readNoveltiesMethod_afterIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readNovelties(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readNoveltiesMethod_afterIsNotUsedWithPageNumberTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("page_number", "2");
+        params.put("after", KeysetCursor.of(1642517236929L, 2L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readNovelties(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be used together with page_number.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readNoveltiesMethod_afterIsValidCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", KeysetCursor.of(2L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readNovelties(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after must be a valid cursor.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readNoveltiesMethod_afterIsValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", KeysetCursor.of(1642517236929L, 2L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readNovelties(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("products"));
+        assertEquals(productsNovelties, response.getBody().get("products"));
+        assertFalse(response.getBody().containsKey("next"));
+    }
+
+    @Test
+    void readNoveltiesMethod_fullPageHasNextCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_products_per_page", "2");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readNovelties(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("next"));
+        assertEquals(KeysetCursor.of(productTable.getAdditionDate(), productTable.getId()).encode(), response.getBody().get("next"));
+    }
+
 
 
     @Test
@@ -1390,4 +1659,241 @@ class ProductControllerTest {
         assertEquals(productsPromotions, response.getBody().get("products"));
     }
 
+    @Test
+    void readPromotionsMethod_afterIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readPromotions(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readPromotionsMethod_afterIsNotUsedWithPageNumberTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("page_number", "2");
+        params.put("after", KeysetCursor.of(0.2, 2L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readPromotions(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after can't be used together with page_number.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readPromotionsMethod_afterIsValidCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", KeysetCursor.of(2L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readPromotions(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field after must be a valid cursor.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readPromotionsMethod_afterKeyIsFiniteTest() {
+        for (double key : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            // request
+            HashMap<String, String> params = new HashMap<>();
+            params.put("after", KeysetCursor.of(key, 2L).encode());
+
+            // response
+            ResponseEntity<HashMap<String, Object>> response = productController.readPromotions(params);
+
+            // tests
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+            assertTrue(response.getBody().containsKey("error"));
+            assertEquals("Field after must be a valid cursor.", response.getBody().get("error"));
+        }
+    }
+
+    @Test
+    void readPromotionsMethod_afterIsValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("after", KeysetCursor.of(0.2, 2L).encode());
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readPromotions(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("products"));
+        assertEquals(productsPromotions, response.getBody().get("products"));
+        assertFalse(response.getBody().containsKey("next"));
+    }
+
+    @Test
+    void readPromotionsMethod_fullPageHasNextCursorTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("max_products_per_page", "2");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readPromotions(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("next"));
+        assertEquals(KeysetCursor.of(productTable.getDiscount(), productTable.getId()).encode(), response.getBody().get("next"));
+    }
+
+    @Test
+    void searchProductsMethod_queryIsRequiredTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.searchProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field query is required.", response.getBody().get("error"));
+    }
+
+    @Test
+    void searchProductsMethod_queryIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("query", " ");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.searchProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field query can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void searchProductsMethod_maxProductsPerPageIsIntegerTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("query", "quasar");
+        params.put("max_products_per_page", "ten");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.searchProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field max_products_per_page must be a valid integer number.", response.getBody().get("error"));
+    }
+
+    @Test
+    void searchProductsMethod_pageNumberIsBiggerThanZeroTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("query", "quasar");
+        params.put("page_number", "0");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.searchProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field page_number can't be smaller than one.", response.getBody().get("error"));
+    }
+
+    @Test
+    void searchProductsMethod_allParametersAreValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("query", "quasar");
+        params.put("max_products_per_page", "10");
+        params.put("page_number", "1");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.searchProducts(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("products"));
+        assertEquals(products, response.getBody().get("products"));
+    }
+
+    @Test
+    void readSuggestionsMethod_prefixIsRequiredTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readSuggestions(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field prefix is required.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readSuggestionsMethod_prefixIsNotBlankTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("prefix", "");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readSuggestions(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field prefix can't be blank.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readSuggestionsMethod_maxSuggestionsIsNotBiggerThanTheLimitTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("prefix", "qua");
+        params.put("max_suggestions", "11");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readSuggestions(params);
+
+        // tests
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertTrue(response.getBody().containsKey("error"));
+        assertEquals("Field max_suggestions can't be bigger than 10.", response.getBody().get("error"));
+    }
+
+    @Test
+    void readSuggestionsMethod_allParametersAreValidTest() {
+        // request
+        HashMap<String, String> params = new HashMap<>();
+        params.put("prefix", "qua");
+        params.put("max_suggestions", "5");
+
+        // response
+        ResponseEntity<HashMap<String, Object>> response = productController.readSuggestions(params);
+
+        // tests
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertTrue(response.getBody().containsKey("suggestions"));
+        assertEquals(suggestions, response.getBody().get("suggestions"));
+    }
+
 }
@@ -0,0 +1,200 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.category.Category;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ProductIndexTest {
+    private static ProductIndex productIndex;
+    private static Product productPhone, productTable, productTv;
+
+    @BeforeAll
+    static void init() {
+        Category categoryTechnology = new Category();
+        categoryTechnology.setId(1L);
+        categoryTechnology.setName("technology");
+
+        Category categoryFurniture = new Category();
+        categoryFurniture.setId(2L);
+        categoryFurniture.setName("furniture");
+
+        ProductBrand brandQuasar = new ProductBrand();
+        brandQuasar.setId(1L);
+        brandQuasar.setBrand("QUASAR");
+
+        ProductBrand brandNebula = new ProductBrand();
+        brandNebula.setId(2L);
+        brandNebula.setBrand("NEBULA");
+
+        productPhone = new Product();
+        productPhone.setId(1L);
+        productPhone.setCode("QS1642517236929");
+        productPhone.setProductBrand(brandQuasar);
+        productPhone.setName("Quasar Smartphone");
+        productPhone.setPrice(199.99);
+        productPhone.addProductCategory(categoryTechnology);
+
+        productTable = new Product();
+        productTable.setId(2L);
+        productTable.setCode("QT1642517235938");
+        productTable.setProductBrand(brandQuasar);
+        productTable.setName("Quasar Table");
+        productTable.setPrice(499.99);
+        productTable.addProductCategory(categoryFurniture);
+
+        productTv = new Product();
+        productTv.setId(3L);
+        productTv.setCode("NT1642517237011");
+        productTv.setProductBrand(brandNebula);
+        productTv.setName("Nebula Tv");
+        productTv.setPrice(899.99);
+        productTv.addProductCategory(categoryTechnology);
+
+        productIndex = new ProductIndex();
+        productIndex.put(productPhone);
+        productIndex.put(productTable);
+        productIndex.put(productTv);
+    }
+
+    @Test
+    void searchMethod_withoutFiltersReturnsEveryProductTest() {
+        List<ProductSummary> products = productIndex.search(null, null, null, null, null, 0, 10);
+
+        assertEquals(List.of(new ProductSummary(productPhone), new ProductSummary(productTable),
+                new ProductSummary(productTv)), products);
+    }
+
+    @Test
+    void searchMethod_nameMatchesWordPrefixesTest() {
+        List<ProductSummary> products = productIndex.search("quasar sma", null, null, null, null, 0, 10);
+
+        assertEquals(List.of(new ProductSummary(productPhone)), products);
+    }
+
+    @Test
+    void searchMethod_priceRangeIsInclusiveTest() {
+        List<ProductSummary> products = productIndex.search(null, 199.99, 499.99, null, null, 0, 10);
+
+        assertEquals(List.of(new ProductSummary(productPhone), new ProductSummary(productTable)), products);
+    }
+
+    @Test
+    void searchMethod_brandAndCategoriesAreCombinedTest() {
+        List<ProductSummary> products = productIndex.search(null, null, null, "QUASAR",
+                new CategoryFilter(List.of(Set.of("technology")), CategoryMatch.ANY), 0, 10);
+
+        assertEquals(List.of(new ProductSummary(productPhone)), products);
+    }
+
+    @Test
+    void searchMethod_anyCategoryMatchesEveryCategoryProductTest() {
+        List<ProductSummary> products = productIndex.search(null, null, null, null,
+                new CategoryFilter(List.of(Set.of("technology"), Set.of("furniture")), CategoryMatch.ANY), 0, 10);
+
+        assertEquals(List.of(new ProductSummary(productPhone), new ProductSummary(productTable), new ProductSummary(productTv)), products);
+    }
+
+    @Test
+    void searchMethod_allCategoriesMatchesTheProductsInEveryCategoryTest() {
+        Category categoryOutdoor = new Category();
+        categoryOutdoor.setId(3L);
+        categoryOutdoor.setName("outdoor");
+        Category categoryGarden = new Category();
+        categoryGarden.setId(4L);
+        categoryGarden.setName("garden");
+        Product product = new Product();
+        product.setId(4L);
+        product.setName("Garden Table");
+        product.setPrice(99.99);
+        product.addProductCategory(categoryGarden);
+        product.addProductCategory(categoryOutdoor);
+        ProductIndex index = new ProductIndex();
+        index.put(productPhone);
+        index.put(product);
+
+        // a category group is the category with its subcategories
+        List<ProductSummary> products = index.search(null, null, null, null, new CategoryFilter(
+                List.of(Set.of("outdoor"), Set.of("furniture", "garden")), CategoryMatch.ALL), 0, 10);
+
+        assertEquals(List.of(new ProductSummary(product)), products);
+        assertTrue(index.search(null, null, null, null, new CategoryFilter(
+                List.of(Set.of("outdoor"), Set.of("technology")), CategoryMatch.ALL), 0, 10).isEmpty());
+    }
+
+    @Test
+    void searchMethod_unknownBrandMatchesNothingTest() {
+        List<ProductSummary> products = productIndex.search(null, null, null, "UNKNOWN", null, 0, 10);
+
+        assertTrue(products.isEmpty());
+    }
+
+    @Test
+    void searchMethod_pagesAreSlicedFromTheMatchesTest() {
+        List<ProductSummary> products = productIndex.search(null, null, null, null, null, 1, 1);
+
+        assertEquals(List.of(new ProductSummary(productTable)), products);
+    }
+
+    @Test
+    void searchAfterMethod_pagesInIdOrderWhenProductsAreIndexedOutOfOrderTest() {
+        ProductIndex index = new ProductIndex();
+        index.put(productTv);
+        index.put(productPhone);
+        index.put(productTable);
+
+        assertEquals(List.of(new ProductSummary(productPhone), new ProductSummary(productTable)),
+                index.search(null, null, null, null, null, 0, 2));
+        assertEquals(List.of(new ProductSummary(productTable), new ProductSummary(productTv)),
+                index.searchAfter(null, null, null, null, null, productPhone.getId(), 10));
+        assertEquals(List.of(new ProductSummary(productTv)),
+                index.searchAfter(null, null, null, null, null, 2L, 10));
+    }
+
+    @Test
+    void facetsMethod_eachFacetIgnoresItsOwnFilterTest() {
+        ProductFacets facets = productIndex.facets(null, null, null, "QUASAR",
+                new CategoryFilter(List.of(Set.of("technology")), CategoryMatch.ANY), new double[]{0, 250, 500});
+
+        // the brands are counted without the brand filter and the categories without the category filter
+        assertEquals(Map.of("QUASAR", 1, "NEBULA", 1), facets.getBrands());
+        assertEquals(Map.of("technology", 1, "furniture", 1), facets.getCategories());
+        assertEquals(List.of(new ProductFacets.PriceBand(0, 250.0, 1), new ProductFacets.PriceBand(250, 500.0, 0),
+                new ProductFacets.PriceBand(500, null, 0)), facets.getPriceBands());
+    }
+
+    @Test
+    void facetsMethod_priceBandsIgnoreThePriceFilterTest() {
+        ProductFacets facets = productIndex.facets(null, 0.0, 250.0, null, null, new double[]{0, 250, 500});
+
+        assertEquals(Map.of("QUASAR", 1), facets.getBrands());
+        assertEquals(List.of(new ProductFacets.PriceBand(0, 250.0, 1), new ProductFacets.PriceBand(250, 500.0, 1),
+                new ProductFacets.PriceBand(500, null, 1)), facets.getPriceBands());
+    }
+
+    @Test
+    void putMethod_reindexesChangedProductsTest() {
+        ProductIndex index = new ProductIndex();
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Old Name");
+        product.setPrice(10.0);
+        index.put(product);
+
+        product.setName("New Name");
+        product.setPrice(20.0);
+        index.put(product);
+
+        assertTrue(index.search("old", null, null, null, null, 0, 10).isEmpty());
+        assertEquals(List.of(new ProductSummary(product)), index.search("new", 15.0, 25.0, null, null, 0, 10));
+        assertTrue(index.search(null, 5.0, 15.0, null, null, 0, 10).isEmpty());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.fijosilo.ecommerce.product;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ProductLeaderboardTest {
+
+    @Test
+    void pageMethod_sortsByKeyAndThenByIdFromTheBiggestTest() {
+        ProductLeaderboard<Long> novelties = new ProductLeaderboard<>(Product::getAdditionDate, Product::isEnabled);
+        Product table = this.createProduct(1L, 100L, 0.0);
+        Product phone = this.createProduct(2L, 300L, 0.2);
+        Product tv = this.createProduct(3L, 300L, 0.1);
+        novelties.put(table);
+        novelties.put(phone);
+        novelties.put(tv);
+
+        assertEquals(List.of(new ProductSummary(tv), new ProductSummary(phone), new ProductSummary(table)),
+                novelties.page(0, 10));
+        assertEquals(List.of(new ProductSummary(phone)), novelties.page(1, 1));
+    }
+
+    @Test
+    void pageAfterMethod_seeksPastTheLastProductTest() {
+        ProductLeaderboard<Double> promotions = new ProductLeaderboard<>(Product::getDiscount,
+                product -> product.isEnabled() && product.getDiscount() > 0.0);
+        Product table = this.createProduct(1L, 100L, 0.0);
+        Product phone = this.createProduct(2L, 300L, 0.2);
+        Product tv = this.createProduct(3L, 300L, 0.1);
+        Product lamp = this.createProduct(4L, 200L, 0.1);
+        promotions.put(table);
+        promotions.put(phone);
+        promotions.put(tv);
+        promotions.put(lamp);
+
+        // the table has no discount so it isn't a promotion
+        assertEquals(List.of(new ProductSummary(lamp), new ProductSummary(tv)), promotions.pageAfter(0.2, 2L, 10));
+        assertEquals(List.of(new ProductSummary(tv)), promotions.pageAfter(0.1, 4L, 10));
+        assertEquals(3, promotions.size());
+    }
+
+    @Test
+    void putMethod_movesChangedProductsAndRemovesDisabledProductsTest() {
+        ProductLeaderboard<Double> promotions = new ProductLeaderboard<>(Product::getDiscount,
+                product -> product.isEnabled() && product.getDiscount() > 0.0);
+        Product phone = this.createProduct(1L, 100L, 0.2);
+        Product tv = this.createProduct(2L, 200L, 0.1);
+        promotions.put(phone);
+        promotions.put(tv);
+
+        tv.setDiscount(0.5);
+        promotions.put(tv);
+
+        assertEquals(List.of(new ProductSummary(tv), new ProductSummary(phone)), promotions.page(0, 10));
+        assertEquals(0.5, promotions.page(0, 1).get(0).getDiscount());
+
+        phone.setEnabled(false);
+        promotions.put(phone);
+        tv.setDiscount(0.0);
+        promotions.put(tv);
+
+        assertTrue(promotions.page(0, 10).isEmpty());
+        assertEquals(0, promotions.size());
+    }
+
+    private Product createProduct(Long id, Long additionDate, double discount) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCode("P" + id);
+        product.setName("Product " + id);
+        product.setAdditionDate(additionDate);
+        product.setDiscount(discount);
+        product.setEnabled(true);
+        return product;
+    }
+
+}
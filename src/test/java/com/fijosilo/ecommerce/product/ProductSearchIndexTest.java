@@ -0,0 +1,139 @@
+package com.fijosilo.ecommerce.product;
+
+import com.fijosilo.ecommerce.category.Category;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ProductSearchIndexTest {
+    private static ProductSearchIndex productSearchIndex;
+    private static Product productPhone, productTable, productTv;
+
+    @BeforeAll
+    static void init() {
+        Category categoryTechnology = new Category();
+        categoryTechnology.setId(1L);
+        categoryTechnology.setName("technology");
+
+        Category categoryFurniture = new Category();
+        categoryFurniture.setId(2L);
+        categoryFurniture.setName("furniture");
+
+        ProductBrand brandQuasar = new ProductBrand();
+        brandQuasar.setId(1L);
+        brandQuasar.setBrand("QUASAR");
+
+        ProductBrand brandNebula = new ProductBrand();
+        brandNebula.setId(2L);
+        brandNebula.setBrand("NEBULA");
+
+        productPhone = new Product();
+        productPhone.setId(1L);
+        productPhone.setCode("QS1642517236929");
+        productPhone.setProductBrand(brandQuasar);
+        productPhone.setName("Quasar Smartphone");
+        productPhone.setDescription("A smartphone with a wide screen");
+        productPhone.setPrice(199.99);
+        productPhone.addProductCategory(categoryTechnology);
+        productPhone.setEnabled(true);
+
+        productTable = new Product();
+        productTable.setId(2L);
+        productTable.setCode("QT1642517235938");
+        productTable.setProductBrand(brandQuasar);
+        productTable.setName("Quasar Table");
+        productTable.setDescription("A wooden table to put the tv on");
+        productTable.setPrice(499.99);
+        productTable.addProductCategory(categoryFurniture);
+        productTable.setEnabled(true);
+
+        productTv = new Product();
+        productTv.setId(3L);
+        productTv.setCode("NT1642517237011");
+        productTv.setProductBrand(brandNebula);
+        productTv.setName("Nebula Tv");
+        productTv.setDescription("A tv with a wide screen");
+        productTv.setPrice(899.99);
+        productTv.addProductCategory(categoryTechnology);
+        productTv.setEnabled(true);
+
+        productSearchIndex = new ProductSearchIndex();
+        productSearchIndex.put(productPhone);
+        productSearchIndex.put(productTable);
+        productSearchIndex.put(productTv);
+    }
+
+    @Test
+    void searchMethod_nameMatchesRankBeforeDescriptionMatchesTest() {
+        List<ProductSummary> products = productSearchIndex.search("tv", 0, 10);
+
+        assertEquals(List.of(new ProductSummary(productTv), new ProductSummary(productTable)), products);
+    }
+
+    @Test
+    void searchMethod_everyWordMustMatchTest() {
+        List<ProductSummary> products = productSearchIndex.search("wide screen technology", 0, 10);
+
+        assertEquals(2, products.size());
+        assertTrue(productSearchIndex.search("wide screen furniture", 0, 10).isEmpty());
+    }
+
+    @Test
+    void searchMethod_lastWordMatchesAsPrefixTest() {
+        List<ProductSummary> products = productSearchIndex.search("quasar smart", 0, 10);
+
+        assertEquals(List.of(new ProductSummary(productPhone)), products);
+    }
+
+    @Test
+    void searchMethod_wordsWithTyposMatchTest() {
+        assertEquals(List.of(new ProductSummary(productTv)), productSearchIndex.search("nebual", 0, 10));
+        assertEquals(List.of(new ProductSummary(productPhone)), productSearchIndex.search("smartfone", 0, 10));
+        assertTrue(productSearchIndex.search("tbl", 0, 10).isEmpty());
+    }
+
+    @Test
+    void searchMethod_pagesAreSlicedFromTheRankedMatchesTest() {
+        List<ProductSummary> products = productSearchIndex.search("tv", 1, 1);
+
+        assertEquals(List.of(new ProductSummary(productTable)), products);
+    }
+
+    @Test
+    void putMethod_reindexesChangedAndDisabledProductsTest() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Old Name");
+        product.setPrice(10.0);
+        product.setEnabled(true);
+        index.put(product);
+
+        product.setName("New Name");
+        index.put(product);
+
+        assertTrue(index.search("old", 0, 10).isEmpty());
+        assertEquals(List.of(new ProductSummary(product)), index.search("new", 0, 10));
+
+        product.setEnabled(false);
+        index.put(product);
+
+        assertTrue(index.search("new", 0, 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void editDistanceMethod_countsSwapsAsOneTypoTest() {
+        assertEquals(0, ProductSearchIndex.editDistance("table", "table", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("tabel", "table", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("tables", "table", 2));
+        assertEquals(2, ProductSearchIndex.editDistance("tbael", "table", 2));
+        assertEquals(3, ProductSearchIndex.editDistance("chair", "table", 2));
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.fijosilo.ecommerce.product;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class ProductSuggestionTrieTest {
+
+    @Test
+    void suggestMethod_matchesTheStartOfEveryWordTest() {
+        ProductSuggestionTrie trie = new ProductSuggestionTrie();
+        Product phone = this.createProduct(1L, "Quasar Smartphone", "QUASAR", 1L);
+        trie.put(phone);
+
+        assertEquals(List.of(this.suggestion(phone)), trie.suggest("smart", 10));
+        assertEquals(List.of(this.suggestion(phone)), trie.suggest("Quasar sm", 10));
+        assertTrue(trie.suggest("quasar t", 10).isEmpty());
+        assertTrue(trie.suggest("phone", 10).isEmpty());
+    }
+
+    @Test
+    void suggestMethod_ranksTheNewestFirstTest() {
+        ProductSuggestionTrie trie = new ProductSuggestionTrie();
+        Product table = this.createProduct(1L, "Quasar Table", "QUASAR", 1L);
+        Product phone = this.createProduct(2L, "Quasar Smartphone", "QUASAR", 3L);
+        Product tv = this.createProduct(3L, "Nebula Tv", "NEBULA", 2L);
+        trie.put(table);
+        trie.put(phone);
+        trie.put(tv);
+
+        // the brand ranks with its newest product
+        assertEquals(List.of(new ProductSuggestion(SuggestionType.BRAND, "QUASAR", null, 3L), this.suggestion(phone),
+                this.suggestion(table)), trie.suggest("qu", 10));
+        assertEquals(List.of(new ProductSuggestion(SuggestionType.BRAND, "QUASAR", null, 3L), this.suggestion(phone)),
+                trie.suggest("qu", 2));
+    }
+
+    @Test
+    void suggestMethod_keepsTheBestOfManyProductsTest() {
+        ProductSuggestionTrie trie = new ProductSuggestionTrie();
+        for (long i = 1; i <= 100; i++) {
+            trie.put(this.createProduct(i, "Lamp " + i, null, i));
+        }
+
+        List<ProductSuggestion> suggestions = trie.suggest("lamp", 10);
+
+        assertEquals(10, suggestions.size());
+        assertEquals("Lamp 100", suggestions.get(0).getText());
+        assertEquals("Lamp 91", suggestions.get(9).getText());
+        assertEquals(List.of(this.suggestion(this.createProduct(42L, "Lamp 42", null, 42L))), trie.suggest("lamp 42", 10));
+    }
+
+    @Test
+    void putMethod_updatesChangedAndDisabledProductsTest() {
+        ProductSuggestionTrie trie = new ProductSuggestionTrie();
+        Product newLamp = this.createProduct(1L, "Desk Lamp", "LUMEN", 2L);
+        Product oldLamp = this.createProduct(2L, "Desk Light", "LUMEN", 1L);
+        trie.put(newLamp);
+        trie.put(oldLamp);
+
+        newLamp.setName("Floor Lamp");
+        trie.put(newLamp);
+
+        assertEquals(List.of(this.suggestion(oldLamp)), trie.suggest("desk", 10));
+        assertEquals(List.of(this.suggestion(newLamp)), trie.suggest("lamp", 10));
+
+        newLamp.setEnabled(false);
+        trie.put(newLamp);
+
+        // the brand is ranked again with the products left
+        assertTrue(trie.suggest("floor", 10).isEmpty());
+        assertEquals(List.of(new ProductSuggestion(SuggestionType.BRAND, "LUMEN", null, 1L)), trie.suggest("lumen", 10));
+        assertEquals(1L, trie.suggest("lumen", 10).get(0).getRank());
+
+        oldLamp.setEnabled(false);
+        trie.put(oldLamp);
+
+        assertTrue(trie.suggest("lumen", 10).isEmpty());
+        assertTrue(trie.suggest("desk", 10).isEmpty());
+    }
+
+    private Product createProduct(Long id, String name, String brand, Long additionDate) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCode("P" + id);
+        product.setName(name);
+        if (brand != null) {
+            ProductBrand productBrand = new ProductBrand();
+            productBrand.setBrand(brand);
+            product.setProductBrand(productBrand);
+        }
+        product.setAdditionDate(additionDate);
+        product.setEnabled(true);
+        return product;
+    }
+
+    private ProductSuggestion suggestion(Product product) {
+        return new ProductSuggestion(SuggestionType.PRODUCT, product.getName(), product.getCode(), product.getAdditionDate());
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.fijosilo.ecommerce.product;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the checkout throughput of a single product taking its stock from one counter,
+ * like the stock row of the product, with taking it from a striped stock counter, with several threads checking out.
+ * Run the main method with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class StockCounterBenchmark {
+    // enough stock that no checkout runs out of it during the benchmark
+    private static final long STOCK = Long.MAX_VALUE / 2;
+
+    @Param({"single", "striped"})
+    private String counter;
+
+    private AtomicLong single;
+    private StripedStockCounter striped;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        single = new AtomicLong(STOCK);
+        striped = new StripedStockCounter(Runtime.getRuntime().availableProcessors(), STOCK);
+    }
+
+    @Benchmark
+    public boolean checkout() {
+        if (counter.equals("striped")) {
+            return striped.tryTake(1);
+        }
+        long units = single.get();
+        while (units >= 1) {
+            if (single.compareAndSet(units, units - 1)) {
+                return true;
+            }
+            units = single.get();
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StockCounterBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.fijosilo.ecommerce.product;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("UnitTest")
+class StripedStockCounterTest {
+
+    @Test
+    void tryTakeMethod_takesUnitsFromSeveralStripesTest() {
+        // 10 units over 4 stripes leaves no stripe with 5 units on its own
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertTrue(counter.tryTake(5));
+        assertTrue(counter.tryTake(5));
+        assertFalse(counter.tryTake(1));
+        assertEquals(0, counter.sum());
+    }
+
+    @Test
+    void tryTakeMethod_takesNothingWithoutEnoughUnitsTest() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertFalse(counter.tryTake(11));
+
+        assertEquals(10, counter.sum());
+        assertEquals(0, counter.drainChanges());
+    }
+
+    @Test
+    void takeAtMostMethod_takesTheUnitsLeftTest() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertEquals(4, counter.takeAtMost(4));
+        assertEquals(6, counter.takeAtMost(8));
+
+        assertEquals(0, counter.sum());
+        assertEquals(-10, counter.drainChanges());
+    }
+
+    @Test
+    void drainChangesMethod_readsTheChangesOnceTest() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+        counter.tryTake(3);
+        counter.give(1);
+
+        assertEquals(-2, counter.drainChanges());
+        assertEquals(0, counter.drainChanges());
+    }
+
+    @Test
+    void tryTakeMethod_concurrentTakesNeverOversellTest() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(8, 10000);
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 2000; j++) {
+                        if (counter.tryTake(1 + j % 3)) {
+                            taken.addAndGet(1 + j % 3);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(10000 - taken.get(), counter.sum());
+        assertTrue(counter.sum() >= 0);
+        assertEquals(-taken.get(), counter.drainChanges());
+    }
+
+}